@@ -37,6 +37,14 @@ public class DispatchTuningTest {
         assertNull(dispatch.getMinActiveDocsCoverage());
     }
 
+    @Test
+    public void requireThatLatencyAwareDispatchWork() {
+        DispatchTuning dispatch = new DispatchTuning.Builder()
+                .setDispatchPolicy("latency-aware")
+                .build();
+        assertTrue(DispatchTuning.DispatchPolicy.LATENCY_AWARE == dispatch.getDispatchPolicy());
+    }
+
     @Test
     public void requireThatWeightedDispatchWork() {
         DispatchTuning dispatch = new DispatchTuning.Builder()
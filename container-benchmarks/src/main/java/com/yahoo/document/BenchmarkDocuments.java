@@ -0,0 +1,101 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document;
+
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.document.datatypes.WeightedSet;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Random;
+
+/**
+ * Document types and documents shared by the document benchmarks. The document type resembles a typical
+ * text search application with a few string and numeric fields, a tag set and an embedding.
+ */
+public class BenchmarkDocuments {
+
+    public static final String typeName = "music";
+
+    private static final TensorType embeddingType = TensorType.fromSpec("tensor<float>(x[128])");
+    private static final String[] words = { "love", "song", "night", "dance", "heart", "blue", "dream", "light", "fire", "rain" };
+
+    public static DocumentTypeManager createTypes() {
+        DocumentTypeManager types = new DocumentTypeManager();
+        DocumentType type = new DocumentType(typeName);
+        type.addField(new Field("title", DataType.STRING));
+        type.addField(new Field("artist", DataType.STRING));
+        type.addField(new Field("body", DataType.STRING));
+        type.addField(new Field("year", DataType.INT));
+        type.addField(new Field("popularity", DataType.INT));
+        type.addField(new Field("genres", new ArrayDataType(DataType.STRING)));
+        type.addField(new Field("tags", new WeightedSetDataType(DataType.STRING, true, true)));
+        type.addField(new Field("embedding", new TensorDataType(embeddingType)));
+        types.registerDocumentType(type);
+        return types;
+    }
+
+    public static Document createDocument(DocumentTypeManager types, int i) {
+        Random random = new Random(i);
+        Document document = new Document(types.getDocumentType(typeName), "id:benchmark:" + typeName + "::" + i);
+        document.setFieldValue("title", new StringFieldValue(text(random, 5)));
+        document.setFieldValue("artist", new StringFieldValue(text(random, 2)));
+        document.setFieldValue("body", new StringFieldValue(text(random, 100)));
+        document.setFieldValue("year", new IntegerFieldValue(1950 + random.nextInt(70)));
+        document.setFieldValue("popularity", new IntegerFieldValue(random.nextInt(100)));
+        Array<StringFieldValue> genres = new Array<>(new ArrayDataType(DataType.STRING));
+        genres.add(new StringFieldValue(words[random.nextInt(words.length)]));
+        genres.add(new StringFieldValue(words[random.nextInt(words.length)]));
+        document.setFieldValue("genres", genres);
+        WeightedSet<StringFieldValue> tags = new WeightedSet<>(new WeightedSetDataType(DataType.STRING, true, true));
+        for (String word : words)
+            tags.put(new StringFieldValue(word), random.nextInt(100));
+        document.setFieldValue("tags", tags);
+        document.setFieldValue("embedding", new TensorFieldValue(embedding(random)));
+        return document;
+    }
+
+    /** Returns a feed of the given number of put operations in the document/v1 JSON feed format */
+    public static String createJsonFeed(int count) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < count; i++) {
+            Random random = new Random(i);
+            if (i > 0) json.append(",\n");
+            json.append("{ \"put\": \"id:benchmark:").append(typeName).append("::").append(i).append("\", \"fields\": {")
+                .append(" \"title\": \"").append(text(random, 5)).append("\",")
+                .append(" \"artist\": \"").append(text(random, 2)).append("\",")
+                .append(" \"body\": \"").append(text(random, 100)).append("\",")
+                .append(" \"year\": ").append(1950 + random.nextInt(70)).append(",")
+                .append(" \"popularity\": ").append(random.nextInt(100)).append(",")
+                .append(" \"genres\": [ \"").append(words[random.nextInt(words.length)]).append("\", \"")
+                                          .append(words[random.nextInt(words.length)]).append("\" ],")
+                .append(" \"tags\": {");
+            for (int w = 0; w < words.length; w++)
+                json.append(w > 0 ? ", " : " ").append('"').append(words[w]).append("\": ").append(random.nextInt(100));
+            json.append(" }, \"embedding\": { \"values\": [");
+            for (int x = 0; x < embeddingType.dimensions().get(0).size().get(); x++)
+                json.append(x > 0 ? ", " : " ").append(random.nextFloat());
+            json.append(" ] } } }");
+        }
+        return json.append("\n]\n").toString();
+    }
+
+    private static String text(Random random, int wordCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) text.append(' ');
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    private static Tensor embedding(Random random) {
+        Tensor.Builder builder = Tensor.Builder.of(embeddingType);
+        for (long x = 0; x < embeddingType.dimensions().get(0).size().get(); x++)
+            builder.cell(random.nextFloat(), x);
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,56 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.BenchmarkDocuments;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.text.Utf8;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of a JSON feed of put operations into documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonReaderBenchmark {
+
+    @Param({"1", "100"})
+    public int documents;
+
+    private final JsonFactory parserFactory = new JsonFactory();
+    private DocumentTypeManager types;
+    private byte[] feed;
+
+    @Setup
+    public void setup() {
+        types = BenchmarkDocuments.createTypes();
+        feed = Utf8.toBytes(BenchmarkDocuments.createJsonFeed(documents));
+    }
+
+    @Benchmark
+    public void readFeed(Blackhole blackhole) {
+        JsonReader reader = new JsonReader(types, new ByteArrayInputStream(feed), parserFactory);
+        for (DocumentOperation operation; (operation = reader.next()) != null; )
+            blackhole.consume(operation);
+    }
+
+}
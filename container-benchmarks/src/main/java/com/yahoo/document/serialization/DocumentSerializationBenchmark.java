@@ -0,0 +1,59 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.BenchmarkDocuments;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.io.GrowableByteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization and deserialization of a document in the 6.x binary format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DocumentSerializationBenchmark {
+
+    private DocumentTypeManager types;
+    private Document document;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        types = BenchmarkDocuments.createTypes();
+        document = BenchmarkDocuments.createDocument(types, 1);
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        new VespaDocumentSerializer6(buffer).write(document);
+        buffer.flip();
+        serialized = new byte[buffer.remaining()];
+        buffer.get(serialized);
+    }
+
+    @Benchmark
+    public GrowableByteBuffer serialize() {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        new VespaDocumentSerializer6(buffer).write(document);
+        return buffer;
+    }
+
+    @Benchmark
+    public Document deserialize() {
+        return new Document(new VespaDocumentDeserializer6(types, GrowableByteBuffer.wrap(serialized)));
+    }
+
+}
@@ -0,0 +1,115 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging of the hit lists returned from all the content nodes of a group,
+ * using invokers which answer immediately with precomputed hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InterleavedSearchInvokerBenchmark {
+
+    @Param({"10", "40"})
+    public int nodes;
+
+    @Param({"10", "400"})
+    public int hits;
+
+    private SearchCluster cluster;
+    private List<List<LeanHit>> hitsPerNode;
+
+    @Setup
+    public void setup() {
+        DispatchConfig.Builder config = new DispatchConfig.Builder();
+        for (int i = 0; i < nodes; i++) {
+            config.node(new DispatchConfig.Node.Builder().key(i).host("host" + i).port(10000 + i).group(0));
+        }
+        cluster = new SearchCluster("benchmark", new DispatchConfig(config), null, null);
+
+        Random random = new Random(1);
+        hitsPerNode = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            List<LeanHit> nodeHits = new ArrayList<>(hits);
+            double relevance = 1000.0;
+            for (int i = 0; i < hits; i++) {
+                byte[] gid = new byte[12];
+                random.nextBytes(gid);
+                relevance -= random.nextDouble();
+                nodeHits.add(new LeanHit(gid, node, node, relevance));
+            }
+            hitsPerNode.add(nodeHits);
+        }
+    }
+
+    @Benchmark
+    public Result mergeReplies() throws IOException {
+        List<SearchInvoker> invokers = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            invokers.add(new PrecomputedInvoker(node, hitsPerNode.get(node)));
+        }
+        Query query = new Query("search/?query=foo&hits=" + hits);
+        query.setTimeout(5000);
+        return new InterleavedSearchInvoker(invokers, false, cluster, null).search(query, null);
+    }
+
+    private static class PrecomputedInvoker extends SearchInvoker {
+
+        private final List<LeanHit> hits;
+        private Query query;
+
+        PrecomputedInvoker(int key, List<LeanHit> hits) {
+            super(Optional.of(new Node(key, "host" + key, 0)));
+            this.hits = hits;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult(Execution execution) {
+            InvokerResult result = new InvokerResult(query, hits.size());
+            result.getResult().setCoverage(new Coverage(1000, 1000, 1));
+            result.getLeanHits().addAll(hits);
+            return result;
+        }
+
+        @Override
+        protected void release() { }
+
+    }
+
+}
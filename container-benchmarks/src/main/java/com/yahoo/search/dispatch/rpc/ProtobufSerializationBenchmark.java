@@ -0,0 +1,81 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.InvokerResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conversion between {@link Query} and the protobuf search request, and from the
+ * protobuf search reply to the lean hit list which is merged by the dispatcher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProtobufSerializationBenchmark {
+
+    @Param({"10", "100", "400"})
+    public int hits;
+
+    @Param({"false", "true"})
+    public boolean sorted;
+
+    private Query query;
+    private byte[] replyPayload;
+
+    @Setup
+    public void setup() {
+        query = new Query("search/?query=title:foo+body:bar+-baz&hits=" + hits + "&ranking=bm25&ranking.features.query(weight)=3.5");
+        query.setTimeout(5000);
+        replyPayload = createSearchReply(hits, sorted).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeSearchRequest() {
+        return ProtobufSerialization.serializeSearchRequest(query, hits, "benchmark");
+    }
+
+    @Benchmark
+    public InvokerResult deserializeSearchReply() throws InvalidProtocolBufferException {
+        return ProtobufSerialization.convertToResult(query, ProtobufSerialization.parseSearchReply(replyPayload), null, 0, 0);
+    }
+
+    static SearchProtocol.SearchReply createSearchReply(int numHits, boolean useSorting) {
+        SearchProtocol.SearchReply.Builder reply = SearchProtocol.SearchReply.newBuilder();
+        reply.setTotalHitCount(numHits * 10L).setCoverageDocs(100000).setActiveDocs(100000);
+        for (int i = 0; i < numHits; i++) {
+            SearchProtocol.Hit.Builder hit = SearchProtocol.Hit.newBuilder();
+            byte[] gid = new byte[12];
+            for (int j = 0; j < gid.length; j++) {
+                gid[j] = (byte) (i * 31 + j);
+            }
+            hit.setGlobalId(ByteString.copyFrom(gid));
+            hit.setRelevance(numHits - i);
+            if (useSorting) {
+                byte[] sortData = { 'b', (byte) (i >> 8), (byte) i, 0 };
+                hit.setSortData(ByteString.copyFrom(sortData));
+            }
+            reply.addHits(hit);
+        }
+        return reply.build();
+    }
+
+}
@@ -0,0 +1,45 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParserEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of YQL queries of varying complexity into query trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class YqlParserBenchmark {
+
+    @Param({
+            "select * from sources * where title contains \"madonna\";",
+            "select * from sources * where (title contains \"madonna\" or artist contains \"madonna\") and year > 1980 and !(genre contains \"pop\") order by year desc limit 20;",
+            "select * from sources music where weightedSet(tags, {\"love\":10, \"song\":20, \"night\":5}) and ([{\"targetHits\": 100}]nearestNeighbor(embedding, query_embedding));"
+    })
+    public String yql;
+
+    private final ParserEnvironment environment = new ParserEnvironment();
+
+    @Benchmark
+    public QueryTree parse() {
+        return new YqlParser(environment).parse(new Parsable().setQuery(yql));
+    }
+
+}
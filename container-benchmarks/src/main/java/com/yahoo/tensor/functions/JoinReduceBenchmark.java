@@ -0,0 +1,117 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures join and reduce on indexed and mixed tensors, in the shapes typically
+ * used in container side model evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JoinReduceBenchmark {
+
+    @Param({"float", "double"})
+    public String cellType;
+
+    @Param({"16", "256"})
+    public int size;
+
+    private Tensor vectorA, vectorB;
+    private Tensor matrix;
+    private Tensor mixedA, mixedB;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        vectorA = indexed("tensor<" + cellType + ">(x[" + size + "])", random);
+        vectorB = indexed("tensor<" + cellType + ">(x[" + size + "])", random);
+        matrix = indexed("tensor<" + cellType + ">(x[" + size + "],y[16])", random);
+        mixedA = mixed("tensor<" + cellType + ">(key{},x[" + size + "])", random);
+        mixedB = mixed("tensor<" + cellType + ">(key{},x[" + size + "])", random);
+    }
+
+    @Benchmark
+    public Tensor indexedVectorJoin() {
+        return vectorA.multiply(vectorB);
+    }
+
+    @Benchmark
+    public Tensor indexedDotProduct() {
+        return vectorA.multiply(vectorB).sum();
+    }
+
+    @Benchmark
+    public Tensor indexedVectorMatrixProduct() {
+        return vectorA.multiply(matrix).sum("x");
+    }
+
+    @Benchmark
+    public Tensor indexedReduceAll() {
+        return matrix.reduce(Reduce.Aggregator.max);
+    }
+
+    @Benchmark
+    public Tensor indexedReduceDimension() {
+        return matrix.reduce(Reduce.Aggregator.sum, "y");
+    }
+
+    @Benchmark
+    public Tensor mixedJoin() {
+        return mixedA.multiply(mixedB);
+    }
+
+    @Benchmark
+    public Tensor mixedReduceDimension() {
+        return mixedA.reduce(Reduce.Aggregator.sum, "x");
+    }
+
+    private static Tensor indexed(String typeSpec, Random random) {
+        TensorType type = TensorType.fromSpec(typeSpec);
+        long xSize = type.dimension("x").get().size().get();
+        long ySize = type.dimension("y").flatMap(d -> d.size()).orElse(1L);
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
+        for (long x = 0; x < xSize; x++) {
+            for (long y = 0; y < ySize; y++) {
+                if (type.rank() == 1)
+                    builder.cell(random.nextDouble(), x);
+                else
+                    builder.cell(random.nextDouble(), x, y);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Tensor mixed(String typeSpec, Random random) {
+        TensorType type = TensorType.fromSpec(typeSpec);
+        long size = type.dimension("x").get().size().get();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (String key : new String[] { "a", "b", "c", "d" }) {
+            for (long x = 0; x < size; x++) {
+                builder.cell().label("key", key).label("x", x).value(random.nextDouble());
+            }
+        }
+        return builder.build();
+    }
+
+}
@@ -125,6 +125,7 @@ public final class SessionCache extends AbstractComponent {
                 .setNumTargetsPerSpec(mbusConfig.numconnectionspertarget())
                 .setNumNetworkThreads(mbusConfig.numthreads())
                 .setTransportEventsBeforeWakeup(mbusConfig.transport_events_before_wakeup())
+                .setMaxBatchSize(mbusConfig.max_batch_size())
                 .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()));
         return SharedMessageBus.newInstance(mbusParams, netParams);
     }
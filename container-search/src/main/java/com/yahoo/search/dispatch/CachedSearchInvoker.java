@@ -0,0 +1,44 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.searchchain.Execution;
+
+import java.util.Optional;
+
+/**
+ * A search invoker which produces a result from the {@link ResultCache} without contacting any content nodes.
+ */
+class CachedSearchInvoker extends SearchInvoker {
+
+    private final ResultCache.Entry entry;
+    private Query query;
+
+    CachedSearchInvoker(ResultCache.Entry entry) {
+        super(Optional.empty());
+        this.entry = entry;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) {
+        this.query = query;
+        responseAvailable();
+        return context;
+    }
+
+    @Override
+    protected InvokerResult getSearchResult(Execution execution) {
+        InvokerResult result = new InvokerResult(query, entry.hits().size());
+        result.getResult().setTotalHitCount(entry.totalHitCount());
+        result.getResult().setCoverage(entry.coverage());
+        result.getLeanHits().addAll(entry.hits());
+        query.setOffset(entry.offset());
+        return result;
+    }
+
+    @Override
+    protected void release() {
+        // nothing to do
+    }
+
+}
@@ -0,0 +1,81 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.searchchain.Execution;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A search invoker which delegates to another invoker and stores the result in the {@link ResultCache}
+ * if it is complete: Results with errors, degraded coverage or hits other than the lean hits
+ * (such as grouping results) are not cached.
+ */
+class CachingSearchInvoker extends SearchInvoker {
+
+    private final SearchInvoker delegate;
+    private final ResultCache cache;
+    private final ResultCache.Key key;
+    private final long clusterStateVersion;
+    private final Instant requestTime;
+    private Query query;
+
+    CachingSearchInvoker(SearchInvoker delegate, ResultCache cache, ResultCache.Key key, long clusterStateVersion) {
+        super(Optional.empty());
+        this.delegate = delegate;
+        this.cache = cache;
+        this.key = key;
+        this.clusterStateVersion = clusterStateVersion;
+        this.requestTime = cache.now();
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        return delegate.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult(Execution execution) throws IOException {
+        InvokerResult result = delegate.getSearchResult(execution);
+        if (isCacheable(result.getResult()))
+            cache.put(key, new ResultCache.Entry(result.getLeanHits(),
+                                                 result.getResult().getTotalHitCount(),
+                                                 result.getResult().getCoverage(false),
+                                                 query.getOffset(),
+                                                 requestTime,
+                                                 clusterStateVersion));
+        return result;
+    }
+
+    private boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        if (result.hits().size() > 0) return false;
+        return result.getCoverage(false) != null && ! result.getCoverage(false).isDegraded();
+    }
+
+    @Override
+    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
+        delegate.setMonitor(monitor);
+    }
+
+    @Override
+    protected void setFinalStatus(boolean success) {
+        super.setFinalStatus(success);
+        delegate.setFinalStatus(success);
+    }
+
+    @Override
+    protected Optional<Integer> distributionKey() {
+        return delegate.distributionKey();
+    }
+
+    @Override
+    protected void release() {
+        delegate.close();
+    }
+
+}
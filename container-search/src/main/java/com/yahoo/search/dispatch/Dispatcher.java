@@ -26,6 +26,8 @@ import com.yahoo.search.query.profile.types.QueryProfileType;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -52,8 +54,11 @@ public class Dispatcher extends AbstractComponent {
     private static final String INTERNAL = "internal";
     private static final String PROTOBUF = "protobuf";
     private static final String TOP_K_PROBABILITY = "topKProbability";
+    private static final String MAX_HEDGED_REQUESTS = "maxHedgedRequests";
 
     private static final String INTERNAL_METRIC = "dispatch_internal";
+    private static final String RESULT_CACHE_HITS_METRIC = "dispatch_result_cache_hits";
+    private static final String RESULT_CACHE_MISSES_METRIC = "dispatch_result_cache_misses";
 
     private static final int MAX_GROUP_SELECTION_ATTEMPTS = 3;
 
@@ -63,6 +68,9 @@ public class Dispatcher extends AbstractComponent {
     /** If set will control computation of how many hits will be fetched from each partition.*/
     public static final CompoundName topKProbability = CompoundName.fromComponents(DISPATCH, TOP_K_PROBABILITY);
 
+    /** If set will limit the number of requests to slow content nodes that are hedged by sending them to another group */
+    public static final CompoundName maxHedgedRequests = CompoundName.fromComponents(DISPATCH, MAX_HEDGED_REQUESTS);
+
     /** A model of the search cluster this dispatches to */
     private final SearchCluster searchCluster;
     private final ClusterMonitor clusterMonitor;
@@ -71,6 +79,10 @@ public class Dispatcher extends AbstractComponent {
 
     private final InvokerFactory invokerFactory;
 
+    private final ResultCache resultCache;
+
+    private final Hedging hedging;
+
     private final Metric metric;
     private final Metric.Context metricContext;
 
@@ -85,6 +97,7 @@ public class Dispatcher extends AbstractComponent {
         argumentType.addField(new FieldDescription(INTERNAL, FieldType.booleanType));
         argumentType.addField(new FieldDescription(PROTOBUF, FieldType.booleanType));
         argumentType.addField(new FieldDescription(TOP_K_PROBABILITY, FieldType.doubleType));
+        argumentType.addField(new FieldDescription(MAX_HEDGED_REQUESTS, FieldType.integerType));
         argumentType.freeze();
     }
 
@@ -113,16 +126,29 @@ public class Dispatcher extends AbstractComponent {
                          DispatchConfig dispatchConfig,
                          InvokerFactory invokerFactory,
                          Metric metric) {
+        this(clusterMonitor, searchCluster, dispatchConfig, invokerFactory, metric, Clock.systemUTC());
+    }
+
+    /* Package private for testing with a controlled clock */
+    Dispatcher(ClusterMonitor clusterMonitor,
+               SearchCluster searchCluster,
+               DispatchConfig dispatchConfig,
+               InvokerFactory invokerFactory,
+               Metric metric,
+               Clock clock) {
         if (dispatchConfig.useMultilevelDispatch())
             throw new IllegalArgumentException(searchCluster + " is configured with multilevel dispatch, but this is not supported");
 
         this.searchCluster = searchCluster;
         this.clusterMonitor = clusterMonitor;
-        this.loadBalancer = new LoadBalancer(searchCluster,
-                                  dispatchConfig.distributionPolicy() == DispatchConfig.DistributionPolicy.ROUNDROBIN);
+        this.loadBalancer = new LoadBalancer(searchCluster, dispatchConfig.distributionPolicy());
         this.invokerFactory = invokerFactory;
+        this.resultCache = new ResultCache(dispatchConfig.resultCacheSize(),
+                                           Duration.ofMillis((long)(dispatchConfig.resultCacheTtl() * 1000)),
+                                           clock);
         this.metric = metric;
         this.metricContext = metric.createContext(null);
+        this.hedging = new Hedging(searchCluster, loadBalancer, dispatchConfig, metric, metricContext);
         this.maxHitsPerNode = dispatchConfig.maxHitsPerNode();
         searchCluster.addMonitoring(clusterMonitor);
         Thread warmup = new Thread(new Runnable() {
@@ -174,7 +200,10 @@ public class Dispatcher extends AbstractComponent {
     }
 
     public SearchInvoker getSearchInvoker(Query query, VespaBackEndSearcher searcher) {
-        SearchInvoker invoker = getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher));
+        Optional<ResultCache.Key> cacheKey = resultCache.keyOf(query);
+        SearchInvoker invoker = cacheKey.isPresent()
+                                ? getCachingInvoker(query, searcher, cacheKey.get())
+                                : getUncachedInvoker(query, searcher);
 
         if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
             query.setHits(0);
@@ -184,6 +213,25 @@ public class Dispatcher extends AbstractComponent {
         return invoker;
     }
 
+    /**
+     * Returns an invoker producing the cached result of this query if there is one which is still valid,
+     * and otherwise an invoker which will store the result of this query in the cache.
+     */
+    private SearchInvoker getCachingInvoker(Query query, VespaBackEndSearcher searcher, ResultCache.Key cacheKey) {
+        long clusterStateVersion = searchCluster.stateVersion();
+        Optional<ResultCache.Entry> cached = resultCache.get(cacheKey, query, clusterStateVersion);
+        if (cached.isPresent()) {
+            metric.add(RESULT_CACHE_HITS_METRIC, 1, metricContext);
+            return new CachedSearchInvoker(cached.get());
+        }
+        metric.add(RESULT_CACHE_MISSES_METRIC, 1, metricContext);
+        return new CachingSearchInvoker(getUncachedInvoker(query, searcher), resultCache, cacheKey, clusterStateVersion);
+    }
+
+    private SearchInvoker getUncachedInvoker(Query query, VespaBackEndSearcher searcher) {
+        return getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher));
+    }
+
     /** Builds an invoker based on searchpath */
     private Optional<SearchInvoker> getSearchPathInvoker(Query query, VespaBackEndSearcher searcher) {
         String searchPath = query.getModel().getSearchPath();
@@ -198,7 +246,8 @@ public class Dispatcher extends AbstractComponent {
                                                       OptionalInt.empty(),
                                                       nodes,
                                                       true,
-                                                      maxHitsPerNode);
+                                                      maxHitsPerNode,
+                                                      null);
         } catch (InvalidSearchPathException e) {
             return Optional.of(new SearchErrorInvoker(ErrorMessage.createIllegalQuery(e.getMessage())));
         }
@@ -214,7 +263,8 @@ public class Dispatcher extends AbstractComponent {
                                                       OptionalInt.empty(),
                                                       Arrays.asList(node),
                                                       true,
-                                                      maxHitsPerNode)
+                                                      maxHitsPerNode,
+                                                      null)
                                  .orElseThrow(() -> new IllegalStateException("Could not dispatch directly to " + node));
         }
 
@@ -233,11 +283,16 @@ public class Dispatcher extends AbstractComponent {
                                                                                  OptionalInt.of(group.id()),
                                                                                  group.nodes(),
                                                                                  acceptIncompleteCoverage,
-                                                                                 maxHitsPerNode);
+                                                                                 maxHitsPerNode,
+                                                                                 hedging);
             if (invoker.isPresent()) {
                 query.trace(false, 2, "Dispatching to group ", group.id());
                 query.getModel().setSearchPath("/" + group.id());
-                invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                invoker.get().teardown((success, time) -> {
+                    loadBalancer.releaseGroup(group, success, time);
+                    if (success)
+                        hedging.recordLatency(time);
+                });
                 return invoker.get();
             } else {
                 loadBalancer.releaseGroup(group, false, 0);
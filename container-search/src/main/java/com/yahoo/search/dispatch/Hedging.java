@@ -0,0 +1,154 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Decides when requests to content nodes should be hedged, i.e also sent to the node having the same
+ * content in another group, such that a single slow node does not decide the latency of the query.
+ * Requests are hedged when they have been outstanding for longer than a configured percentile
+ * of the observed content node response times.
+ *
+ * The documents of each group are distributed over its nodes independently of the other groups,
+ * so a node in another group is only known to hold the same documents when each group is a single node.
+ * Hedging is therefore only done in such clusters, where hedging a request means re-issuing the query
+ * of the whole group to another group. The other group is taken from the load balancer, such that hedged
+ * requests count as load on the group they are sent to.
+ *
+ * This class is multithread safe.
+ */
+class Hedging {
+
+    private static final String FIRED_METRIC = "dispatch_hedged_requests";
+    private static final String WON_METRIC = "dispatch_hedged_requests_won";
+
+    /** The number of responses we must have observed before the percentile is trusted */
+    private static final long MIN_SAMPLES = 100;
+
+    private final SearchCluster searchCluster;
+    private final LoadBalancer loadBalancer;
+    private final double percentile;
+    private final long minDelay;
+    private final int defaultMaxRequests;
+    private final LatencyHistogram latencies = new LatencyHistogram(Duration.ofMinutes(1));
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    Hedging(SearchCluster searchCluster, LoadBalancer loadBalancer, DispatchConfig config,
+            Metric metric, Metric.Context metricContext) {
+        this.searchCluster = searchCluster;
+        this.loadBalancer = loadBalancer;
+        this.percentile = config.hedgingPercentile();
+        this.minDelay = (long)(config.hedgingMinDelay() * 1000);
+        this.defaultMaxRequests = config.hedgingMaxRequests();
+        this.metric = metric;
+        this.metricContext = metricContext;
+    }
+
+    /** Returns whether hedging is enabled at all. If it is not, no statistics are collected */
+    boolean isEnabled() {
+        return percentile > 0 && searchCluster.groups().size() > 1 && searchCluster.groupSize() == 1;
+    }
+
+    /**
+     * Returns the hedging of a single query, or empty if its requests will not be hedged.
+     *
+     * @param query the query to hedge requests for
+     * @param invokerFactory creates an invoker sending the query to the given node, if possible
+     */
+    Optional<Requests> forQuery(Query query, Function<Node, Optional<SearchInvoker>> invokerFactory) {
+        if ( ! isEnabled()) return Optional.empty();
+        Requests requests = new Requests(query.properties().getInteger(Dispatcher.maxHedgedRequests, defaultMaxRequests),
+                                         invokerFactory);
+        return requests.delay().isPresent() ? Optional.of(requests) : Optional.empty();
+    }
+
+    /** Records the time a query to a group took. This is ignored if hedging is not enabled */
+    void recordLatency(long millis) {
+        if (isEnabled())
+            latencies.record(millis);
+    }
+
+    /**
+     * Takes a group from the load balancer whose working node has the same content as the given node,
+     * or returns empty if there is none. Only the single node of a group is known to have the same content as
+     * the single node of another group. The caller must release the returned group to the load balancer.
+     */
+    Optional<Group> takeAlternativeTo(Node node) {
+        Group nodeGroup = searchCluster.groups().get(node.group());
+        if (nodeGroup == null || nodeGroup.nodes().size() != 1) return Optional.empty();
+
+        Set<Integer> rejected = new HashSet<>();
+        for (Group group : searchCluster.orderedGroups()) {
+            if (group.id() == node.group() || group.nodes().size() != 1 || ! group.hasSufficientCoverage()
+                || group.nodes().get(0).isWorking() == Boolean.FALSE)
+                rejected.add(group.id());
+        }
+        if (rejected.size() == searchCluster.orderedGroups().size()) return Optional.empty();
+        return loadBalancer.takeGroup(rejected);
+    }
+
+    /** The hedged requests of a single query. This is not multithread safe. */
+    class Requests {
+
+        private final int maxRequests;
+        private final Function<Node, Optional<SearchInvoker>> invokerFactory;
+        private int requests = 0;
+
+        private Requests(int maxRequests, Function<Node, Optional<SearchInvoker>> invokerFactory) {
+            this.maxRequests = maxRequests;
+            this.invokerFactory = invokerFactory;
+        }
+
+        /**
+         * Returns the number of milliseconds after sending the query after which outstanding requests should be hedged,
+         * or empty if they should not be hedged
+         */
+        OptionalLong delay() {
+            if (maxRequests <= 0 || latencies.count() < MIN_SAMPLES) return OptionalLong.empty();
+            return OptionalLong.of(Math.max(minDelay, latencies.percentile(percentile)));
+        }
+
+        /** Returns whether more requests may be hedged for this query */
+        boolean hasBudget() { return requests < maxRequests; }
+
+        /**
+         * Returns an invoker sending the request to the given node also to another node, or empty if not possible.
+         * The group of the other node is released to the load balancer when the returned invoker is closed.
+         */
+        Optional<SearchInvoker> hedge(Node node) {
+            if ( ! hasBudget()) return Optional.empty();
+            Optional<Group> group = takeAlternativeTo(node);
+            if (group.isEmpty()) return Optional.empty();
+
+            Optional<SearchInvoker> invoker = invokerFactory.apply(group.get().nodes().get(0));
+            if (invoker.isEmpty()) {
+                loadBalancer.releaseGroup(group.get(), false, 0);
+                return Optional.empty();
+            }
+            invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group.get(), success, time));
+            requests++;
+            metric.add(FIRED_METRIC, 1, metricContext);
+            return invoker;
+        }
+
+        /** Call this when a hedged request responded before the request it hedged */
+        void won() {
+            metric.add(WON_METRIC, 1, metricContext);
+        }
+
+    }
+
+}
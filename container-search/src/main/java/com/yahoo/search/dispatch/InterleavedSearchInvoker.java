@@ -3,6 +3,7 @@ package com.yahoo.search.dispatch;
 
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
 import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.ErrorMessage;
@@ -11,13 +12,14 @@ import com.yahoo.search.searchchain.Execution;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +35,9 @@ import static com.yahoo.container.handler.Coverage.DEGRADED_BY_TIMEOUT;
  * nodes in parallel. Operationally it first sends requests to all contained invokers and then
  * collects the results. The user of this class is responsible for merging the results if needed.
  *
+ * If given hedged requests, requests which are still outstanding after the hedging delay are also sent to
+ * a node having the same content in another group, and the first of the two responses is used.
+ *
  * @author ollivir
  */
 public class InterleavedSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
@@ -44,8 +49,17 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final LinkedBlockingQueue<SearchInvoker> availableForProcessing;
     private final Set<Integer> alreadyFailedNodes;
     private final boolean isContentWellBalanced;
+    private final Hedging.Requests hedgedRequests;
     private Query query;
 
+    /** Requests which are hedged, and hedging requests, to the other request of the pair */
+    private final Map<SearchInvoker, SearchInvoker> hedgePartners = new IdentityHashMap<>();
+    private final Set<SearchInvoker> hedges = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long sendTime = 0;
+    private long hedgingTime = Long.MAX_VALUE;
+    private int requestHits = 0;
+    private Object requestContext = null;
+
     private boolean adaptiveTimeoutCalculated = false;
     private long adaptiveTimeoutMin = 0;
     private long adaptiveTimeoutMax = 0;
@@ -61,6 +75,11 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private boolean degradedByMatchPhase = false;
 
     public InterleavedSearchInvoker(Collection<SearchInvoker> invokers, boolean isContentWellBalanced, SearchCluster searchCluster, Set<Integer> alreadyFailedNodes) {
+        this(invokers, isContentWellBalanced, searchCluster, alreadyFailedNodes, null);
+    }
+
+    InterleavedSearchInvoker(Collection<SearchInvoker> invokers, boolean isContentWellBalanced, SearchCluster searchCluster,
+                             Set<Integer> alreadyFailedNodes, Hedging.Requests hedgedRequests) {
         super(Optional.empty());
         this.invokers = Collections.newSetFromMap(new IdentityHashMap<>());
         this.invokers.addAll(invokers);
@@ -68,6 +87,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         this.availableForProcessing = newQueue();
         this.alreadyFailedNodes = alreadyFailedNodes;
         this.isContentWellBalanced = isContentWellBalanced;
+        this.hedgedRequests = hedgedRequests;
     }
 
     /**
@@ -99,6 +119,15 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
             context = invoker.sendSearchRequest(query, context);
             askedNodes++;
         }
+        sendTime = currentTime();
+        if (hedgedRequests != null) {
+            OptionalLong delay = hedgedRequests.delay();
+            if (delay.isPresent()) {
+                hedgingTime = sendTime + delay.getAsLong();
+                requestHits = q;
+                requestContext = context;
+            }
+        }
 
         query.setHits(originalHits);
         query.setOffset(originalOffset);
@@ -108,17 +137,27 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     @Override
     protected InvokerResult getSearchResult(Execution execution) throws IOException {
         InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = Collections.emptyList();
+        TopKHits merged = new TopKHits(query.getOffset() + query.getHits());
         long nextTimeout = query.getTimeLeft();
         try {
             while (!invokers.isEmpty() && nextTimeout >= 0) {
-                SearchInvoker invoker = availableForProcessing.poll(nextTimeout, TimeUnit.MILLISECONDS);
+                long untilHedging = hedgingTime - currentTime();
+                SearchInvoker invoker = availableForProcessing.poll(Math.max(0, Math.min(nextTimeout, untilHedging)),
+                                                                    TimeUnit.MILLISECONDS);
                 if (invoker == null) {
+                    if (untilHedging <= nextTimeout) {
+                        hedgeOutstandingRequests();
+                        nextTimeout = Math.max(0, deadline - currentTime());
+                        continue;
+                    }
                     log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
                     break;
-                } else {
-                    merged = mergeResult(result.getResult(), invoker.getSearchResult(execution), merged);
+                } else if (invokers.contains(invoker)) { // otherwise this lost to the other request of a hedged pair
+                    InvokerResult partialResult = invoker.getSearchResult(execution);
+                    mergeResult(result.getResult(), partialResult, merged);
+                    invoker.setFinalStatus(partialResult.getResult().hits().getError() == null);
                     ejectInvoker(invoker);
+                    ejectHedgePartnerOf(invoker);
                 }
                 nextTimeout = nextTimeout();
             }
@@ -128,14 +167,53 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
         insertNetworkErrors(result.getResult());
         result.getResult().setCoverage(createCoverage());
-        int needed = query.getOffset() + query.getHits();
-        for (int index = query.getOffset(); (index < merged.size()) && (index < needed); index++) {
-            result.getLeanHits().add(merged.get(index));
+        List<LeanHit> hits = merged.toSortedList();
+        for (int index = query.getOffset(); index < hits.size(); index++) {
+            result.getLeanHits().add(hits.get(index));
         }
         query.setOffset(0);  // Now we are all trimmed down
         return result;
     }
 
+    /** Sends the requests which are not yet answered also to another node, as far as the hedging budget allows */
+    private void hedgeOutstandingRequests() throws IOException {
+        hedgingTime = Long.MAX_VALUE; // only once per query
+        int originalHits = query.getHits();
+        int originalOffset = query.getOffset();
+        query.setHits(requestHits);
+        query.setOffset(0);
+
+        for (SearchInvoker invoker : List.copyOf(invokers)) {
+            if ( ! hedgedRequests.hasBudget()) break;
+            if (hedges.contains(invoker) || invoker.node().isEmpty()) continue;
+
+            Node node = invoker.node().get();
+            Optional<SearchInvoker> hedge = hedgedRequests.hedge(node);
+            if (hedge.isEmpty()) continue;
+
+            hedge.get().setMonitor(this);
+            invokers.add(hedge.get());
+            hedges.add(hedge.get());
+            hedgePartners.put(invoker, hedge.get());
+            hedgePartners.put(hedge.get(), invoker);
+            hedge.get().sendSearchRequest(query, requestContext);
+            query.trace(false, 3, "Hedging the request to ", node);
+        }
+
+        query.setHits(originalHits);
+        query.setOffset(originalOffset);
+    }
+
+    /** Releases the other request of a hedged pair when one of them has responded */
+    private void ejectHedgePartnerOf(SearchInvoker invoker) {
+        SearchInvoker partner = hedgePartners.get(invoker);
+        if (partner == null || ! invokers.contains(partner)) return;
+
+        ejectInvoker(partner);
+        if (hedges.contains(invoker))
+            hedgedRequests.won();
+    }
+
     private void insertNetworkErrors(Result result) {
         // Network errors will be reported as errors only when all nodes fail, otherwise they are just traced
         boolean asErrors = answeredNodes == 0;
@@ -202,7 +280,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         return nextAdaptive;
     }
 
-    private List<LeanHit> mergeResult(Result result, InvokerResult partialResult, List<LeanHit> current) {
+    private void mergeResult(Result result, InvokerResult partialResult, TopKHits merged) {
         collectCoverage(partialResult.getResult().getCoverage(true));
 
         result.mergeWith(partialResult.getResult());
@@ -212,42 +290,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                 result.hits().add(hit);
             }
         }
-        if (current.isEmpty() ) {
-            return partialResult.getLeanHits();
-        }
-        List<LeanHit> partial = partialResult.getLeanHits();
-        if (partial.isEmpty()) {
-            return current;
-        }
-
-        int needed = query.getOffset() + query.getHits();
-        List<LeanHit> merged = new ArrayList<>(needed);
-        int indexCurrent = 0;
-        int indexPartial = 0;
-        while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < needed) {
-            LeanHit incommingHit = partial.get(indexPartial);
-            LeanHit currentHit = current.get(indexCurrent);
-
-            int cmpRes = currentHit.compareTo(incommingHit);
-            if (cmpRes < 0) {
-                merged.add(currentHit);
-                indexCurrent++;
-            } else if (cmpRes > 0) {
-                merged.add(incommingHit);
-                indexPartial++;
-            } else { // Duplicates
-                merged.add(currentHit);
-                indexCurrent++;
-                indexPartial++;
-            }
-        }
-        while ((indexCurrent < current.size()) && (merged.size() < needed)) {
-            merged.add(current.get(indexCurrent++));
-        }
-        while ((indexPartial < partial.size()) && (merged.size() < needed)) {
-            merged.add(partial.get(indexPartial++));
-        }
-        return merged;
+        merged.addSorted(partialResult.getLeanHits());
     }
 
     private void collectCoverage(Coverage source) {
@@ -301,7 +344,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
     private void ejectInvoker(SearchInvoker invoker) {
         invokers.remove(invoker);
-        invoker.release();
+        invoker.close();
     }
 
     @Override
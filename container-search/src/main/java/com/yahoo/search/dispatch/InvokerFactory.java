@@ -43,6 +43,7 @@ public abstract class InvokerFactory {
      * @param nodes pre-selected list of content nodes
      * @param acceptIncompleteCoverage if some of the nodes are unavailable and this parameter is
      *                                 false, verify that the remaining set of nodes has sufficient coverage
+     * @param hedging the hedging to use when requests to these nodes are slow, or null to not hedge requests
      * @return the invoker or empty if some node in the
      *         list is invalid and the remaining coverage is not sufficient
      */
@@ -51,7 +52,8 @@ public abstract class InvokerFactory {
                                                 OptionalInt groupId,
                                                 List<Node> nodes,
                                                 boolean acceptIncompleteCoverage,
-                                                int maxHits) {
+                                                int maxHits,
+                                                Hedging hedging) {
         List<SearchInvoker> invokers = new ArrayList<>(nodes.size());
         Set<Integer> failed = null;
         for (Node node : nodes) {
@@ -87,10 +89,14 @@ public abstract class InvokerFactory {
             }
         }
 
-        if (invokers.size() == 1 && failed == null) {
+        Optional<Hedging.Requests> hedgedRequests = hedging == null
+                                                    ? Optional.empty()
+                                                    : hedging.forQuery(query, node -> createNodeSearchInvoker(searcher, query, maxHits, node));
+        if (invokers.size() == 1 && failed == null && hedgedRequests.isEmpty()) {
             return Optional.of(invokers.get(0));
         } else {
-            return Optional.of(new InterleavedSearchInvoker(invokers, searchCluster.isGroupWellBalanced(groupId), searchCluster, failed));
+            return Optional.of(new InterleavedSearchInvoker(invokers, searchCluster.isGroupWellBalanced(groupId), searchCluster, failed,
+                                                            hedgedRequests.orElse(null)));
         }
     }
 
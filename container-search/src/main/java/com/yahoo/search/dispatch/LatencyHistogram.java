@@ -0,0 +1,123 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A histogram of latencies which can be recorded and queried concurrently without locking.
+ *
+ * Latencies are counted in logarithmic buckets having 8 linear sub-buckets each, such that percentiles are
+ * accurate to within 12.5%. Only the latencies recorded in the current and the previous time window are
+ * used, so that the histogram follows changes in latency.
+ *
+ * This class is multithread safe.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Window> window;
+
+    LatencyHistogram(Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    LatencyHistogram(Duration window, LongSupplier nanoClock) {
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.window = new AtomicReference<>(new Window(nanoClock.getAsLong(), new Counts(), new Counts()));
+    }
+
+    /** Records a latency in milliseconds. Negative values are recorded as 0 */
+    void record(long millis) {
+        currentWindow().current.add(bucketOf(Math.max(0, millis)));
+    }
+
+    /** Returns the number of latencies in the current and previous window */
+    long count() {
+        Window w = currentWindow();
+        return w.current.count.get() + w.previous.count.get();
+    }
+
+    /**
+     * Returns an estimate of the given percentile of the latencies in the current and previous window,
+     * in milliseconds, or 0 if there are none
+     *
+     * @param percentile the percentile, a number between 0 and 100
+     */
+    long percentile(double percentile) {
+        Window w = currentWindow();
+        long total = w.current.count.get() + w.previous.count.get();
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long)Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += w.current.buckets.get(bucket) + w.previous.buckets.get(bucket);
+            if (seen >= rank) return upperBoundOf(bucket);
+        }
+        return upperBoundOf(BUCKETS - 1); // counts were added concurrently
+    }
+
+    private Window currentWindow() {
+        Window w = window.get();
+        long now = nanoClock.getAsLong();
+        if (now - w.start < windowNanos) return w;
+
+        // Lost races are fine: Another thread has already started the new window
+        Counts previous = (now - w.start < 2 * windowNanos) ? w.current : new Counts();
+        window.compareAndSet(w, new Window(now, new Counts(), previous));
+        return window.get();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> exponent) & (SUB_BUCKETS - 1);
+        return (exponent + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Returns the largest value which belongs to the given bucket */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lowerBound = (SUB_BUCKETS + subBucket) << exponent;
+        return lowerBound + (1L << exponent) - 1;
+    }
+
+    private static class Counts {
+
+        final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        final AtomicLong count = new AtomicLong();
+
+        void add(int bucket) {
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+        }
+
+    }
+
+    private static class Window {
+
+        final long start;
+        final Counts current;
+        final Counts previous;
+
+        Window(long start, Counts current, Counts previous) {
+            this.start = start;
+            this.current = current;
+            this.previous = previous;
+        }
+
+    }
+
+}
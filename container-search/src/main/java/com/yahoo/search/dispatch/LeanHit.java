@@ -1,13 +1,21 @@
 // Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
+/**
+ * A hit as returned from a content node, before it is merged with the hits of other nodes.
+ * The global id and sort data are byte strings which may be views into the buffer of the reply
+ * they were decoded from, such that arrays are only allocated for the hits which are returned.
+ */
 public class LeanHit implements Comparable<LeanHit> {
-    private final byte [] gid;
+
+    private final ByteString gid;
     private final double relevance;
-    private final byte [] sortData;
+    private final ByteString sortData;
     private final int partId;
     private final int distributionKey;
 
@@ -15,6 +23,10 @@ public class LeanHit implements Comparable<LeanHit> {
         this(gid, partId, distributionKey, relevance, null);
     }
     public LeanHit(byte [] gid, int partId, int distributionKey, double relevance, byte [] sortData) {
+        this(UnsafeByteOperations.unsafeWrap(gid), partId, distributionKey, relevance,
+             sortData != null ? UnsafeByteOperations.unsafeWrap(sortData) : null);
+    }
+    public LeanHit(ByteString gid, int partId, int distributionKey, double relevance, ByteString sortData) {
         this.gid = gid;
         this.relevance = Double.isNaN(relevance) ? Double.NEGATIVE_INFINITY : relevance;
         this.sortData = sortData;
@@ -22,12 +34,25 @@ public class LeanHit implements Comparable<LeanHit> {
         this.distributionKey = distributionKey;
     }
     public double getRelevance() { return relevance; }
-    public byte [] getGid() { return gid; }
-    public byte [] getSortData() { return sortData; }
+    /** Returns the global id of this, without copying it */
+    ByteString gidBytes() { return gid; }
+    /**
+     * Returns a new array containing the global id of this.
+     * This copies, so it should be called once per hit, when a hit which survived the merge becomes a FastHit.
+     */
+    public byte [] getGid() { return gid.toByteArray(); }
+    /** Returns a new array containing the sort data of this, or null if none. This copies, as getGid does */
+    public byte [] getSortData() { return sortData != null ? sortData.toByteArray() : null; }
     public boolean hasSortData() { return sortData != null; }
     public int getPartId() { return partId; }
     public int getDistributionKey() { return distributionKey; }
 
+    /** Returns a copy of this which does not refer to the buffer of the reply it was decoded from */
+    public LeanHit detached() {
+        return new LeanHit(UnsafeByteOperations.unsafeWrap(gid.toByteArray()), partId, distributionKey, relevance,
+                           sortData != null ? UnsafeByteOperations.unsafeWrap(sortData.toByteArray()) : null);
+    }
+
     @Override
     public int compareTo(LeanHit o) {
         int res = (sortData != null)
@@ -36,17 +61,13 @@ public class LeanHit implements Comparable<LeanHit> {
         return (res != 0) ? res : compareData(gid, o.gid);
     }
 
-    private static int compareData(byte [] left, byte [] right) {
-        int i = Arrays.mismatch(left, right);
-        if (i < 0) {
-            return 0;
-        }
-        int max = Integer.min(left.length, right.length);
-        if (i >= max) {
-            return left.length - right.length;
-        }
-        int vl = (int) left[i] & 0xFF;
-        int vr = (int) right[i] & 0xFF;
-        return vl - vr;
+    /** Compares unsigned bytes lexicographically, using the vectorized mismatch of the buffers viewing the data */
+    private static int compareData(ByteString left, ByteString right) {
+        ByteBuffer l = left.asReadOnlyByteBuffer();
+        ByteBuffer r = right.asReadOnlyByteBuffer();
+        int i = l.mismatch(r);
+        if (i < 0) return 0;
+        if (i >= l.remaining() || i >= r.remaining()) return l.remaining() - r.remaining();
+        return (l.get(l.position() + i) & 0xFF) - (r.get(r.position() + i) & 0xFF);
     }
 }
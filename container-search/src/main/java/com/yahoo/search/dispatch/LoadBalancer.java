@@ -3,7 +3,9 @@ package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.vespa.config.search.DispatchConfig;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -26,17 +28,27 @@ public class LoadBalancer {
     private static final long MIN_LATENCY_DECAY_RATE = 42;
     private static final double INITIAL_QUERY_TIME = 0.001;
     private static final double MIN_QUERY_TIME = 0.001;
+    private static final Duration LATENCY_WINDOW = Duration.ofSeconds(30);
+    private static final double TAIL_PERCENTILE = 95.0;
+    private static final long MIN_TAIL_SAMPLES = 100;
 
     private final List<GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
 
     public LoadBalancer(SearchCluster searchCluster, boolean roundRobin) {
+        this(searchCluster, roundRobin ? DispatchConfig.DistributionPolicy.ROUNDROBIN : DispatchConfig.DistributionPolicy.ADAPTIVE);
+    }
+
+    public LoadBalancer(SearchCluster searchCluster, DispatchConfig.DistributionPolicy.Enum policy) {
         this.scoreboard = new ArrayList<>(searchCluster.groups().size());
+        boolean recordSearchTimes = policy == DispatchConfig.DistributionPolicy.LATENCY_AWARE;
         for (Group group : searchCluster.orderedGroups()) {
-            scoreboard.add(new GroupStatus(group));
+            scoreboard.add(new GroupStatus(group, recordSearchTimes));
         }
-        if (roundRobin || scoreboard.size() == 1) {
+        if (policy == DispatchConfig.DistributionPolicy.ROUNDROBIN || scoreboard.size() == 1) {
             this.scheduler = new RoundRobinScheduler(scoreboard);
+        } else if (policy == DispatchConfig.DistributionPolicy.LATENCY_AWARE) {
+            this.scheduler = new LatencyAwareScheduler(new Random(), scoreboard);
         } else {
             this.scheduler = new AdaptiveScheduler(new Random(), scoreboard);
         }
@@ -88,9 +100,12 @@ public class LoadBalancer {
         private int allocations = 0;
         private long queries = 0;
         private double averageSearchTime = INITIAL_QUERY_TIME;
+        /** The recent search times of this group, or null if they are not used by the scheduler */
+        private final LatencyHistogram searchTimes;
 
-        GroupStatus(Group group) {
+        GroupStatus(Group group, boolean recordSearchTimes) {
             this.group = group;
+            this.searchTimes = recordSearchTimes ? new LatencyHistogram(LATENCY_WINDOW) : null;
         }
 
         void allocate() {
@@ -104,6 +119,8 @@ public class LoadBalancer {
                 allocations = 0;
             }
             if (success) {
+                if (searchTimes != null)
+                    searchTimes.record(Math.round(searchTime * 1000));
                 searchTime = Math.max(searchTime, MIN_QUERY_TIME);
                 double decayRate = Math.min(queries + MIN_LATENCY_DECAY_RATE, DEFAULT_LATENCY_DECAY_RATE);
                 averageSearchTime = (searchTime + (decayRate - 1) * averageSearchTime) / decayRate;
@@ -119,6 +136,24 @@ public class LoadBalancer {
             return 1.0 / averageSearchTime;
         }
 
+        /** Returns whether enough searches have been made recently to estimate the tail search time of this group */
+        boolean hasTailSearchTime() {
+            return searchTimes != null && searchTimes.count() >= MIN_TAIL_SAMPLES;
+        }
+
+        /**
+         * Returns the estimated 95th percentile of the recent search times of this group in seconds,
+         * or the average search time if too few searches have been made recently to estimate it
+         */
+        double tailSearchTime() {
+            if ( ! hasTailSearchTime()) return averageSearchTime;
+            return Math.max(searchTimes.percentile(TAIL_PERCENTILE) / 1000.0, MIN_QUERY_TIME);
+        }
+
+        int allocations() {
+            return allocations;
+        }
+
         int groupId() {
             return group.id();
         }
@@ -254,4 +289,57 @@ public class LoadBalancer {
         }
     }
 
+    /**
+     * Selects the group which is expected to complete a query the soonest, estimated as its tail search time
+     * multiplied by the number of queries in flight to it, including the new one. Using the tail rather than the
+     * average search time stops sending traffic to groups where some queries are slow, such as when a node
+     * is in garbage collection. Ties are broken by starting at a random group.
+     * A group which has served too few queries recently to estimate its tail, such as one which has been
+     * avoided or is freshly started, is estimated by its average search time instead. This is lower than its tail,
+     * such that it receives queries until its tail is known again, while the other groups are still compared
+     * by their tails.
+     */
+    static class LatencyAwareScheduler implements GroupScheduler {
+
+        private final Random random;
+        private final List<GroupStatus> scoreboard;
+
+        public LatencyAwareScheduler(Random random, List<GroupStatus> scoreboard) {
+            this.random = random;
+            this.scoreboard = scoreboard;
+        }
+
+        private Optional<GroupStatus> selectGroup(int start, boolean requireCoverage, Set<Integer> rejected) {
+            GroupStatus best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (int i = 0; i < scoreboard.size(); i++) {
+                GroupStatus gs = scoreboard.get((start + i) % scoreboard.size());
+                if ( ! isCandidate(gs, requireCoverage, rejected)) continue;
+
+                double score = gs.tailSearchTime() * (gs.allocations() + 1);
+                if (score < bestScore) {
+                    best = gs;
+                    bestScore = score;
+                }
+            }
+            return Optional.ofNullable(best);
+        }
+
+        private static boolean isCandidate(GroupStatus gs, boolean requireCoverage, Set<Integer> rejected) {
+            if (rejected != null && rejected.contains(gs.group.id())) return false;
+            return ! requireCoverage || gs.group.hasSufficientCoverage();
+        }
+
+        @Override
+        public Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups) {
+            int start = random.nextInt(scoreboard.size());
+            Optional<GroupStatus> gs = selectGroup(start, true, rejectedGroups);
+            if (gs.isPresent()) {
+                return gs;
+            }
+            // fallback - any coverage better than none
+            return selectGroup(start, false, rejectedGroups);
+        }
+    }
+
 }
@@ -0,0 +1,170 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.searchers.CacheControlSearcher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * A size bounded cache of the lean hit lists returned by a search cluster, keyed on the serialized
+ * search request. Entries are evicted in least recently used order when the cache is full,
+ * and are not returned when they are older than the configured time to live, or when the state of the
+ * search cluster has changed since they were produced.
+ *
+ * The cache is bypassed by queries which requests no caching (<code>noCache</code> or
+ * <code>cachecontrol.nocache</code>), and <code>cachecontrol.maxage</code> further limits the age of
+ * results returned to a query.
+ *
+ * This class is multithread safe.
+ */
+class ResultCache {
+
+    private final int maxEntries;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    /** The cached results in access order. Access is synchronized on this */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    ResultCache(int maxEntries, Duration timeToLive, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    boolean isEnabled() { return maxEntries > 0; }
+
+    /** Returns the key to use for caching the result of this query, or empty if this query should not use the cache */
+    Optional<Key> keyOf(Query query) {
+        if ( ! isEnabled()) return Optional.empty();
+        if (query.getNoCache() || query.properties().getBoolean(CacheControlSearcher.cachecontrolNocache, false))
+            return Optional.empty();
+        if (query.getTraceLevel() > 0 || query.getExplainLevel() > 0) return Optional.empty();
+        if (query.getModel().getSearchPath() != null) return Optional.empty();
+        if (GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+
+        return Optional.of(new Key(ProtobufSerialization.serializeSearchRequestKey(query)));
+    }
+
+    /**
+     * Returns the cached result for the given key, or empty if there is none which is recent enough
+     * for this query and produced in the given cluster state.
+     */
+    Optional<Entry> get(Key key, Query query, long clusterStateVersion) {
+        Duration maxAge = timeToLive;
+        int queryMaxAge = query.properties().getInteger(CacheControlSearcher.cachecontrolMaxage, -1);
+        if (queryMaxAge > 0 && Duration.ofSeconds(queryMaxAge).compareTo(maxAge) < 0)
+            maxAge = Duration.ofSeconds(queryMaxAge);
+
+        Instant now = clock.instant();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) return Optional.empty();
+
+            if (entry.clusterStateVersion != clusterStateVersion || now.isAfter(entry.created.plus(timeToLive))) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            if (now.isAfter(entry.created.plus(maxAge))) return Optional.empty();
+            return Optional.of(entry);
+        }
+    }
+
+    void put(Key key, Entry entry) {
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    synchronized int size() { return entries.size(); }
+
+    Instant now() { return clock.instant(); }
+
+    /** A serialized search request with a precomputed hash code */
+    static final class Key {
+
+        private final byte[] request;
+        private final int hashCode;
+
+        Key(byte[] request) {
+            this.request = request;
+            this.hashCode = Arrays.hashCode(request);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if ( ! (other instanceof Key)) return false;
+            Key otherKey = (Key)other;
+            return hashCode == otherKey.hashCode && Arrays.equals(request, otherKey.request);
+        }
+
+    }
+
+    /** An immutable cached result */
+    static final class Entry {
+
+        private final List<LeanHit> hits;
+        private final long totalHitCount;
+        private final Coverage coverage;
+        private final int offset;
+        private final Instant created;
+        private final long clusterStateVersion;
+
+        /**
+         * Creates a cache entry
+         *
+         * @param hits the lean hits of the result, which are detached from their reply buffers and shared between queries
+         * @param totalHitCount the total hit count of the result
+         * @param coverage the coverage of the result, which is copied
+         * @param offset the offset of the query after the result was produced
+         * @param created the time the request producing this result was made
+         * @param clusterStateVersion the version of the cluster state when the request producing this result was made
+         */
+        Entry(List<LeanHit> hits, long totalHitCount, Coverage coverage, int offset, Instant created, long clusterStateVersion) {
+            this.hits = hits.stream().map(LeanHit::detached).collect(Collectors.toUnmodifiableList());
+            this.totalHitCount = totalHitCount;
+            this.coverage = copyOf(coverage);
+            this.offset = offset;
+            this.created = created;
+            this.clusterStateVersion = clusterStateVersion;
+        }
+
+        List<LeanHit> hits() { return hits; }
+        long totalHitCount() { return totalHitCount; }
+        int offset() { return offset; }
+
+        /** Returns a new copy of the coverage of this, as coverage instances are mutated when merged */
+        Coverage coverage() { return copyOf(coverage); }
+
+        private static Coverage copyOf(Coverage coverage) {
+            if (coverage == null) return null;
+            return new Coverage(coverage.getDocs(), coverage.getActive(), coverage.getNodes(), coverage.getResultSets())
+                    .setSoonActive(coverage.getSoonActive())
+                    .setNodesTried(coverage.getNodesTried());
+        }
+
+    }
+
+}
@@ -64,6 +64,9 @@ public abstract class SearchInvoker extends CloseableInvoker {
         return node.map(Node::key);
     }
 
+    /** Returns the node this sends requests to, if it sends to a single node */
+    Optional<Node> node() { return node; }
+
     protected InvokerResult errorResult(Query query, ErrorMessage errorMessage) {
         Result error = new Result(query, errorMessage);
         Coverage errorCoverage = new Coverage(0, 0, 0);
@@ -0,0 +1,178 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The best k hits seen so far of a query, in the order given by {@link LeanHit#compareTo}.
+ * The hits of each content node are added as their reply arrives, such that memory use is
+ * bounded by k rather than by the number of nodes times k, and collecting the final list is cheap.
+ *
+ * This is a binary heap having the worst hit kept at the root. Relevance is kept in a separate
+ * primitive array to make the common comparisons cheap when the query is not sorted on attributes.
+ * Duplicates (the same document with the same rank returned from multiple nodes) are dropped when added,
+ * such that they do not take the place of other hits. They are detected by an open addressing hash set of the hits
+ * in the heap, so no objects are allocated per hit.
+ *
+ * This class is not multithread safe.
+ */
+class TopKHits {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private LeanHit[] hits;
+    private double[] relevance;
+    private int size = 0;
+
+    /**
+     * The hits in the heap, hashed on global id, with linear probing. Hits are equal if they compare as equal,
+     * so the same document with a different rank is another entry. The length is a power of two.
+     */
+    private LeanHit[] set;
+
+    TopKHits(int k) {
+        this.k = Math.max(0, k);
+        int capacity = Math.min(this.k, INITIAL_CAPACITY);
+        this.hits = new LeanHit[capacity];
+        this.relevance = new double[capacity];
+        this.set = new LeanHit[Integer.highestOneBit(Math.max(1, capacity)) * 4];
+    }
+
+    /** Adds hits which are ordered best first, as returned from a content node */
+    void addSorted(List<LeanHit> sortedHits) {
+        for (LeanHit hit : sortedHits) {
+            if ( ! add(hit)) return; // the remaining hits are not better
+        }
+    }
+
+    /** Adds a hit, and returns whether it is among the best k hits seen so far */
+    boolean add(LeanHit hit) {
+        double hitRelevance = hit.getRelevance();
+        if (k == 0) return false;
+        if (size == k && compare(hit, hitRelevance, hits[0], relevance[0]) >= 0) return false;
+
+        if ( ! addToSet(hit)) return true; // duplicate
+
+        if (size < k) {
+            ensureCapacity(size + 1);
+            siftUp(size++, hit, hitRelevance);
+        }
+        else {
+            removeFromSet(hits[0]);
+            siftDown(hit, hitRelevance);
+        }
+        return true;
+    }
+
+    int size() { return size; }
+
+    /** Returns the hits kept by this, best first. This empties this. */
+    List<LeanHit> toSortedList() {
+        LeanHit[] sorted = new LeanHit[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = hits[0];
+            size--;
+            if (size > 0)
+                siftDown(hits[size], relevance[size]);
+            hits[size] = null;
+        }
+        Arrays.fill(set, null);
+        return Arrays.asList(sorted);
+    }
+
+    /** Adds a hit to the set of hits in the heap, and returns whether it was not already present */
+    private boolean addToSet(LeanHit hit) {
+        if ((size + 1) * 2 > set.length)
+            rehash(set.length * 2);
+        int mask = set.length - 1;
+        for (int i = hit.gidBytes().hashCode() & mask; ; i = (i + 1) & mask) {
+            if (set[i] == null) {
+                set[i] = hit;
+                return true;
+            }
+            if (set[i].compareTo(hit) == 0) return false;
+        }
+    }
+
+    /** Removes a hit which is present from the set of hits in the heap */
+    private void removeFromSet(LeanHit hit) {
+        int mask = set.length - 1;
+        int free = hit.gidBytes().hashCode() & mask;
+        while (set[free] != hit)
+            free = (free + 1) & mask;
+        set[free] = null;
+
+        // Move later entries of the probe sequence into the freed slot, unless they hash after it
+        for (int i = (free + 1) & mask; set[i] != null; i = (i + 1) & mask) {
+            int home = set[i].gidBytes().hashCode() & mask;
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                set[free] = set[i];
+                set[i] = null;
+                free = i;
+            }
+        }
+    }
+
+    private void rehash(int length) {
+        LeanHit[] old = set;
+        set = new LeanHit[length];
+        int mask = length - 1;
+        for (LeanHit hit : old) {
+            if (hit == null) continue;
+            int i = hit.gidBytes().hashCode() & mask;
+            while (set[i] != null)
+                i = (i + 1) & mask;
+            set[i] = hit;
+        }
+    }
+
+    /** Places a hit at the given free position or above it, moving worse hits down */
+    private void siftUp(int position, LeanHit hit, double hitRelevance) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (compare(hit, hitRelevance, hits[parent], relevance[parent]) <= 0) break;
+            hits[position] = hits[parent];
+            relevance[position] = relevance[parent];
+            position = parent;
+        }
+        hits[position] = hit;
+        relevance[position] = hitRelevance;
+    }
+
+    /** Replaces the root by the given hit and moves it down to its position */
+    private void siftDown(LeanHit hit, double hitRelevance) {
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if (right < size && compare(hits[right], relevance[right], hits[child], relevance[child]) > 0)
+                child = right;
+            if (compare(hit, hitRelevance, hits[child], relevance[child]) >= 0) break;
+            hits[position] = hits[child];
+            relevance[position] = relevance[child];
+            position = child;
+        }
+        hits[position] = hit;
+        relevance[position] = hitRelevance;
+    }
+
+    /** Returns a positive number if a is worse than b, a negative number if it is better and 0 if they are equal */
+    private static int compare(LeanHit a, double aRelevance, LeanHit b, double bRelevance) {
+        if ( ! a.hasSortData()) {
+            if (aRelevance > bRelevance) return -1;
+            if (aRelevance < bRelevance) return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= hits.length) return;
+        int newCapacity = Math.min(k, Math.max(capacity, hits.length * 2));
+        hits = Arrays.copyOf(hits, newCapacity);
+        relevance = Arrays.copyOf(relevance, newCapacity);
+    }
+
+}
@@ -5,7 +5,9 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.StringProperty;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.TensorProperty;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.fs4.GetDocSumsPacket;
@@ -42,9 +44,25 @@ public class ProtobufSerialization {
         return convertFromQuery(query, hits, serverId).toByteArray();
     }
 
+    /**
+     * Returns the serialized search request for the given query, excluding the timeout and session key
+     * which differ between otherwise identical queries. This is used as the key of the dispatch result cache.
+     */
+    public static byte[] serializeSearchRequestKey(Query query) {
+        return convertFromQuery(query, query.getHits()).build().toByteArray();
+    }
+
     private static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId) {
-        var builder = SearchProtocol.SearchRequest.newBuilder().setHits(hits).setOffset(query.getOffset())
-                .setTimeout((int) query.getTimeLeft());
+        var builder = convertFromQuery(query, hits).setTimeout((int) query.getTimeLeft());
+        if (query.getGroupingSessionCache() || query.getRanking().getQueryCache()) {
+            // TODO verify that the session key is included whenever rank properties would have been
+            builder.setSessionKey(query.getSessionId(serverId).toString());
+        }
+        return builder.build();
+    }
+
+    private static SearchProtocol.SearchRequest.Builder convertFromQuery(Query query, int hits) {
+        var builder = SearchProtocol.SearchRequest.newBuilder().setHits(hits).setOffset(query.getOffset());
 
         var documentDb = query.getModel().getDocumentDb();
         if (documentDb != null) {
@@ -52,10 +70,6 @@ public class ProtobufSerialization {
         }
         builder.setQueryTreeBlob(serializeQueryTree(query.getModel().getQueryTree()));
 
-        if (query.getGroupingSessionCache() || query.getRanking().getQueryCache()) {
-            // TODO verify that the session key is included whenever rank properties would have been
-            builder.setSessionKey(query.getSessionId(serverId).toString());
-        }
         if (query.properties().getBoolean(Model.ESTIMATE)) {
             builder.setHits(0);
         }
@@ -77,7 +91,7 @@ public class ProtobufSerialization {
 
         mergeToSearchRequestFromRanking(query.getRanking(), builder);
 
-        return builder.build();
+        return builder;
     }
 
     public static int getTraceLevelForBackend(Query query) {
@@ -184,10 +198,20 @@ public class ProtobufSerialization {
 
     static InvokerResult deserializeToSearchResult(byte[] payload, Query query, VespaBackEndSearcher searcher, int partId, int distKey)
             throws InvalidProtocolBufferException {
-        var protobuf = SearchProtocol.SearchReply.parseFrom(payload);
+        var protobuf = parseSearchReply(payload);
         return convertToResult(query, protobuf, searcher.getDocumentDatabase(query), partId, distKey);
     }
 
+    /**
+     * Parses a search reply such that its byte fields are views into the given payload rather than copies.
+     * The payload must not be modified after this.
+     */
+    static SearchProtocol.SearchReply parseSearchReply(byte[] payload) throws InvalidProtocolBufferException {
+        CodedInputStream input = UnsafeByteOperations.unsafeWrap(payload).newCodedInput();
+        input.enableAliasing(true);
+        return SearchProtocol.SearchReply.parser().parseFrom(input);
+    }
+
     static InvokerResult convertToResult(Query query, SearchProtocol.SearchReply protobuf,
                                                  DocumentDatabase documentDatabase, int partId, int distKey)
     {
@@ -212,9 +236,8 @@ public class ProtobufSerialization {
         }
 
         for (var replyHit : protobuf.getHitsList()) {
-            LeanHit hit = (replyHit.getSortData().isEmpty())
-                    ? new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance())
-                    : new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance(), replyHit.getSortData().toByteArray());
+            LeanHit hit = new LeanHit(replyHit.getGlobalId(), partId, distKey, replyHit.getRelevance(),
+                                      replyHit.getSortData().isEmpty() ? null : replyHit.getSortData());
             result.getLeanHits().add(hit);
         }
 
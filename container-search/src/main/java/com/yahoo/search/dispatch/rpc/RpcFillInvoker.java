@@ -55,15 +55,14 @@ public class RpcFillInvoker extends FillInvoker {
         ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
         Query query = result.getQuery();
 
-        CompressionType compression = CompressionType
-                .valueOf(query.properties().getString(RpcResourcePool.dispatchCompression, "LZ4").toUpperCase());
+        CompressionType compression = resourcePool.compressionType(query);
 
         if (query.getTraceLevel() >= 3) {
             query.trace("Sending " + hitsByNode.size() + " summary fetch RPC requests", 3);
             query.trace("RpcSlime: Not resending query during document summary fetching", 3);
         }
 
-        responseReceiver = new GetDocsumsResponseReceiver(hitsByNode.size(), resourcePool.compressor(), result);
+        responseReceiver = new GetDocsumsResponseReceiver(hitsByNode.size(), resourcePool, result);
         for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
             sendGetDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), summaryClass, compression, result, responseReceiver);
         }
@@ -117,7 +116,7 @@ public class RpcFillInvoker extends FillInvoker {
                 .encode(toSlime(rankProfile, summaryClass, query.getModel().getDocumentDb(),
                                 query.getSessionId(), query.getRanking().getLocation(), hits));
         double timeoutSeconds = ((double) query.getTimeLeft() - 3.0) / 1000.0;
-        Compressor.Compression compressionResult = resourcePool.compress(query, serializedSlime);
+        Compressor.Compression compressionResult = resourcePool.compress(query, serializedSlime, RpcResourcePool.Payload.DOCSUM_REQUEST);
         node.getDocsums(hits, compressionResult.type(), serializedSlime.length, compressionResult.data(), responseReceiver, timeoutSeconds);
     }
 
@@ -150,7 +149,7 @@ public class RpcFillInvoker extends FillInvoker {
     public static class GetDocsumsResponseReceiver {
 
         private final BlockingQueue<Client.ResponseOrError<GetDocsumsResponse>> responses;
-        private final Compressor compressor;
+        private final RpcResourcePool resourcePool;
         private final Result result;
 
         /** Whether we have already logged/notified about an error - to avoid spamming */
@@ -159,8 +158,8 @@ public class RpcFillInvoker extends FillInvoker {
         /** The number of responses we should receive (and process) before this is complete */
         private int outstandingResponses;
 
-        GetDocsumsResponseReceiver(int requestCount, Compressor compressor, Result result) {
-            this.compressor = compressor;
+        GetDocsumsResponseReceiver(int requestCount, RpcResourcePool resourcePool, Result result) {
+            this.resourcePool = resourcePool;
             responses = new LinkedBlockingQueue<>(requestCount);
             outstandingResponses = requestCount;
             this.result = result;
@@ -215,7 +214,8 @@ public class RpcFillInvoker extends FillInvoker {
             else {
                 Client.GetDocsumsResponse response = responseOrError.response().get();
                 CompressionType compression = CompressionType.valueOf(response.compression());
-                byte[] slimeBytes = compressor.decompress(response.compressedSlimeBytes(), compression, response.uncompressedSize());
+                byte[] slimeBytes = resourcePool.decompress(response.compressedSlimeBytes(), compression, response.uncompressedSize(),
+                                                           RpcResourcePool.Payload.DOCSUM_RESPONSE);
                 return fill(response.hitsContext(), summaryClass, documentDb, slimeBytes);
             }
             return 0;
@@ -232,7 +232,7 @@ public class RpcFillInvoker extends FillInvoker {
         }
 
         private int fill(List<FastHit> hits, String summaryClass, DocumentDatabase documentDb, byte[] slimeBytes) {
-            com.yahoo.slime.Inspector root = BinaryFormat.decode(slimeBytes).get();
+            com.yahoo.slime.Inspector root = BinaryFormat.view(slimeBytes);
             com.yahoo.slime.Inspector errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
@@ -126,7 +126,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
 
         Query query = result.getQuery();
         double timeoutSeconds = ((double) query.getTimeLeft() - 3.0) / 1000.0;
-        Compressor.Compression compressionResult = resourcePool.compress(query, payload);
+        Compressor.Compression compressionResult = resourcePool.compress(query, payload, RpcResourcePool.Payload.DOCSUM_REQUEST);
         node.request(RPC_METHOD, compressionResult.type(), payload.length, compressionResult.data(), roe -> receive(roe, hits),
                 timeoutSeconds);
     }
@@ -170,8 +170,8 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         } else {
             Client.ProtobufResponse response = responseOrError.response().get();
             CompressionType compression = CompressionType.valueOf(response.compression());
-            byte[] responseBytes = resourcePool.compressor().decompress(response.compressedPayload(), compression,
-                    response.uncompressedSize());
+            byte[] responseBytes = resourcePool.decompress(response.compressedPayload(), compression,
+                    response.uncompressedSize(), RpcResourcePool.Payload.DOCSUM_RESPONSE);
             return fill(result, hitsContext, summaryClass, responseBytes);
         }
         return 0;
@@ -187,7 +187,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private int fill(Result result, List<FastHit> hits, String summaryClass, byte[] payload) {
         try {
             var protobuf = SearchProtocol.DocsumReply.parseFrom(payload);
-            var root = BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
+            var root = BinaryFormat.view(protobuf.getSlimeSummaries().toByteArray());
             var errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
@@ -7,6 +7,7 @@ import com.yahoo.component.AbstractComponent;
 import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.compress.Compressor.Compression;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.dispatch.FillInvoker;
@@ -15,6 +16,7 @@ import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -26,17 +28,30 @@ import java.util.Random;
  * @author ollivir
  */
 public class RpcResourcePool extends AbstractComponent {
-    /** The compression method which will be used with rpc dispatch. "lz4" (default) and "none" is supported. */
+    /**
+     * The compression method which will be used with rpc dispatch. "lz4", "zstd" and "none" is supported.
+     * The default is the compression set in the dispatch config.
+     */
     public final static CompoundName dispatchCompression = new CompoundName("dispatch.compression");
 
-    private final Compressor compressor = new Compressor(CompressionType.LZ4, 5, 0.95, 32);
+    private static final String COMPRESSION_RATIO_METRIC = "dispatch_compression_ratio";
+
+    /** The payloads exchanged with search nodes, for which compression ratios are reported */
+    public enum Payload { SEARCH_REQUEST, SEARCH_RESPONSE, DOCSUM_REQUEST, DOCSUM_RESPONSE }
+
+    private final Compressor compressor;
+    private final Metric metric;
+    private final Map<Payload, Metric.Context> metricContexts;
     private final Random random = new Random();
 
     /** Connections to the search nodes this talks to, indexed by node id ("partid") */
     private final ImmutableMap<Integer, NodeConnectionPool> nodeConnectionPools;
     private final RpcClient client;
 
-    RpcResourcePool(Map<Integer, NodeConnection> nodeConnections) {
+    RpcResourcePool(Map<Integer, NodeConnection> nodeConnections, Metric metric) {
+        this.compressor = createCompressor(CompressionType.LZ4);
+        this.metric = metric;
+        this.metricContexts = createMetricContexts(metric);
         var builder = new ImmutableMap.Builder<Integer, NodeConnectionPool>();
         nodeConnections.forEach((key, connection) -> builder.put(key, new NodeConnectionPool(Collections.singletonList(connection))));
         this.nodeConnectionPools = builder.build();
@@ -44,8 +59,11 @@ public class RpcResourcePool extends AbstractComponent {
     }
 
     @Inject
-    public RpcResourcePool(DispatchConfig dispatchConfig) {
+    public RpcResourcePool(DispatchConfig dispatchConfig, Metric metric) {
         super();
+        this.compressor = createCompressor(CompressionType.valueOf(dispatchConfig.compression().name()));
+        this.metric = metric;
+        this.metricContexts = createMetricContexts(metric);
         client = new RpcClient("dispatch-client", dispatchConfig.numJrtTransportThreads());
 
         // Create rpc node connection pools indexed by the node distribution key
@@ -65,9 +83,28 @@ public class RpcResourcePool extends AbstractComponent {
         return compressor;
     }
 
-    public Compression compress(Query query, byte[] payload) {
-        CompressionType compression = CompressionType.valueOf(query.properties().getString(dispatchCompression, "LZ4").toUpperCase());
-        return compressor.compress(compression, payload);
+    /** Returns the compression type requested by the given query */
+    public CompressionType compressionType(Query query) {
+        String compression = query.properties().getString(dispatchCompression);
+        return compression == null ? compressor.type() : CompressionType.valueOf(compression.toUpperCase());
+    }
+
+    /** Compresses a payload to send to search nodes using the compression requested by the given query */
+    public Compression compress(Query query, byte[] payload, Payload payloadType) {
+        Compression compression = compressor.compress(compressionType(query), payload);
+        reportCompressionRatio(payloadType, compression.type(), compression.data().length, payload.length);
+        return compression;
+    }
+
+    /** Decompresses a payload received from a search node */
+    public byte[] decompress(byte[] payload, CompressionType compression, int uncompressedSize, Payload payloadType) {
+        reportCompressionRatio(payloadType, compression, payload.length, uncompressedSize);
+        return compressor.decompress(payload, compression, uncompressedSize);
+    }
+
+    private void reportCompressionRatio(Payload payloadType, CompressionType compression, int compressedSize, int uncompressedSize) {
+        if ( ! compression.isCompressed() || uncompressedSize == 0) return;
+        metric.set(COMPRESSION_RATIO_METRIC, (double)compressedSize / uncompressedSize, metricContexts.get(payloadType));
     }
 
     public NodeConnection getConnection(int nodeId) {
@@ -88,6 +125,17 @@ public class RpcResourcePool extends AbstractComponent {
         }
     }
 
+    private static Compressor createCompressor(CompressionType type) {
+        return new Compressor(type, 5, 0.95, 32);
+    }
+
+    private static Map<Payload, Metric.Context> createMetricContexts(Metric metric) {
+        Map<Payload, Metric.Context> contexts = new EnumMap<>(Payload.class);
+        for (Payload payload : Payload.values())
+            contexts.put(payload, metric.createContext(Map.of("payload", payload.name().toLowerCase())));
+        return contexts;
+    }
+
     private class NodeConnectionPool {
         private final List<Client.NodeConnection> connections;
 
@@ -101,7 +101,8 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
 
         ProtobufResponse protobufResponse = response.response().get();
         CompressionType compression = CompressionType.valueOf(protobufResponse.compression());
-        byte[] payload = resourcePool.compressor().decompress(protobufResponse.compressedPayload(), compression, protobufResponse.uncompressedSize());
+        byte[] payload = resourcePool.decompress(protobufResponse.compressedPayload(), compression, protobufResponse.uncompressedSize(),
+                                                 RpcResourcePool.Payload.SEARCH_RESPONSE);
         var result = ProtobufSerialization.deserializeToSearchResult(payload, query, searcher, node.pathIndex(), node.key());
 
         return result;
@@ -126,7 +127,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         final Compressor.Compression compressedPayload;
 
         RpcContext(RpcResourcePool resourcePool, Query query, byte[] payload) {
-            compressedPayload = resourcePool.compress(query, payload);
+            compressedPayload = resourcePool.compress(query, payload, RpcResourcePool.Payload.SEARCH_REQUEST);
         }
 
     }
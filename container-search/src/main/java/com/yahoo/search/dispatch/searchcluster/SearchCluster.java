@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -40,6 +41,7 @@ public class SearchCluster implements NodeManager<Node> {
     private final VipStatus vipStatus;
     private final PingFactory pingFactory;
     private final TopKEstimator hitEstimator;
+    private final AtomicLong stateVersion = new AtomicLong();
     private long nextLogTime = 0;
     private static final double SKEW_FACTOR = 0.05;
 
@@ -191,8 +193,15 @@ public class SearchCluster implements NodeManager<Node> {
         return localCorpusDispatchTarget;
     }
 
+    /**
+     * Returns a number which is incremented each time a node changes working state or a group changes
+     * coverage sufficiency, i.e whenever results produced by this cluster earlier may no longer be valid.
+     */
+    public long stateVersion() { return stateVersion.get(); }
+
     private void updateWorkingState(Node node, boolean isWorking) {
         node.setWorking(isWorking);
+        stateVersion.incrementAndGet();
         updateVipStatusOnNodeChange(node, isWorking);
     }
 
@@ -212,6 +221,7 @@ public class SearchCluster implements NodeManager<Node> {
         if (sufficientCoverage == group.hasSufficientCoverage()) return; // no change
 
         group.setHasSufficientCoverage(sufficientCoverage);
+        stateVersion.incrementAndGet();
         updateVipStatusOnCoverageChange(group, sufficientCoverage);
     }
 
@@ -28,14 +28,32 @@ class FederationResult {
      * Other targets are either complete, or should only be included if they are available when we complete
      */
     private List<TargetResult> targetsToWaitFor;
-    
-    private FederationResult(ImmutableList<TargetResult> targetResults) {
+
+    /**
+     * The number of completed targets to wait for, after which we stop waiting for the remaining ones.
+     * Only targets we wait for count towards this, such that optional targets never cause mandatory ones
+     * to be abandoned.
+     */
+    private final int quorum;
+
+    /** Whether the quorum is smaller than the number of targets to wait for */
+    private final boolean waitForQuorum;
+
+    /** The number of targets to wait for which have completed, guarded by this */
+    private int completedTargets = 0;
+
+    private FederationResult(ImmutableList<TargetResult> targetResults, double quorum) {
         this.targetResults = targetResults;
 
         if (targetResults.stream().anyMatch(TargetResult::isMandatory))
             targetsToWaitFor = targetResults.stream().filter(TargetResult::isMandatory).collect(Collectors.toList());
         else
             targetsToWaitFor = new ArrayList<>(targetResults);
+
+        this.quorum = Math.max(1, (int)Math.ceil(quorum * targetsToWaitFor.size()));
+        this.waitForQuorum = this.quorum < targetsToWaitFor.size();
+        if (waitForQuorum)
+            targetsToWaitFor.forEach(result -> result.futureResult.whenDone(this::targetCompleted));
     }
 
     /**
@@ -43,19 +61,60 @@ class FederationResult {
      * In the worst case this is the same as waiting for the max target timeout,
      * in the average case it may be much better because lower timeout sources do not get to
      * drive the timeout above their own timeout value.
+     * If a quorum smaller than all targets is set, this returns as soon as that number of targets have completed.
      * When this completes, results can be accessed from the TargetResults with no blocking
      * (i.e getOrTimeout) without breaking any contract.
+     * Targets which have not completed when this returns are cancelled, such that they stop using a thread.
      */
     public void waitForAll(int queryTimeout, Clock clock) {
         long startTime = clock.millis();
         while ( ! targetsToWaitFor.isEmpty()) {
             TargetResult nextToWaitFor = targetWithSmallestTimeout(targetsToWaitFor, queryTimeout);
             long timeLeftOfNextTimeout = nextToWaitFor.timeout(queryTimeout) - ( clock.millis() - startTime );
-            nextToWaitFor.getIfAvailable(timeLeftOfNextTimeout);
+            if (waitForQuorum) {
+                if ( ! awaitCompletionOrQuorum(nextToWaitFor, timeLeftOfNextTimeout, clock)) break;
+            }
+            else {
+                nextToWaitFor.getIfAvailable(timeLeftOfNextTimeout);
+            }
+            nextToWaitFor.cutShort = nextToWaitFor.hasAdaptiveTimeout(queryTimeout)
+                                     && nextToWaitFor.getIfAvailable(0).isEmpty();
             targetsToWaitFor.remove(nextToWaitFor);
         }
+        // Targets still left to wait for were abandoned because the quorum was reached
+        for (TargetResult targetResult : targetsToWaitFor)
+            targetResult.cutShort = targetResult.getIfAvailable(0).isEmpty();
+
+        for (TargetResult targetResult : targetResults)
+            targetResult.cancelIfNotAvailable();
     }
-    
+
+    /**
+     * Waits until the given target is complete or the timeout is reached,
+     * unless the quorum of completed targets is reached first.
+     *
+     * @return false if the quorum was reached such that we should stop waiting, true otherwise
+     */
+    private synchronized boolean awaitCompletionOrQuorum(TargetResult target, long timeout, Clock clock) {
+        long deadline = clock.millis() + timeout;
+        try {
+            while ( ! target.futureResult.isDone() && completedTargets < quorum) {
+                long timeLeft = deadline - clock.millis();
+                if (timeLeft <= 0) return true;
+                wait(timeLeft);
+            }
+        }
+        catch (InterruptedException e) {
+            // handled as timeout
+        }
+        return completedTargets < quorum;
+    }
+
+    private synchronized void targetCompleted() {
+        completedTargets++;
+        notifyAll();
+    }
+
     /** Returns an immutable list of the results of this */
     public List<TargetResult> all() { return targetResults; }
 
@@ -73,15 +132,29 @@ class FederationResult {
         final FederationSearcher.Target target;
         private final FutureResult futureResult;
 
+        /** The latency of this target, if its timeout should be adapted to it, or null otherwise */
+        private final TargetLatency latency;
+
+        /**
+         * Whether this did not complete because we stopped waiting for it before its timeout,
+         * because the quorum was reached or its adaptive timeout was shorter than its timeout.
+         * Targets which were never waited for, because they are optional, are not cut short.
+         */
+        private boolean cutShort = false;
+
         /** 
          * Single threaded access to result already returned from futureResult, if any.
          * To avoid unnecessary synchronization with the producer thread.
          */
         private Optional<Result> availableResult = Optional.empty();
 
-        private TargetResult(FederationSearcher.Target target, FutureResult futureResult) {
+        private TargetResult(FederationSearcher.Target target, FutureResult futureResult, TargetLatency latency,
+                             long startTime, Clock clock) {
             this.target = target;
             this.futureResult = futureResult;
+            this.latency = latency;
+            if (latency != null)
+                futureResult.whenDone(() -> latency.add(clock.millis() - startTime));
         }
 
         private boolean isMandatory() { return ! target.federationOptions().getOptional(); }
@@ -98,6 +171,12 @@ class FederationResult {
             return availableResult;
         }
         
+        /** Cancels this if its result is not available, such that it no longer produces a result */
+        private void cancelIfNotAvailable() {
+            if (getIfAvailable(0).isEmpty())
+                futureResult.cancel(true);
+        }
+
         /** Returns a result without blocking; if the result is not available one with a timeout error is produced */
         public Result getOrTimeoutError() {
             // The else part is to offload creation of the timeout error
@@ -108,7 +187,23 @@ class FederationResult {
             return futureResult.isDone() && ! futureResult.isCancelled();
         }
 
+        /**
+         * Returns whether this did not complete because we stopped waiting for it before its timeout:
+         * Either because the quorum of targets was reached, or because it has an adaptive timeout.
+         */
+        public boolean isCutShort() { return cutShort; }
+
         private int timeout(long queryTimeout) {
+            int timeout = configuredTimeout(queryTimeout);
+            if (latency == null) return timeout;
+            return (int)Math.min(timeout, latency.timeout().orElse(timeout));
+        }
+
+        private boolean hasAdaptiveTimeout(long queryTimeout) {
+            return timeout(queryTimeout) < configuredTimeout(queryTimeout);
+        }
+
+        private int configuredTimeout(long queryTimeout) {
             return (int)target.federationOptions().getSearchChainExecutionTimeoutInMilliseconds(queryTimeout);
         }
         
@@ -122,13 +217,52 @@ class FederationResult {
     public static class Builder {
         
         private final ImmutableList.Builder<TargetResult> results = new ImmutableList.Builder();
-        
+        private final double quorum;
+        private final Clock clock;
+
+        public Builder() {
+            this(1.0, Clock.systemUTC());
+        }
+
+        /**
+         * Creates a builder of a federation result.
+         *
+         * @param quorum the fraction of the targets to wait for which must complete before we stop waiting for the rest.
+         *               The targets to wait for are the mandatory ones, or all if none are mandatory
+         * @param clock the clock used to measure target latencies and to wait for the quorum
+         */
+        public Builder(double quorum, Clock clock) {
+            this.quorum = quorum;
+            this.clock = clock;
+        }
+
         public void add(FederationSearcher.Target target, FutureResult futureResult) {
-            results.add(new TargetResult(target, futureResult));
+            add(target, futureResult, null);
+        }
+
+        /**
+         * Adds a target result.
+         *
+         * @param latency the latency of the target which its timeout should be adapted to,
+         *                or null to always wait for the target until its timeout
+         */
+        public void add(FederationSearcher.Target target, FutureResult futureResult, TargetLatency latency) {
+            add(target, futureResult, latency, clock.millis());
+        }
+
+        /**
+         * Adds a target result.
+         *
+         * @param latency the latency of the target which its timeout should be adapted to,
+         *                or null to always wait for the target until its timeout
+         * @param startTime the time, by the clock of this, at which the target search was submitted
+         */
+        public void add(FederationSearcher.Target target, FutureResult futureResult, TargetLatency latency, long startTime) {
+            results.add(new TargetResult(target, futureResult, latency, startTime, clock));
         }
         
         public FederationResult build() {
-            return new FederationResult(results.build());
+            return new FederationResult(results.build(), quorum);
         }
         
     }
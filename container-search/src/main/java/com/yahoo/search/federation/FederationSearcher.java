@@ -29,6 +29,7 @@ import com.yahoo.search.federation.sourceref.SourcesTarget;
 import com.yahoo.search.federation.sourceref.UnresolvedSearchChainException;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.properties.SubProperties;
+import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
@@ -53,6 +54,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -89,6 +91,12 @@ public class FederationSearcher extends ForkingSearcher {
     private final boolean strictSearchchain;
     private final TargetSelector<?> targetSelector;
 
+    /** The fraction of targets which must complete before we stop waiting for the rest */
+    private final double quorum;
+
+    /** The observed latencies of each target, or null if target timeouts should not be adapted to latency */
+    private final Map<ComponentId, TargetLatency> targetLatencies;
+
     private final Clock clock = Clock.systemUTC();
 
     private static final List<CompoundName> queryAndHits = ImmutableList.of(Query.OFFSET, Query.HITS);
@@ -97,7 +105,7 @@ public class FederationSearcher extends ForkingSearcher {
     public FederationSearcher(FederationConfig config, StrictContractsConfig strict,
                               ComponentRegistry<TargetSelector> targetSelectors) {
         this(createResolver(config), strict.searchchains(), strict.propagateSourceProperties(),
-             resolveSelector(config.targetSelector(), targetSelectors));
+             resolveSelector(config.targetSelector(), targetSelectors), config.quorum(), config.adaptiveTimeout());
     }
 
     private static TargetSelector resolveSelector(String selectorId, 
@@ -109,18 +117,22 @@ public class FederationSearcher extends ForkingSearcher {
 
     // for testing
     public FederationSearcher(ComponentId id, SearchChainResolver searchChainResolver) {
-        this(searchChainResolver, false, PropagateSourceProperties.EVERY, null);
+        this(searchChainResolver, false, PropagateSourceProperties.EVERY, null, 1.0, false);
     }
 
     private FederationSearcher(SearchChainResolver searchChainResolver,
                                boolean strictSearchchain,
                                PropagateSourceProperties.Enum propagateSourceProperties,
-                               TargetSelector targetSelector) {
+                               TargetSelector targetSelector,
+                               double quorum,
+                               boolean adaptiveTimeout) {
         this.searchChainResolver = searchChainResolver;
         sourceRefResolver = new SourceRefResolver(searchChainResolver);
         this.strictSearchchain = strictSearchchain;
         this.propagateSourceProperties = propagateSourceProperties;
         this.targetSelector = targetSelector;
+        this.quorum = quorum;
+        this.targetLatencies = adaptiveTimeout ? new ConcurrentHashMap<>() : null;
     }
 
     private static SearchChainResolver createResolver(FederationConfig config) {
@@ -214,9 +226,12 @@ public class FederationSearcher extends ForkingSearcher {
 
         HitOrderer s = null;
         for (FederationResult.TargetResult targetResult : results.all()) {
+            Result result = targetResult.getOrTimeoutError();
+            if (targetResult.isCutShort())
+                result.setCoverage(new Coverage(0, 0, false).setDegradedReason(Coverage.DEGRADED_BY_ADAPTIVE_TIMEOUT));
             if (s == null)
-                s = dirtyCopyIfModifiedOrderer(mergedResults.hits(), targetResult.getOrTimeoutError().hits().getOrderer());
-            mergeResult(query, targetResult.target, mergedResults, targetResult.getOrTimeoutError());
+                s = dirtyCopyIfModifiedOrderer(mergedResults.hits(), result.hits().getOrderer());
+            mergeResult(query, targetResult.target, mergedResults, result);
         }
     }
 
@@ -237,12 +252,20 @@ public class FederationSearcher extends ForkingSearcher {
     }
 
     private FederationResult search(Query query, Execution execution, Collection<Target> targets) {
-        FederationResult.Builder result = new FederationResult.Builder();
-        for (Target target : targets)
-            result.add(target, searchAsynchronously(query, execution, Window.from(targets, query), target));
+        FederationResult.Builder result = new FederationResult.Builder(quorum, clock);
+        for (Target target : targets) {
+            long startTime = clock.millis();
+            result.add(target, searchAsynchronously(query, execution, Window.from(targets, query), target),
+                       latencyOf(target), startTime);
+        }
         return result.build();
     }
 
+    private TargetLatency latencyOf(Target target) {
+        if (targetLatencies == null) return null;
+        return targetLatencies.computeIfAbsent(target.getId(), __ -> new TargetLatency());
+    }
+
     private FutureResult searchAsynchronously(Query query, Execution execution, Window window, Target target) {
         long timeout = target.federationOptions().getSearchChainExecutionTimeoutInMilliseconds(query.getTimeLeft());
         if (timeout <= 0)
@@ -0,0 +1,40 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.federation;
+
+import java.util.OptionalLong;
+
+/**
+ * Estimates the time a federation target usually needs to respond from its recently observed latencies.
+ * The estimate is the smoothed latency plus four times its smoothed deviation, as for retransmission
+ * timeouts in TCP (RFC 6298), such that it adapts quickly to targets getting slower.
+ * This is thread safe.
+ */
+class TargetLatency {
+
+    /** The number of latencies which must be observed before an estimate is available */
+    static final int minSamples = 10;
+
+    private double smoothedLatency = 0;
+    private double smoothedDeviation = 0;
+    private long samples = 0;
+
+    /** Adds an observed latency in milliseconds */
+    synchronized void add(long latency) {
+        if (samples == 0) {
+            smoothedLatency = latency;
+            smoothedDeviation = latency / 2.0;
+        }
+        else {
+            smoothedDeviation = 0.75 * smoothedDeviation + 0.25 * Math.abs(smoothedLatency - latency);
+            smoothedLatency = 0.875 * smoothedLatency + 0.125 * latency;
+        }
+        samples++;
+    }
+
+    /** Returns the estimated time in milliseconds this target needs to respond, or empty if it is not yet known */
+    synchronized OptionalLong timeout() {
+        if (samples < minSamples) return OptionalLong.empty();
+        return OptionalLong.of((long)Math.ceil(smoothedLatency + 4 * smoothedDeviation));
+    }
+
+}
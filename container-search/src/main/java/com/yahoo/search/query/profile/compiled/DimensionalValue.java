@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,7 +24,9 @@ import java.util.Set;
 public class DimensionalValue<VALUE> {
 
     private final Map<Binding, VALUE> indexedVariants;
-    private final List<BindingSpec> bindingSpecs;
+
+    /** The variants of this grouped by the dimensions they bind, in the order they should be matched */
+    private final List<SpecVariants<VALUE>> variantsBySpec;
 
     private DimensionalValue(List<Value<VALUE>> variants) {
         Collections.sort(variants);
@@ -33,12 +36,11 @@ public class DimensionalValue<VALUE> {
         for (Value<VALUE> variant : variants)
             indexedVariants.putIfAbsent(variant.binding(), variant.value());
 
-        this.bindingSpecs = new ArrayList<>();
-        for (Value<VALUE> variant : variants) {
-            BindingSpec spec = new BindingSpec(variant.binding());
-            if ( ! bindingSpecs.contains(spec))
-                bindingSpecs.add(spec);
-        }
+        Map<BindingSpec, SpecVariants<VALUE>> variantsBySpec = new LinkedHashMap<>();
+        for (Value<VALUE> variant : variants)
+            variantsBySpec.computeIfAbsent(new BindingSpec(variant.binding()), SpecVariants::new)
+                          .add(variant.binding(), variant.value());
+        this.variantsBySpec = List.copyOf(variantsBySpec.values());
     }
 
     /** Returns the value matching this context, or null if none */
@@ -46,9 +48,8 @@ public class DimensionalValue<VALUE> {
         if (context == null)
             context = Collections.emptyMap();
 
-        for (BindingSpec spec : bindingSpecs) {
-            if ( ! spec.matches(context)) continue;
-            VALUE value = indexedVariants.get(new Binding(spec, context));
+        for (int i = 0; i < variantsBySpec.size(); i++) {
+            VALUE value = variantsBySpec.get(i).get(context);
             if (value != null)
                 return value;
         }
@@ -259,6 +260,47 @@ public class DimensionalValue<VALUE> {
 
     }
 
+    /**
+     * The variants having bindings for the same dimensions, indexed such that values for up to one dimension
+     * are looked up directly by the value of that dimension in the context, without creating a binding.
+     */
+    private static class SpecVariants<VALUE> {
+
+        private final BindingSpec spec;
+        private final Map<Object, VALUE> variants = new HashMap<>();
+
+        SpecVariants(BindingSpec spec) {
+            this.spec = spec;
+        }
+
+        void add(Binding binding, VALUE value) {
+            variants.putIfAbsent(keyOf(binding), value);
+        }
+
+        /** Returns the value of the variant matching this context, or null if none */
+        VALUE get(Map<String, String> context) {
+            if ( ! spec.matches(context)) return null;
+            return variants.get(keyOf(context));
+        }
+
+        private Object keyOf(Binding binding) {
+            switch (spec.dimensions().length) {
+                case 0: return "";
+                case 1: return binding.dimensionValues()[0];
+                default: return binding;
+            }
+        }
+
+        private Object keyOf(Map<String, String> context) {
+            switch (spec.dimensions().length) {
+                case 0: return "";
+                case 1: return context.get(spec.dimensions()[0]);
+                default: return new Binding(spec, context);
+            }
+        }
+
+    }
+
     /** A list of dimensions for which there exist one or more bindings in this */
     static class BindingSpec {
 
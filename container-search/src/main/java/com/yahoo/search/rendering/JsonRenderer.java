@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.container.logging.TraceRenderer;
 import com.yahoo.data.JsonProducer;
 import com.yahoo.data.access.Inspectable;
@@ -116,6 +117,9 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final String GROUPING_VALUE = "value";
     private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
 
+    /** Rendered hits are passed on to the client each time at least this many bytes have been rendered */
+    static final int FLUSH_BYTES = 64 * 1024;
+
     private final JsonFactory generatorFactory;
 
     private JsonGenerator generator;
@@ -124,6 +128,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private boolean debugRendering;
     private LongSupplier timeSource;
     private OutputStream stream;
+    private long writtenAtLastFlush;
 
     public JsonRenderer() {
         this(null);
@@ -158,6 +163,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         renderedChildren = null;
         timeSource = System::currentTimeMillis;
         stream = null;
+        writtenAtLastFlush = 0;
     }
 
     @Override
@@ -434,6 +440,19 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                                     "Expected subclass of com.yahoo.search.result.Hit, got %s.",
                                     data.getClass());
         renderHit((Hit) data);
+        flushIfLarge();
+    }
+
+    /**
+     * Passes the bytes rendered so far on to the client if there are many of them, such that large results
+     * are streamed to the client while being rendered instead of being buffered until the end.
+     */
+    private void flushIfLarge() throws IOException {
+        if ( ! (generator.getOutputTarget() instanceof ContentChannelOutputStream)) return;
+        ContentChannelOutputStream output = (ContentChannelOutputStream)generator.getOutputTarget();
+        if (output.written() + generator.getOutputBuffered() - writtenAtLastFlush < FLUSH_BYTES) return;
+        generator.flush();
+        writtenAtLastFlush = output.written();
     }
 
     @Override
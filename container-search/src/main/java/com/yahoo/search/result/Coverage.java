@@ -23,6 +23,10 @@ public class Coverage extends com.yahoo.container.handler.Coverage {
         super(docs, active, nodes, resultSets);
     }
 
+    public Coverage(long docs, int nodes, boolean full) {
+        super(docs, nodes, full);
+    }
+
     /**
      * Will set number of documents present in ideal state
      *
@@ -6,6 +6,7 @@ import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
+import com.yahoo.search.result.ErrorMessage;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -39,6 +40,15 @@ import java.util.concurrent.*;
  * created for each AsyncExecution instance.
  * </p>
  *
+ * <p>
+ * Executions are run by a shared pool of at most 64 threads per core, as searches mostly wait for responses
+ * from content nodes. When all its threads are busy, an execution is not started, and its future result
+ * has a no backends in service error, such that load spikes are shed without creating more threads or blocking
+ * the caller. The result of a fill which is not started is the result to fill, with this error added.
+ * The pool size is not configurable since the pool is static: Searchers create async executions directly,
+ * so there is no component which could be given config.
+ * </p>
+ *
  * @see com.yahoo.search.searchchain.Execution
  * @author Arne Bergene Fossaa
  */
@@ -46,10 +56,13 @@ public class AsyncExecution {
 
     private static final ThreadFactory threadFactory = ThreadFactoryFactory.getThreadFactory("search");
 
+    /** The max number of threads executing searches, which mostly wait for responses from the content nodes */
+    static final int maxThreads = Math.max(100, 64 * Runtime.getRuntime().availableProcessors());
+
     private static final Executor executorMain = createExecutor();
 
     private static Executor createExecutor() {
-        ThreadPoolExecutor executor = new ThreadPoolExecutor(100, 8192, 1L, TimeUnit.SECONDS,
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(100, maxThreads, 1L, TimeUnit.SECONDS,
                                                             new SynchronousQueue<>(false), threadFactory);
         // Prestart needed, if not all threads will be created by the fist N tasks and hence they might also
         // get the dreaded thread locals initialized even if they will never run.
@@ -118,7 +131,7 @@ public class AsyncExecution {
      * @see com.yahoo.search.searchchain.Execution
      */
     public FutureResult search(Query query) {
-        return getFutureResult(() -> execution.search(query), query);
+        return getFutureResult(() -> execution.search(query), query, () -> new Result(query, busyError()));
     }
 
     public FutureResult searchAndFill(Query query) {
@@ -126,7 +139,7 @@ public class AsyncExecution {
             Result result = execution.search(query);
             execution.fill(result, query.getPresentation().getSummary());
             return result;
-        }, query);
+        }, query, () -> new Result(query, busyError()));
     }
 
     private static Executor getExecutor() {
@@ -142,27 +155,31 @@ public class AsyncExecution {
         return getFutureResult(() -> {
             execution.fill(result, summaryClass);
             return result;
-        }, result.getQuery());
+        }, result.getQuery(), () -> {
+            result.hits().addError(busyError());
+            return result;
+        });
 
     }
 
-    private static <T> Future<T> getFuture(Callable<T> callable) {
-        FutureTask<T> future = new FutureTask<>(callable);
-        getExecutor().execute(future);
+    /**
+     * Returns the future result of running the given callable, or of the given rejection result
+     * if all search threads are busy
+     */
+    private FutureResult getFutureResult(Callable<Result> callable, Query query, Callable<Result> rejectionResult) {
+        FutureResult future = new FutureResult(callable, execution, query);
+        try {
+            getExecutor().execute(future);
+        }
+        catch (RejectedExecutionException e) {
+            future = new FutureResult(rejectionResult, execution, query);
+            future.run(); // Only creates the error result
+        }
         return future;
     }
 
-    private static Future<Void> runTask(Runnable runnable) {
-        return getFuture(() -> {
-            runnable.run();
-            return null;
-        });
-    }
-
-    private FutureResult getFutureResult(Callable<Result> callable, Query query) {
-        FutureResult future = new FutureResult(callable, execution, query);
-        getExecutor().execute(future);
-        return future;
+    private static ErrorMessage busyError() {
+        return ErrorMessage.createNoBackendsInService("All " + maxThreads + " search threads are busy");
     }
 
     /*
@@ -176,13 +193,11 @@ public class AsyncExecution {
     public static List<Result> waitForAll(Collection<FutureResult> tasks, long timeoutMs) {
         // Copy the list in case it is modified while we are waiting
         List<FutureResult> workingTasks = new ArrayList<>(tasks);
-        try {
-            runTask(() -> {
-                for (FutureResult task : workingTasks)
-                    task.get();
-            }).get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            // Handle timeouts below
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (FutureResult task : workingTasks) {
+            long timeLeft = deadline - System.currentTimeMillis();
+            if (timeLeft <= 0) break;
+            task.getIfAvailable(timeLeft, TimeUnit.MILLISECONDS); // Handle timeouts below
         }
 
         List<Result> results = new ArrayList<>(tasks.size());
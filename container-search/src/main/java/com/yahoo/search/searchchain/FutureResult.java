@@ -6,8 +6,11 @@ import com.yahoo.search.Result;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.yolean.Exceptions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +30,12 @@ public class FutureResult extends FutureTask<Result> {
     /** Only used for generating messages */
     private final Execution execution;
 
+    /** Listeners to run when this completes, guarded by this. Null when there are none. */
+    private List<Runnable> completionListeners = null;
+
+    /** Whether this has completed, guarded by this */
+    private boolean completed = false;
+
     private final static Logger log = Logger.getLogger(FutureResult.class.getName());
 
     public FutureResult(Callable<Result> callable, Execution execution, Query query) {
@@ -50,6 +59,9 @@ public class FutureResult extends FutureTask<Result> {
         catch (ExecutionException e) {
             return new Result(getQuery(), createExecutionError(e));
         }
+        catch (CancellationException e) {
+            return new Result(getQuery(), createTimeoutError());
+        }
     }
 
     /** 
@@ -65,7 +77,7 @@ public class FutureResult extends FutureTask<Result> {
 
     /**
      * Same as get(timeout, timeunit) but returns Optional.empty instead of a result with error if the result is 
-     * not available in time
+     * not available in time, or this was cancelled
      */
     public Optional<Result> getIfAvailable(long timeout, TimeUnit timeunit) {
         try {
@@ -80,11 +92,39 @@ public class FutureResult extends FutureTask<Result> {
                 return Optional.empty();
             return Optional.of(new Result(getQuery(), createExecutionError(e)));
         }
-        catch (TimeoutException e) {
+        catch (TimeoutException | CancellationException e) {
             return Optional.empty();
         }
     }
 
+    /**
+     * Runs the given listener when this completes, in the thread completing it,
+     * or immediately in this thread if this is already completed.
+     */
+    public void whenDone(Runnable listener) {
+        synchronized (this) {
+            if ( ! completed) {
+                if (completionListeners == null)
+                    completionListeners = new ArrayList<>(1);
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    @Override
+    protected void done() {
+        List<Runnable> listeners;
+        synchronized (this) {
+            completed = true;
+            listeners = completionListeners;
+            completionListeners = null;
+        }
+        if (listeners != null)
+            listeners.forEach(Runnable::run);
+    }
+
     /** Returns the query used in this execution, never null */
     public Query getQuery() {
         return query;
@@ -3,6 +3,7 @@ package com.yahoo.search.yql;
 
 import com.google.common.annotations.Beta;
 import com.google.inject.Inject;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.processing.IllegalInputException;
@@ -44,8 +45,21 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
     private static final Logger log = Logger.getLogger(MinimalQueryInserter.class.getName());
 
+    /** The cache of parsed programs, or null if programs should not be cached */
+    private final ProgramCache programCache;
+
     @Inject
+    public MinimalQueryInserter(Linguistics linguistics, MinimalQueryInserterConfig config, Metric metric) {
+        this(linguistics, config.programCacheSize() > 0 ? new ProgramCache(config.programCacheSize(), metric) : null);
+    }
+
+    /** Creates an inserter which does not cache parsed programs, as it has no metric to report the cache to */
     public MinimalQueryInserter(Linguistics linguistics) {
+        this(linguistics, (ProgramCache)null);
+    }
+
+    private MinimalQueryInserter(Linguistics linguistics, ProgramCache programCache) {
+        this.programCache = programCache;
         // Warmup is needed to avoid a large 400ms init cost during first execution of yql code.
         warmup(linguistics);
     }
@@ -60,7 +74,7 @@ public class MinimalQueryInserter extends Searcher {
 
     private static boolean warmup(Linguistics linguistics) {
         Query query = new Query("search/?yql=select%20*%20from%20sources%20where%20title%20contains%20'xyz';");
-        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics));
+        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics), null);
         if (result != null) {
             log.warning("Warmup code trigger an error. Error = " + result.toString());
             return false;
@@ -76,7 +90,7 @@ public class MinimalQueryInserter extends Searcher {
     public Result search(Query query, Execution execution) {
         try {
             if (query.properties().get(YQL) == null) return execution.search(query);
-            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()));
+            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()), programCache);
             return (result == null) ? execution.search(query) : result;
         }
         catch (IllegalArgumentException e) {
@@ -84,10 +98,14 @@ public class MinimalQueryInserter extends Searcher {
         }
     }
 
-    private static Result insertQuery(Query query, ParserEnvironment env) {
+    /** Returns the cache of parsed programs used by this, or null if none */
+    ProgramCache programCache() { return programCache; }
+
+    private static Result insertQuery(Query query, ParserEnvironment env, ProgramCache programCache) {
         YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
         parser.setQueryParser(false);
         parser.setUserQuery(query);
+        parser.setProgramCache(programCache);
         QueryTree newTree;
         try {
             Parsable parsable = Parsable.fromQueryModel(query.getModel()).setQuery(query.properties().getString(YQL));
@@ -0,0 +1,65 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.jdisc.Metric;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size bounded cache of parsed YQL programs keyed on their text, which lets queries repeating the same
+ * YQL text (typically with the varying parts passed as parameters) skip parsing the program.
+ * Entries are evicted in least recently used order when the cache is full.
+ * Hits and misses are reported as the metrics yql_program_cache_hits and yql_program_cache_misses.
+ *
+ * The cached programs are shared between all queries using them and must not be modified.
+ * YqlParser only reads the programs it parses.
+ *
+ * This class is multithread safe.
+ */
+class ProgramCache {
+
+    static final String HITS_METRIC = "yql_program_cache_hits";
+    static final String MISSES_METRIC = "yql_program_cache_misses";
+
+    private final int maxEntries;
+
+    /** The cached programs in access order. Access is synchronized on this */
+    private final LinkedHashMap<String, OperatorNode<StatementOperator>> entries;
+
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    ProgramCache(int maxEntries, Metric metric) {
+        this.maxEntries = maxEntries;
+        this.metric = metric;
+        this.metricContext = metric.createContext(null);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OperatorNode<StatementOperator>> eldest) {
+                return size() > ProgramCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Returns the parsed program with the given text, parsing it if it is not cached */
+    OperatorNode<StatementOperator> parse(String program) throws Exception {
+        OperatorNode<StatementOperator> cached;
+        synchronized (this) {
+            cached = entries.get(program);
+        }
+        if (cached != null) {
+            metric.add(HITS_METRIC, 1, metricContext);
+            return cached;
+        }
+        metric.add(MISSES_METRIC, 1, metricContext);
+        OperatorNode<StatementOperator> parsed = new ProgramParser().parse("query", program);
+        synchronized (this) {
+            entries.put(program, parsed);
+        }
+        return parsed;
+    }
+
+    synchronized int size() { return entries.size(); }
+
+}
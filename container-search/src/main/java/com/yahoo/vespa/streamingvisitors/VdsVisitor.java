@@ -35,8 +35,6 @@ import com.yahoo.vespa.objects.BufferSerializer;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,7 +70,8 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
     private int totalHitCount = 0;
 
     private final Map<String, DocumentSummary.Summary> summaryMap = new HashMap<>();
-    private final Map<Integer, Grouping> groupingMap = new ConcurrentHashMap<>();
+    /** The grouping replies received for each grouping request, merged all at once when the groupings are requested */
+    private final Map<Integer, List<Grouping>> groupingMap = new ConcurrentHashMap<>();
     private Query query = null;
     private VisitorSessionFactory visitorSessionFactory;
     private final int traceLevelOverride;
@@ -432,12 +431,7 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
             }
 
             synchronized (groupingMap) {
-                if (groupingMap.containsKey(key)) {
-                    Grouping grouping = groupingMap.get(key);
-                    grouping.merge(newGrouping);
-                } else {
-                    groupingMap.put(key, newGrouping);
-                }
+                groupingMap.computeIfAbsent(key, k -> new ArrayList<>()).add(newGrouping);
             }
         }
     }
@@ -477,12 +471,20 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
 
     @Override
     final public List<Grouping> getGroupings() {
-        Collection<Grouping> groupings = groupingMap.values();
-        for (Grouping g : groupings) {
-            g.postMerge();
+        List<Grouping> groupings = new ArrayList<>(groupingMap.size());
+        synchronized (groupingMap) {
+            for (List<Grouping> replies : groupingMap.values()) {
+                Grouping grouping = replies.get(0);
+                if (replies.size() > 1) {
+                    List<Grouping> others = replies.subList(1, replies.size());
+                    grouping.merge(others);
+                    others.clear();
+                }
+                grouping.postMerge();
+                groupings.add(grouping);
+            }
         }
-        Grouping[] array = groupings.toArray(new Grouping[groupings.size()]);
-        return Arrays.asList(array);
+        return groupings;
     }
 
 }
@@ -516,7 +516,7 @@ public class ClusterSearcherTestCase {
         documentDbConfig.documentdb(new DocumentdbInfoConfig.Documentdb.Builder().name("type1"));
 
         DispatchConfig dispatchConfig = new DispatchConfig.Builder().build();
-        Dispatcher dispatcher = new Dispatcher(new RpcResourcePool(dispatchConfig),
+        Dispatcher dispatcher = new Dispatcher(new RpcResourcePool(dispatchConfig, new MockMetric()),
                                                ComponentId.createAnonymousComponentId("test-id"),
                                                dispatchConfig,
                                                createClusterInfoConfig(),
@@ -171,7 +171,7 @@ public class FastSearcherTestCase {
         b.searchcluster(searchClusterB);
         VipStatus vipStatus = new VipStatus(b.build());
         List<Node> nodes_1 = ImmutableList.of(new Node(0, "host0", 0));
-        RpcResourcePool rpcPool_1 = new RpcResourcePool(MockDispatcher.toDispatchConfig(nodes_1));
+        RpcResourcePool rpcPool_1 = new RpcResourcePool(MockDispatcher.toDispatchConfig(nodes_1), new MockMetric());
         MockDispatcher dispatch_1 = MockDispatcher.create(nodes_1, rpcPool_1, vipStatus);
         dispatch_1.clusterMonitor.shutdown();
         vipStatus.addToRotation(clusterName);
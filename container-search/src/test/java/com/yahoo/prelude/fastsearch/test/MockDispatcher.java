@@ -18,7 +18,7 @@ class MockDispatcher extends Dispatcher {
     public final ClusterMonitor clusterMonitor;
 
     public static MockDispatcher create(List<Node> nodes) {
-        var rpcResourcePool = new RpcResourcePool(toDispatchConfig(nodes));
+        var rpcResourcePool = new RpcResourcePool(toDispatchConfig(nodes), new MockMetric());
 
         return create(nodes, rpcResourcePool, new VipStatus());
     }
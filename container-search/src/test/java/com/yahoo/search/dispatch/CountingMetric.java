@@ -0,0 +1,27 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** A metric which counts the values added to each key, ignoring context */
+class CountingMetric implements Metric {
+
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    @Override
+    public void set(String key, Number val, Context ctx) { }
+
+    @Override
+    public void add(String key, Number val, Context ctx) {
+        counts.merge(key, val.intValue(), Integer::sum);
+    }
+
+    @Override
+    public Context createContext(Map<String, ?> properties) { return null; }
+
+    int count(String key) { return counts.getOrDefault(key, 0); }
+
+}
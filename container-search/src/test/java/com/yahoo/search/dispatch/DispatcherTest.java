@@ -159,7 +159,8 @@ public class DispatcherTest {
                                                            OptionalInt groupId,
                                                            List<Node> nodes,
                                                            boolean acceptIncompleteCoverage,
-                                                           int maxHitsPerNode) {
+                                                           int maxHitsPerNode,
+                                                           Hedging hedging) {
             if (step >= events.length) {
                 throw new RuntimeException("Was not expecting more calls to getSearchInvoker");
             }
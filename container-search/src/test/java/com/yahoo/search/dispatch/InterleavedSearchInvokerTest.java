@@ -7,6 +7,8 @@ import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.GroupingListHit;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
 import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.DefaultErrorHit;
@@ -14,6 +16,7 @@ import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.Relevance;
 import com.yahoo.test.ManualClock;
+import com.yahoo.vespa.config.search.DispatchConfig;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -25,6 +28,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
@@ -255,6 +259,20 @@ public class InterleavedSearchInvokerTest {
         assertEquals(12, result.getQuery().getHits());
     }
 
+    @Test
+    public void requireThatDuplicatesFromOverlappingRepliesDoNotReduceHitCount() throws IOException {
+        List<Double> overlapping = Arrays.asList(11.0, 8.5, 8.0, 7.5, 6.0);
+        InterleavedSearchInvoker invoker = createInterLeavedTestInvoker(A5, overlapping, true);
+        query.setHits(5);
+        Result result = invoker.search(query, null);
+        assertEquals(5, result.hits().size());
+        assertEquals(11.0, result.hits().get(0).getRelevance().getScore(), DELTA);
+        assertEquals(8.5, result.hits().get(1).getRelevance().getScore(), DELTA);
+        assertEquals(8.0, result.hits().get(2).getRelevance().getScore(), DELTA);
+        assertEquals(7.5, result.hits().get(3).getRelevance().getScore(), DELTA);
+        assertEquals(6.0, result.hits().get(4).getRelevance().getScore(), DELTA);
+    }
+
     @Test
     public void requireThatMergeOfConcreteHitsObeyOffset() throws IOException {
         InterleavedSearchInvoker invoker = createInterLeavedTestInvoker(A5, B5, true);
@@ -353,12 +371,101 @@ public class InterleavedSearchInvokerTest {
         assertThat(cov.isDegradedByTimeout(), is(true));
     }
 
+    @Test
+    public void requireThatSlowRequestsAreHedged() throws IOException {
+        DispatchConfig config = new DispatchConfig(new DispatchConfig.Builder(createDispatchConfig()).hedgingPercentile(90.0)
+                                                                                                      .hedgingMinDelay(0));
+        SearchCluster cluster = new MockSearchCluster("!", config, 2, 1);
+        CountingMetric metric = new CountingMetric();
+        AllocationCountingLoadBalancer loadBalancer = new AllocationCountingLoadBalancer(cluster, config);
+        Hedging hedging = new Hedging(cluster, loadBalancer, config, metric, null);
+        assertTrue(hedging.isEnabled());
+        for (int i = 0; i < 100; i++)
+            hedging.recordLatency(10);
+        Hedging.Requests hedgedRequests = hedging.forQuery(query, node -> {
+            assertEquals(1, node.key());
+            SearchInvoker hedge = new MockInvoker(node.key(), createCoverage(50000, 50000, 50000, 1, 1, 0));
+            invokers.add(hedge);
+            return Optional.of(hedge);
+        }).get();
+
+        invokers.add(new MockInvoker(0, createCoverage(50000, 50000, 50000, 1, 1, 0)));
+        SearchInvoker invoker = createInterleavedInvoker(cluster, 0, hedgedRequests);
+
+        expectedEvents.add(new Event(10, 10, null)); // hedging delay passes: The request to node 0 is hedged to node 1
+        expectedEvents.add(new Event(4990, 3, 1)); // the hedged request responds first
+
+        Result result = invoker.search(query, null);
+
+        assertTrue("All test scenario events processed", expectedEvents.isEmpty());
+        assertEquals(2, invokers.size());
+        assertEquals(1, metric.count("dispatch_hedged_requests"));
+        assertEquals(1, metric.count("dispatch_hedged_requests_won"));
+        assertEquals("The hedged request is sent to the group taken from the load balancer", 1, loadBalancer.taken);
+        assertEquals("The group is released when the hedged request responds", 1, loadBalancer.released);
+        Coverage coverage = result.getCoverage(true);
+        assertEquals(50000L, coverage.getDocs());
+        assertTrue(coverage.getFull());
+    }
+
+    @Test
+    public void requireThatRequestsAreNotHedgedInGroupsOfMultipleNodes() {
+        DispatchConfig config = new DispatchConfig(new DispatchConfig.Builder(createDispatchConfig()).hedgingPercentile(90.0));
+        SearchCluster cluster = new MockSearchCluster("!", config, 2, 2);
+        Hedging hedging = new Hedging(cluster, new AllocationCountingLoadBalancer(cluster, config), config, new CountingMetric(), null);
+        assertFalse(hedging.isEnabled());
+        for (Node node : cluster.groups().get(0).nodes())
+            assertTrue(hedging.takeAlternativeTo(node).isEmpty());
+    }
+
+    @Test
+    public void requireThatRequestsAreNotHedgedWithoutEnoughLatencySamples() {
+        DispatchConfig config = new DispatchConfig(new DispatchConfig.Builder(createDispatchConfig()).hedgingPercentile(90.0));
+        SearchCluster cluster = new MockSearchCluster("!", config, 2, 1);
+        Hedging hedging = new Hedging(cluster, new AllocationCountingLoadBalancer(cluster, config), config, new CountingMetric(), null);
+        assertTrue(hedging.isEnabled());
+        for (int i = 0; i < 99; i++)
+            hedging.recordLatency(10);
+        assertTrue(hedging.forQuery(query, node -> Optional.empty()).isEmpty());
+        hedging.recordLatency(10);
+        assertTrue(hedging.forQuery(query, node -> Optional.empty()).isPresent());
+    }
+
+    private static class AllocationCountingLoadBalancer extends LoadBalancer {
+
+        int taken = 0;
+        int released = 0;
+
+        AllocationCountingLoadBalancer(SearchCluster cluster, DispatchConfig config) {
+            super(cluster, config.distributionPolicy());
+        }
+
+        @Override
+        public Optional<Group> takeGroup(Set<Integer> rejectedGroups) {
+            Optional<Group> group = super.takeGroup(rejectedGroups);
+            if (group.isPresent()) taken++;
+            return group;
+        }
+
+        @Override
+        public void releaseGroup(Group group, boolean success, double searchTimeMs) {
+            super.releaseGroup(group, success, searchTimeMs);
+            released++;
+        }
+
+    }
+
     private InterleavedSearchInvoker createInterleavedInvoker(SearchCluster searchCluster, int numInvokers) {
+        return createInterleavedInvoker(searchCluster, numInvokers, null);
+    }
+
+    private InterleavedSearchInvoker createInterleavedInvoker(SearchCluster searchCluster, int numInvokers,
+                                                              Hedging.Requests hedgedRequests) {
         for (int i = 0; i < numInvokers; i++) {
             invokers.add(new MockInvoker(i));
         }
 
-        return new InterleavedSearchInvoker(invokers, false, searchCluster, null) {
+        return new InterleavedSearchInvoker(invokers, false, searchCluster, null, hedgedRequests) {
             @Override
             protected long currentTime() {
                 return clock.millis();
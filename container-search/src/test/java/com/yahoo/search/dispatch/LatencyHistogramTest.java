@@ -0,0 +1,61 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofMinutes(1));
+        assertEquals(0, histogram.percentile(99));
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i);
+        assertEquals(1000, histogram.count());
+        assertWithin(500, histogram.percentile(50));
+        assertWithin(950, histogram.percentile(95));
+        assertWithin(1000, histogram.percentile(100));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (int bucket = 1; bucket < 200; bucket++)
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(bucket - 1) + 1));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testOldLatenciesAreForgotten() {
+        AtomicLong nanos = new AtomicLong();
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofSeconds(10), nanos::get);
+        for (int i = 0; i < 100; i++)
+            histogram.record(1000);
+
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        for (int i = 0; i < 100; i++)
+            histogram.record(10);
+        assertEquals(200, histogram.count());
+        assertEquals(10, histogram.percentile(50));
+        assertWithin(1000, histogram.percentile(90));
+
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(100, histogram.count());
+        assertEquals(10, histogram.percentile(90));
+
+        nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertEquals(0, histogram.count());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                   actual >= expected && actual <= expected + expected / 8);
+    }
+
+}
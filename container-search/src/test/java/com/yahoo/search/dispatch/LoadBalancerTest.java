@@ -3,6 +3,7 @@ package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
+import com.yahoo.search.dispatch.LoadBalancer.LatencyAwareScheduler;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
@@ -14,11 +15,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 import static com.yahoo.search.dispatch.MockSearchCluster.createDispatchConfig;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
@@ -156,6 +159,100 @@ public class LoadBalancerTest {
         assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(4));
     }
 
+    @Test
+    public void requireThatLatencyAwareSchedulerAvoidsGroupsWithSlowTail() {
+        List<GroupStatus> scoreboard = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            scoreboard.add(newGroupStatus(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            updateSearchTime(scoreboard.get(0), i % 10 == 0 ? 0.4 : 0.001);
+            updateSearchTime(scoreboard.get(1), 0.01);
+        }
+        assertThat(scoreboard.get(0).averageSearchTime(), lessThan(0.1));
+        assertThat(scoreboard.get(0).tailSearchTime(), closeTo(0.415, 0.001));
+        assertThat(scoreboard.get(1).tailSearchTime(), closeTo(0.01, 0.0001));
+
+        LatencyAwareScheduler sched = new LatencyAwareScheduler(sequence(0, 1), scoreboard);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(Set.of(1)).get().groupId(), equalTo(0));
+    }
+
+    @Test
+    public void requireThatLatencyAwareSchedulerUsesTheAverageOfGroupsWithoutTails() {
+        List<GroupStatus> scoreboard = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            scoreboard.add(newGroupStatus(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            updateSearchTime(scoreboard.get(0), 0.01);
+        }
+        scoreboard.get(0).setQueryStatistics(100, 0.005);
+        scoreboard.get(1).setQueryStatistics(5, 0.008); // restarted: No tail yet
+        assertThat(scoreboard.get(0).tailSearchTime(), closeTo(0.01, 0.0001));
+        assertThat(scoreboard.get(1).tailSearchTime(), closeTo(0.008, 0.0001));
+
+        LatencyAwareScheduler sched = new LatencyAwareScheduler(sequence(0, 1), scoreboard);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+
+        for (int i = 0; i < 100; i++) {
+            updateSearchTime(scoreboard.get(1), 0.02);
+        }
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(0));
+    }
+
+    @Test
+    public void requireThatLatencyAwareSchedulerKeepsComparingTailsWhenAGroupIsStarved() {
+        List<GroupStatus> scoreboard = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scoreboard.add(newGroupStatus(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            updateSearchTime(scoreboard.get(1), i % 10 == 0 ? 0.4 : 0.001);
+            updateSearchTime(scoreboard.get(2), 0.01);
+        }
+        scoreboard.get(0).setQueryStatistics(1000, 0.005); // avoided until its recent search times expired
+        scoreboard.get(1).setQueryStatistics(100, 0.002);
+        scoreboard.get(2).setQueryStatistics(100, 0.01);
+        assertThat(scoreboard.get(0).hasTailSearchTime(), is(false));
+
+        LatencyAwareScheduler sched = new LatencyAwareScheduler(sequence(0), scoreboard);
+        assertThat("The starved group is tried again", sched.takeNextGroup(null).get().groupId(), equalTo(0));
+        assertThat("The other groups are still compared by their tails, not their averages",
+                   sched.takeNextGroup(Set.of(0)).get().groupId(), equalTo(2));
+    }
+
+    @Test
+    public void requireThatSearchTimesAreOnlyRecordedForTheLatencyAwarePolicy() {
+        GroupStatus gs = new GroupStatus(new Group(0, Collections.emptyList()), false);
+        for (int i = 0; i < 100; i++) {
+            updateSearchTime(gs, 0.01);
+        }
+        assertThat(gs.hasTailSearchTime(), is(false));
+        assertThat(gs.tailSearchTime(), equalTo(gs.averageSearchTime()));
+    }
+
+    @Test
+    public void requireThatLatencyAwareSchedulerSpreadsQueriesInFlight() {
+        List<GroupStatus> scoreboard = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            GroupStatus gs = newGroupStatus(i);
+            gs.setQueryStatistics(1, 0.1);
+            scoreboard.add(gs);
+        }
+        LatencyAwareScheduler sched = new LatencyAwareScheduler(sequence(0), scoreboard);
+
+        for (int expected : new int[] { 0, 1, 2, 0, 1 }) {
+            GroupStatus gs = sched.takeNextGroup(null).get();
+            assertThat(gs.groupId(), equalTo(expected));
+            gs.allocate();
+        }
+        scoreboard.get(0).setQueryStatistics(1, 0.01);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(0));
+    }
+
     private static void updateSearchTime(GroupStatus gs, double time) {
         gs.allocate();
         gs.release(true, time);
@@ -168,7 +265,23 @@ public class LoadBalancerTest {
                 return true;
             }
         };
-        return new GroupStatus(dummyGroup);
+        return new GroupStatus(dummyGroup, true);
+    }
+
+    private Random sequence(int... values) {
+        return new Random() {
+            private int index = 0;
+
+            @Override
+            public int nextInt(int bound) {
+                int retv = values[index] % bound;
+                index++;
+                if (index >= values.length) {
+                    index = 0;
+                }
+                return retv;
+            }
+        };
     }
 
     private Random sequence(double... values) {
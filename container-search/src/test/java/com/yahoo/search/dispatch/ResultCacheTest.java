@@ -0,0 +1,229 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.cluster.ClusterMonitor;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.test.ManualClock;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+
+    private final ManualClock clock = new ManualClock(Instant.now());
+
+    @Test
+    public void requireThatRepeatedQueriesAreServedFromCache() throws Exception {
+        CountingInvokerFactory factory = new CountingInvokerFactory();
+        CountingMetric metric = new CountingMetric();
+        Dispatcher dispatcher = createDispatcher(factory, metric, 10, 1.0);
+
+        Result first = search(dispatcher, "?query=foo&hits=2");
+        Result second = search(dispatcher, "?query=foo&hits=2");
+        assertEquals(1, factory.invokersCreated);
+        assertEquals(3, second.getHitCount());
+        assertEquals(first.hits().get(0).getId(), second.hits().get(0).getId());
+        assertEquals(first.getTotalHitCount(), second.getTotalHitCount());
+        assertEquals(100, second.getCoverage(false).getDocs());
+        assertEquals(1, metric.count("dispatch_result_cache_misses"));
+        assertEquals(1, metric.count("dispatch_result_cache_hits"));
+
+        search(dispatcher, "?query=bar&hits=2");
+        search(dispatcher, "?query=foo&hits=3");
+        assertEquals("Different requests are not cached together", 3, factory.invokersCreated);
+        dispatcher.deconstruct();
+    }
+
+    @Test
+    public void requireThatCachedResultsExpire() throws Exception {
+        CountingInvokerFactory factory = new CountingInvokerFactory();
+        Dispatcher dispatcher = createDispatcher(factory, new CountingMetric(), 10, 1.0);
+
+        search(dispatcher, "?query=foo");
+        clock.advance(Duration.ofMillis(500));
+        search(dispatcher, "?query=foo");
+        assertEquals(1, factory.invokersCreated);
+
+        clock.advance(Duration.ofMillis(501));
+        search(dispatcher, "?query=foo");
+        assertEquals(2, factory.invokersCreated);
+
+        clock.advance(Duration.ofMillis(200));
+        search(dispatcher, "?query=foo");
+        assertEquals(2, factory.invokersCreated);
+        dispatcher.deconstruct();
+    }
+
+    @Test
+    public void requireThatCacheControlIsHonoured() throws Exception {
+        CountingInvokerFactory factory = new CountingInvokerFactory();
+        Dispatcher dispatcher = createDispatcher(factory, new CountingMetric(), 10, 10.0);
+
+        search(dispatcher, "?query=foo&cachecontrol.nocache=true");
+        search(dispatcher, "?query=foo&noCache=true");
+        assertEquals(2, factory.invokersCreated);
+
+        search(dispatcher, "?query=foo");
+        search(dispatcher, "?query=foo&noCache=true");
+        assertEquals(4, factory.invokersCreated);
+
+        clock.advance(Duration.ofSeconds(2));
+        search(dispatcher, "?query=foo");
+        assertEquals(4, factory.invokersCreated);
+        search(dispatcher, "?query=foo&cachecontrol.maxage=1");
+        assertEquals("Too old for this query", 5, factory.invokersCreated);
+        search(dispatcher, "?query=foo&cachecontrol.maxage=1");
+        assertEquals(5, factory.invokersCreated);
+        dispatcher.deconstruct();
+    }
+
+    @Test
+    public void requireThatIncompleteResultsAreNotCached() throws Exception {
+        CountingInvokerFactory factory = new CountingInvokerFactory();
+        Dispatcher dispatcher = createDispatcher(factory, new CountingMetric(), 10, 1.0);
+
+        factory.coverage = new Coverage(50, 100, 1);
+        search(dispatcher, "?query=foo");
+        search(dispatcher, "?query=foo");
+        assertEquals(2, factory.invokersCreated);
+
+        factory.coverage = new Coverage(100, 100, 1);
+        factory.error = true;
+        search(dispatcher, "?query=foo");
+        search(dispatcher, "?query=foo");
+        assertEquals(4, factory.invokersCreated);
+
+        factory.error = false;
+        search(dispatcher, "?query=foo&tracelevel=1");
+        search(dispatcher, "?query=foo&tracelevel=1");
+        assertEquals(6, factory.invokersCreated);
+        dispatcher.deconstruct();
+    }
+
+    @Test
+    public void requireThatCacheIsDisabledByDefault() throws Exception {
+        CountingInvokerFactory factory = new CountingInvokerFactory();
+        Dispatcher dispatcher = createDispatcher(factory, new CountingMetric(), 0, 1.0);
+        search(dispatcher, "?query=foo");
+        search(dispatcher, "?query=foo");
+        assertEquals(2, factory.invokersCreated);
+        dispatcher.deconstruct();
+    }
+
+    @Test
+    public void requireThatEntriesAreEvictedInLeastRecentlyUsedOrder() {
+        ResultCache cache = new ResultCache(2, Duration.ofSeconds(1), clock);
+        Query query = new Query("?query=foo");
+        ResultCache.Key a = new ResultCache.Key(new byte[] { 1 });
+        ResultCache.Key b = new ResultCache.Key(new byte[] { 2 });
+        ResultCache.Key c = new ResultCache.Key(new byte[] { 3 });
+        cache.put(a, entry(0));
+        cache.put(b, entry(0));
+        assertTrue(cache.get(a, query, 0).isPresent());
+        cache.put(c, entry(0));
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(a, query, 0).isPresent());
+        assertFalse(cache.get(b, query, 0).isPresent());
+        assertTrue(cache.get(new ResultCache.Key(new byte[] { 3 }), query, 0).isPresent());
+    }
+
+    @Test
+    public void requireThatEntriesFromAnotherClusterStateAreInvalid() {
+        ResultCache cache = new ResultCache(2, Duration.ofSeconds(1), clock);
+        Query query = new Query("?query=foo");
+        ResultCache.Key key = new ResultCache.Key(new byte[] { 1 });
+        cache.put(key, entry(3));
+        assertTrue(cache.get(key, query, 3).isPresent());
+        assertFalse(cache.get(key, query, 4).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    private ResultCache.Entry entry(long clusterStateVersion) {
+        return new ResultCache.Entry(List.of(), 0, new Coverage(1, 1, 1), 0, clock.instant(), clusterStateVersion);
+    }
+
+    private Dispatcher createDispatcher(CountingInvokerFactory factory, Metric metric, int cacheSize, double ttl) {
+        SearchCluster cluster = factory.cluster;
+        DispatchConfig config = new DispatchConfig(new DispatchConfig.Builder(MockSearchCluster.createDispatchConfig())
+                                                           .resultCacheSize(cacheSize)
+                                                           .resultCacheTtl(ttl));
+        return new Dispatcher(new ClusterMonitor<>(cluster, false), cluster, config, factory, metric, clock);
+    }
+
+    private static Result search(Dispatcher dispatcher, String request) throws Exception {
+        Query query = new Query(request);
+        try (SearchInvoker invoker = dispatcher.getSearchInvoker(query, null)) {
+            Result result = invoker.search(query, null);
+            assertNotNull(result);
+            return result;
+        }
+    }
+
+    private static class CountingInvokerFactory extends InvokerFactory {
+
+        final SearchCluster cluster;
+        int invokersCreated = 0;
+        Coverage coverage = new Coverage(100, 100, 1);
+        boolean error = false;
+
+        CountingInvokerFactory() {
+            this(new MockSearchCluster("test", 1, 1));
+        }
+
+        private CountingInvokerFactory(SearchCluster cluster) {
+            super(cluster);
+            this.cluster = cluster;
+        }
+
+        @Override
+        public Optional<SearchInvoker> createSearchInvoker(VespaBackEndSearcher searcher,
+                                                           Query query,
+                                                           OptionalInt groupId,
+                                                           List<Node> nodes,
+                                                           boolean acceptIncompleteCoverage,
+                                                           int maxHitsPerNode,
+                                                           Hedging hedging) {
+            invokersCreated++;
+            if (error)
+                return Optional.of(new SearchErrorInvoker(ErrorMessage.createBackendCommunicationError("test")));
+            return Optional.of(new MockInvoker(0, coverage).setHits(List.<Hit>of(hit(1, 3.0), hit(2, 2.0), hit(3, 1.0))));
+        }
+
+        private static FastHit hit(int id, double relevance) {
+            byte[] gid = new byte[12];
+            gid[0] = (byte)id;
+            return new FastHit(gid, relevance, 0, 0);
+        }
+
+        @Override
+        protected Optional<SearchInvoker> createNodeSearchInvoker(VespaBackEndSearcher searcher, Query query, int maxHitsPerNode, Node node) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FillInvoker createFillInvoker(VespaBackEndSearcher searcher, Result result) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopKHitsTest {
+
+    @Test
+    public void testKeepsTheBestHitsInOrder() {
+        Random random = new Random(7);
+        List<LeanHit> all = new ArrayList<>();
+        TopKHits topK = new TopKHits(25);
+        for (int node = 0; node < 10; node++) {
+            List<LeanHit> nodeHits = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                nodeHits.add(new LeanHit(gid(node * 100 + i), 0, node, random.nextDouble()));
+            }
+            Collections.sort(nodeHits);
+            all.addAll(nodeHits);
+            topK.addSorted(nodeHits);
+        }
+        Collections.sort(all);
+        assertEquals(25, topK.size());
+        assertEquals(all.subList(0, 25), topK.toSortedList());
+        assertEquals(0, topK.size());
+    }
+
+    @Test
+    public void testOrderingBySortData() {
+        TopKHits topK = new TopKHits(3);
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 0, 1.0, new byte[] { 'b' }),
+                               new LeanHit(gid(2), 0, 0, 5.0, new byte[] { 'd' })));
+        topK.addSorted(List.of(new LeanHit(gid(3), 0, 0, 9.0, new byte[] { 'a' }),
+                               new LeanHit(gid(4), 0, 0, 0.0, new byte[] { 'c' }),
+                               new LeanHit(gid(5), 0, 0, 0.0, new byte[] { 'e' })));
+        assertEquals(List.of(3, 1, 4), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testDuplicatesAreRemoved() {
+        TopKHits topK = new TopKHits(10);
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 0, 3.0), new LeanHit(gid(2), 0, 0, 2.0)));
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 1, 3.0), new LeanHit(gid(3), 0, 1, 1.0)));
+        assertEquals(List.of(1, 2, 3), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testDuplicatesDoNotDisplaceOtherHits() {
+        TopKHits topK = new TopKHits(3);
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 0, 5.0), new LeanHit(gid(2), 0, 0, 4.0)));
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 1, 5.0), new LeanHit(gid(2), 0, 1, 4.0),
+                               new LeanHit(gid(3), 0, 1, 3.0), new LeanHit(gid(4), 0, 1, 2.0)));
+        topK.addSorted(List.of(new LeanHit(gid(3), 0, 2, 3.0), new LeanHit(gid(5), 0, 2, 1.0)));
+        assertEquals(List.of(1, 2, 3), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testDuplicateIsDetectedAfterAnotherHitOfTheSameDocumentIsEvicted() {
+        TopKHits topK = new TopKHits(2);
+        assertTrue(topK.add(new LeanHit(gid(1), 0, 0, 5.0)));
+        assertTrue(topK.add(new LeanHit(gid(1), 0, 1, 1.0))); // same document, other rank: kept
+        assertTrue(topK.add(new LeanHit(gid(2), 0, 1, 3.0))); // evicts the one ranked 1.0
+        assertTrue(topK.add(new LeanHit(gid(1), 0, 2, 5.0))); // duplicate of the one ranked 5.0
+        assertEquals(List.of(1, 2), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testDuplicatesAreRemovedWithManyHits() {
+        Random random = new Random(11);
+        List<LeanHit> unique = new ArrayList<>();
+        TopKHits topK = new TopKHits(100);
+        for (int i = 0; i < 1000; i++)
+            unique.add(new LeanHit(gid(i), 0, 0, random.nextInt(50)));
+        for (int node = 0; node < 3; node++) {
+            List<LeanHit> nodeHits = new ArrayList<>(unique);
+            Collections.sort(nodeHits);
+            topK.addSorted(nodeHits);
+        }
+        Collections.sort(unique);
+        assertEquals(ids(unique.subList(0, 100)), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testWorseHitsAreRejected() {
+        TopKHits topK = new TopKHits(2);
+        assertTrue(topK.add(new LeanHit(gid(1), 0, 0, 2.0)));
+        assertTrue(topK.add(new LeanHit(gid(2), 0, 0, 3.0)));
+        assertFalse(topK.add(new LeanHit(gid(3), 0, 0, 1.0)));
+        assertFalse(topK.add(new LeanHit(gid(1), 0, 0, 2.0)));
+        assertTrue(topK.add(new LeanHit(gid(4), 0, 0, 4.0)));
+        assertEquals(List.of(4, 2), ids(topK.toSortedList()));
+    }
+
+    @Test
+    public void testNoHitsAreKeptWhenNoneAreWanted() {
+        TopKHits topK = new TopKHits(0);
+        topK.addSorted(List.of(new LeanHit(gid(1), 0, 0, 2.0)));
+        assertTrue(topK.toSortedList().isEmpty());
+    }
+
+    private static byte[] gid(int id) {
+        return new byte[] { (byte)(id >> 8), (byte)id };
+    }
+
+    private static List<Integer> ids(List<LeanHit> hits) {
+        return hits.stream().map(hit -> ((hit.getGid()[0] & 0xff) << 8) | (hit.getGid()[1] & 0xff)).collect(Collectors.toList());
+    }
+
+}
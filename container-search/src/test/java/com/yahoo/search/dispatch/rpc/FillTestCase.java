@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
 
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.prelude.fastsearch.DocsumDefinition;
 import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
 import com.yahoo.prelude.fastsearch.DocsumField;
@@ -35,7 +36,7 @@ public class FillTestCase {
         nodes.put(0, client.createConnection("host0", 123));
         nodes.put(1, client.createConnection("host1", 123));
         nodes.put(2, client.createConnection("host2", 123));
-        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes, new MockMetric());
         RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null);
 
         Query query = new Query();
@@ -72,7 +73,7 @@ public class FillTestCase {
         nodes.put(0, client.createConnection("host0", 123));
         nodes.put(1, client.createConnection("host1", 123));
         nodes.put(2, client.createConnection("host2", 123));
-        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes, new MockMetric());
         RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null);
 
         Query query = new Query();
@@ -112,7 +113,7 @@ public class FillTestCase {
         nodes.put(0, client.createConnection("host0", 123));
         nodes.put(1, client.createConnection("host1", 123));
         nodes.put(2, client.createConnection("host2", 123));
-        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes, new MockMetric());
         RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null);
 
         Query query = new Query();
@@ -152,7 +153,7 @@ public class FillTestCase {
 
         Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
         nodes.put(0, client.createConnection("host0", 123));
-        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes, new MockMetric());
         RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null);
 
         Query query = new Query();
@@ -170,7 +171,7 @@ public class FillTestCase {
 
         Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
         nodes.put(0, client.createConnection("host0", 123));
-        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes, new MockMetric());
         RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null);
 
         Query query = new Query();
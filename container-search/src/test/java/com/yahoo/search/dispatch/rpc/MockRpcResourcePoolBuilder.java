@@ -2,6 +2,7 @@
 package com.yahoo.search.dispatch.rpc;
 
 import com.yahoo.compress.CompressionType;
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.search.dispatch.rpc.Client.NodeConnection;
 import com.yahoo.search.dispatch.rpc.Client.ResponseReceiver;
@@ -24,7 +25,7 @@ public class MockRpcResourcePoolBuilder {
     }
 
     public RpcResourcePool build() {
-        return new RpcResourcePool(nodeConnections);
+        return new RpcResourcePool(nodeConnections, new MockMetric());
     }
 
     private static class MockNodeConnection implements NodeConnection {
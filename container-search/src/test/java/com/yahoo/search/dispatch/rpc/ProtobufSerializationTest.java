@@ -97,4 +97,23 @@ public class ProtobufSerializationTest {
             hitNum++;
         }
     }
+
+    @Test
+    public void testSearchReplyDecodingRefersToPayload() throws IOException {
+        Query q = new Query("search/?query=test");
+        byte [] payload = createSearchReply(3, true).toByteArray();
+        InvokerResult result = ProtobufSerialization.convertToResult(q, ProtobufSerialization.parseSearchReply(payload), null, 1, 2);
+        LeanHit hit = result.getLeanHits().get(0);
+        LeanHit detached = hit.detached();
+        assertEquals(0, hit.compareTo(detached));
+
+        for (int i = 0; i < payload.length; i++) {
+            if (payload[i] == 'a') payload[i] = 'c';
+            if (payload[i] == 'b') payload[i] = 'd';
+        }
+        assertEquals('c', hit.getGid()[0]);
+        assertEquals('d', hit.getSortData()[0]);
+        assertEquals('a', detached.getGid()[0]);
+        assertEquals('b', detached.getSortData()[0]);
+    }
 }
@@ -0,0 +1,64 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor.Compression;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.search.Query;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RpcResourcePoolTest {
+
+    private static final byte[] payload = "query tree blob ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testConfiguredCompressionIsUsedAndReported() {
+        MockMetric metric = new MockMetric();
+        DispatchConfig config = new DispatchConfig.Builder().compression(DispatchConfig.Compression.Enum.ZSTD).build();
+        RpcResourcePool pool = new RpcResourcePool(config, metric);
+        try {
+            Compression compression = pool.compress(new Query(), payload, RpcResourcePool.Payload.SEARCH_REQUEST);
+            assertEquals(CompressionType.ZSTD, compression.type());
+            double ratio = ratio("search_request", metric);
+            assertEquals((double)compression.data().length / payload.length, ratio, 1e-9);
+            assertTrue(ratio < 0.1);
+
+            byte[] decompressed = pool.decompress(compression.data(), compression.type(), payload.length,
+                                                  RpcResourcePool.Payload.DOCSUM_RESPONSE);
+            assertArrayEquals(payload, decompressed);
+            assertEquals(ratio, ratio("docsum_response", metric), 1e-9);
+
+            assertEquals(CompressionType.LZ4, pool.compressionType(new Query("?dispatch.compression=lz4")));
+        }
+        finally {
+            pool.deconstruct();
+        }
+    }
+
+    @Test
+    public void testUncompressedPayloadsAreNotReported() {
+        MockMetric metric = new MockMetric();
+        RpcResourcePool pool = new RpcResourcePool(new DispatchConfig.Builder().build(), metric);
+        try {
+            Compression compression = pool.compress(new Query("?dispatch.compression=none"), payload, RpcResourcePool.Payload.DOCSUM_REQUEST);
+            assertEquals(CompressionType.NONE, compression.type());
+            assertTrue(metric.metrics().isEmpty());
+        }
+        finally {
+            pool.deconstruct();
+        }
+    }
+
+    private static double ratio(String payload, MockMetric metric) {
+        return metric.metrics().get("dispatch_compression_ratio").get(Map.of("payload", payload));
+    }
+
+}
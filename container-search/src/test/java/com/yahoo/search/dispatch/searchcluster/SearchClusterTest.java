@@ -179,6 +179,20 @@ public class SearchClusterTest {
         }
     }
 
+    @Test
+    public void requireThatStateVersionChangesWhenNodesChangeState() {
+        try (State test = new State("cluster.1", 2, "a", "b")) {
+            test.waitOneFullPingRound();
+            long initialVersion = test.searchCluster.stateVersion();
+            test.waitOneFullPingRound();
+            assertEquals(initialVersion, test.searchCluster.stateVersion());
+
+            test.numDocsPerNode.get(0).set(-1);
+            test.waitOneFullPingRound();
+            assertTrue(test.searchCluster.stateVersion() > initialVersion);
+        }
+    }
+
     @Test
     public void requireThatVipStatusIsDefaultDownWithLocalDispatch() {
         try (State test = new State("cluster.1", 1, HostName.getLocalhost(), "b")) {
@@ -13,12 +13,15 @@ import com.yahoo.search.searchchain.model.federation.FederationOptions;
 import com.yahoo.test.ManualClock;
 import org.junit.Test;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -44,6 +47,96 @@ public class FederationResultTest {
         assertTimeout(ImmutableSet.of("organic"),      520, 260, 260);
     }
 
+    @Test
+    public void testFederationResultReturnsWhenQuorumIsReached() {
+        CountDownLatch slowTargetBlocked = new CountDownLatch(1);
+        FederationSearcher.Target slow = new MockTarget("slow", 60000);
+        FederationResult.Builder builder = new FederationResult.Builder(2 / 3.0, Clock.systemUTC());
+        builder.add(new MockTarget("fast1", 60000), resultWhen(new CountDownLatch(0)));
+        builder.add(new MockTarget("fast2", 60000), resultWhen(new CountDownLatch(0)));
+        builder.add(slow, resultWhen(slowTargetBlocked));
+        FederationResult federationResult = builder.build();
+
+        federationResult.waitForAll(60000, Clock.systemUTC());
+        for (FederationResult.TargetResult targetResult : federationResult.all()) {
+            boolean isSlow = targetResult.target == slow;
+            assertEquals(isSlow, targetResult.isCutShort());
+            assertEquals(isSlow, timedOut(targetResult.getOrTimeoutError()));
+            assertEquals(isSlow, ! targetResult.successfullyCompleted());
+        }
+    }
+
+    @Test
+    public void testFederationResultWithAdaptiveTimeout() {
+        TargetLatency latency = new TargetLatency();
+        for (int i = 0; i < TargetLatency.minSamples - 1; i++)
+            latency.add(10);
+        assertTrue(latency.timeout().isEmpty());
+        latency.add(10);
+        assertTrue(latency.timeout().getAsLong() < 20);
+
+        CountDownLatch targetBlocked = new CountDownLatch(1);
+        FederationResult.Builder builder = new FederationResult.Builder(1.0, Clock.systemUTC());
+        builder.add(organic, resultWhen(targetBlocked), latency);
+        FederationResult federationResult = builder.build();
+
+        federationResult.waitForAll(60000, Clock.systemUTC());
+        FederationResult.TargetResult targetResult = federationResult.all().get(0);
+        assertTrue(targetResult.isCutShort());
+        assertTrue(timedOut(targetResult.getOrTimeoutError()));
+
+        targetBlocked.countDown();
+        assertFalse("The late target is cancelled", targetResult.successfullyCompleted());
+        assertTrue(targetResult.getIfAvailable(60000).isEmpty());
+        assertTrue(timedOut(targetResult.getOrTimeoutError()));
+    }
+
+    @Test
+    public void testOptionalTargetsDoNotCountTowardsTheQuorum() {
+        CountDownLatch mandatoryTargetBlocked = new CountDownLatch(1);
+        FederationSearcher.Target mandatory = new MockTarget("mandatory", 60000);
+        FederationResult.Builder builder = new FederationResult.Builder(0.5, Clock.systemUTC());
+        builder.add(mandatory, resultWhen(mandatoryTargetBlocked));
+        builder.add(new MockTarget("optional1", 60000, true), resultWhen(new CountDownLatch(0)));
+        builder.add(new MockTarget("optional2", 60000, true), resultWhen(new CountDownLatch(0)));
+        builder.add(new MockTarget("optional3", 60000, true), resultWhen(new CountDownLatch(0)));
+        FederationResult federationResult = builder.build();
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            mandatoryTargetBlocked.countDown();
+        }).start();
+        federationResult.waitForAll(60000, Clock.systemUTC());
+        for (FederationResult.TargetResult targetResult : federationResult.all()) {
+            assertFalse(targetResult.target + " is not cut short", targetResult.isCutShort());
+            assertFalse(targetResult.target + " did not time out", timedOut(targetResult.getOrTimeoutError()));
+        }
+    }
+
+    @Test
+    public void testOptionalTargetWithAdaptiveTimeoutIsNotCutShortWhenNotWaitedFor() {
+        TargetLatency latency = new TargetLatency();
+        for (int i = 0; i < TargetLatency.minSamples; i++)
+            latency.add(10);
+
+        CountDownLatch optionalTargetBlocked = new CountDownLatch(1);
+        FederationSearcher.Target optional = new MockTarget("optional", 60000, true);
+        FederationResult.Builder builder = new FederationResult.Builder(1.0, Clock.systemUTC());
+        builder.add(organic, resultWhen(new CountDownLatch(0)));
+        builder.add(optional, resultWhen(optionalTargetBlocked), latency);
+        FederationResult federationResult = builder.build();
+
+        federationResult.waitForAll(60000, Clock.systemUTC());
+        for (FederationResult.TargetResult targetResult : federationResult.all())
+            assertFalse(targetResult.isCutShort());
+        optionalTargetBlocked.countDown();
+    }
+
     private void assertTimeout(Set<String> expectedTimeoutNames, int ... responseTimes) {
         FederationResult.Builder builder = new FederationResult.Builder();
         builder.add(organic, resultAfter(responseTimes[0]));
@@ -65,6 +158,15 @@ public class FederationResultTest {
         return new MockFutureResult(new Query(), time);        
     }
     
+    /** Returns a result which is produced in another thread when the given latch is opened */
+    private FutureResult resultWhen(CountDownLatch latch) {
+        Query query = new Query();
+        FutureResult result = new FutureResult(() -> { latch.await(); return new Result(query); },
+                                               new Execution(Execution.Context.createContextStub()), query);
+        new Thread(result).start();
+        return result;
+    }
+
     private boolean timedOut(Result result) {
         ErrorMessage error = result.hits().getError();
         if (error == null) return false;
@@ -115,10 +217,16 @@ public class FederationResultTest {
 
         private final Chain<Searcher> chain;
         private final int timeout;
-        
+        private final boolean optional;
+
         MockTarget(String id, int timeout) {
+            this(id, timeout, false);
+        }
+
+        MockTarget(String id, int timeout, boolean optional) {
             this.chain = new Chain<>(id);
             this.timeout = timeout;
+            this.optional = optional;
         }
 
         @Override
@@ -132,7 +240,7 @@ public class FederationResultTest {
 
         @Override
         public FederationOptions federationOptions() {
-            return new FederationOptions(false, timeout, true);
+            return new FederationOptions(optional, timeout, true);
         }
 
     }
@@ -0,0 +1,59 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import com.yahoo.search.query.profile.DimensionValues;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DimensionalValueTestCase {
+
+    private static final List<String> dimensions = List.of("a", "b");
+    private static final CompoundName key = new CompoundName("key");
+
+    private static Binding binding(String ... values) {
+        return Binding.createFrom(DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(values)));
+    }
+
+    @Test
+    public void testMostSpecificMatchingVariantIsChosen() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(key, binding(), "default");
+        builder.put(key, binding("a1"), "a1");
+        builder.put(key, binding("a2"), "a2");
+        builder.put(key, binding("a1", "b1"), "a1,b1");
+        builder.put(key, binding(null, "b1"), "*,b1");
+        DimensionalMap<String> map = builder.build();
+
+        assertEquals("default", map.get(key, Map.of()));
+        assertEquals("default", map.get(key, null));
+        assertEquals("default", map.get(key, Map.of("a", "a3")));
+        assertEquals("a1", map.get(key, Map.of("a", "a1")));
+        assertEquals("a2", map.get(key, Map.of("a", "a2", "b", "b2")));
+        assertEquals("a1,b1", map.get(key, Map.of("a", "a1", "b", "b1")));
+        assertEquals("a1", map.get(key, Map.of("a", "a1", "b", "b2")));
+        assertEquals("*,b1", map.get(key, Map.of("a", "a3", "b", "b1")));
+        assertEquals("*,b1", map.get(key, Map.of("b", "b1")));
+        assertNull(map.get(new CompoundName("other"), Map.of()));
+    }
+
+    @Test
+    public void testNoMatchingVariant() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(key, binding("a1"), "a1");
+        builder.put(key, binding("a2", "b2"), "a2,b2");
+        DimensionalMap<String> map = builder.build();
+
+        assertNull(map.get(key, Map.of()));
+        assertNull(map.get(key, Map.of("a", "a2")));
+        assertNull(map.get(key, Map.of("b", "b2")));
+        assertEquals("a2,b2", map.get(key, Map.of("a", "a2", "b", "b2")));
+    }
+
+}
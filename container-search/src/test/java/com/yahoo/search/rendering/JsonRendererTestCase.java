@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.yahoo.component.ComponentId;
 import com.yahoo.component.chain.Chain;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
@@ -17,6 +18,8 @@ import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.Struct;
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.predicate.Predicate;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.prelude.Index;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexModel;
@@ -62,10 +65,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -94,6 +102,48 @@ public class JsonRendererTestCase {
         renderer.init();
     }
 
+    @Test
+    public void testLargeResultsAreStreamedWhileRendering() throws IOException, InterruptedException, ExecutionException {
+        Result r = newEmptyResult();
+        int hits = 500;
+        AtomicInteger renderedHits = new AtomicInteger();
+        Object value = new Object() {
+            @Override
+            public String toString() {
+                renderedHits.incrementAndGet();
+                return "x".repeat(1000);
+            }
+        };
+        for (int i = 0; i < hits; i++) {
+            Hit h = new Hit("hit" + i);
+            h.setField("value", value);
+            r.hits().add(h);
+        }
+        List<ByteBuffer> writes = new ArrayList<>();
+        Set<Integer> renderedHitsAtWrites = new HashSet<>();
+        ContentChannel channel = new ContentChannel() {
+            @Override
+            public void write(ByteBuffer buf, CompletionHandler handler) {
+                writes.add(buf);
+                renderedHitsAtWrites.add(renderedHits.get());
+            }
+            @Override
+            public void close(CompletionHandler handler) { }
+        };
+        ContentChannelOutputStream stream = new ContentChannelOutputStream(channel);
+        ListenableFuture<Boolean> f = renderer.render(stream, r, new Execution(Execution.Context.createContextStub()), null);
+        assertTrue(f.get());
+        stream.flush();
+
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        for (ByteBuffer write : writes)
+            rendered.write(write.array(), write.arrayOffset() + write.position(), write.remaining());
+        renderedHitsAtWrites.remove(hits);
+        assertTrue("Rendered hits are written while rendering, at least every " + JsonRenderer.FLUSH_BYTES + " bytes",
+                   renderedHitsAtWrites.size() >= hits * 1000 / JsonRenderer.FLUSH_BYTES);
+        assertEquals(hits, new ObjectMapper().readTree(rendered.toByteArray()).get("root").get("children").size());
+    }
+
     @Test
     public void testDocumentId() throws IOException, InterruptedException, ExecutionException {
         String expected = "{"
@@ -98,6 +98,20 @@ public class AsyncExecutionTestCase {
         assertNull(results.get(1).hits().getErrorHit());
     }
 
+    @Test
+    public void testWaitForAllWaitsForEachResultUntilTimeout() {
+        Chain<Searcher> slowerChain = new Chain<>(new ComponentId("slower"), List.of(new WaitingSearcher("slower", 100)));
+        Chain<Searcher> slowChain = new Chain<>(new ComponentId("slow"), List.of(new WaitingSearcher("slow", 50)));
+
+        FutureResult slowerFuture = new AsyncExecution(slowerChain, Execution.Context.createContextStub()).search(new Query("?hits=0"));
+        FutureResult slowFuture = new AsyncExecution(slowChain, Execution.Context.createContextStub()).search(new Query("?hits=0"));
+        List<Result> results = AsyncExecution.waitForAll(List.of(slowerFuture, slowFuture), 60000);
+
+        assertTrue(slowerFuture.isDone() && slowFuture.isDone());
+        assertNull(results.get(0).hits().getErrorHit());
+        assertNull(results.get(1).hits().getErrorHit());
+    }
+
     @Test
     public void testSync() {
         Query query=new Query("?query=test");
@@ -3,6 +3,7 @@ package com.yahoo.search.yql;
 
 import com.google.common.base.Charsets;
 import com.yahoo.component.chain.Chain;
+import com.yahoo.jdisc.test.MockMetric;
 import com.yahoo.language.Language;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.search.Query;
@@ -26,6 +27,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -84,6 +86,39 @@ public class MinimalQueryInserterTestCase {
                        " []all(group(b) each(output(count())))]", query);
     }
 
+    @Test
+    public void requireThatCachedProgramsProduceTheSameQueries() {
+        MockMetric metric = new MockMetric();
+        MinimalQueryInserter inserter = new MinimalQueryInserter(new SimpleLinguistics(),
+                                                                 new MinimalQueryInserterConfig.Builder().programCacheSize(1).build(),
+                                                                 metric);
+        Execution execution = new Execution(new Chain<>(inserter), context);
+        String yql = "select foo from bar where [{\"defaultIndex\": \"baz\"}]userInput(@animal) limit 3 " +
+                     "| all(group(a) each(output(count())));";
+        for (String animal : List.of("cox", "cat", "cox")) {
+            URIBuilder builder = new URIBuilder();
+            builder.setPath("search/");
+            builder.setParameter("yql", yql);
+            builder.setParameter("animal", animal);
+            Query query = new Query(builder.toString());
+            execution.search(query);
+            assertEquals("baz:" + animal, query.getModel().getQueryTree().toString());
+            assertEquals(3, query.getHits());
+            assertGrouping("[[]all(group(a) each(output(count())))]", query);
+        }
+        assertEquals(1, count(ProgramCache.MISSES_METRIC, metric));
+        assertEquals(2, count(ProgramCache.HITS_METRIC, metric));
+
+        URIBuilder builder = new URIBuilder();
+        builder.setPath("search/");
+        builder.setParameter("yql", "select foo from bar where title contains 'cox';");
+        Query query = new Query(builder.toString());
+        execution.search(query);
+        assertEquals("title:cox", query.getModel().getQueryTree().toString());
+        assertEquals(2, count(ProgramCache.MISSES_METRIC, metric));
+        assertEquals(1, inserter.programCache().size());
+    }
+
     @Test
     public void requireThatGroupingContinuationsAreAttachedToQuery() {
         URIBuilder builder = new URIBuilder();
@@ -354,6 +389,10 @@ public class MinimalQueryInserterTestCase {
         assertTrue(MinimalQueryInserter.warmup());
     }
 
+    private static long count(String metricName, MockMetric metric) {
+        return metric.metrics().getOrDefault(metricName, Map.of()).getOrDefault(Map.of(), 0.0).longValue();
+    }
+
     private static void assertGrouping(String expected, Query query) {
         List<String> actual = new ArrayList<>();
         for (GroupingRequest request : query.getSelect().getGrouping())
@@ -62,20 +62,15 @@ public class JsonReader {
      */
     public DocumentOperation readSingleDocument(DocumentOperationType operationType, String docIdString) {
         DocumentId docId = new DocumentId(docIdString);
+        DocumentParser documentParser = new DocumentParser(parser, true);
         DocumentParseInfo documentParseInfo;
         try {
-            DocumentParser documentParser = new DocumentParser(parser);
-            documentParseInfo = documentParser.parse(Optional.of(docId)).get();
+            documentParseInfo = documentParser.parse(Optional.of(docId), Optional.of(operationType)).get();
         } catch (IOException e) {
             state = END_OF_FEED;
             throw new IllegalArgumentException(e);
         }
-        documentParseInfo.operationType = operationType;
-        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
-        return operation;
+        return createDocumentOperation(documentParser, documentParseInfo);
     }
 
     /** Returns the next document operation, or null if we have reached the end */
@@ -91,9 +86,10 @@ public class JsonReader {
             case READING:
                 break;
         }
+        DocumentParser documentParser = new DocumentParser(parser, true);
         Optional<DocumentParseInfo> documentParseInfo;
         try {
-            documentParseInfo = parseDocument();
+            documentParseInfo = documentParser.parse(Optional.empty());
         } catch (IOException r) {
             // Jackson is not able to recover from structural parse errors
             state = END_OF_FEED;
@@ -103,15 +99,45 @@ public class JsonReader {
             state = END_OF_FEED;
             return null;
         }
+        return createDocumentOperation(documentParser, documentParseInfo.get());
+    }
+
+    /**
+     * Creates the operation from the fields of the given parse info, which may be read from the parser
+     * as they are consumed, and then parses the rest of the document.
+     */
+    private DocumentOperation createDocumentOperation(DocumentParser documentParser, DocumentParseInfo documentParseInfo) {
         VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get());
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
+        DocumentOperation operation;
+        try {
+            operation = vespaJsonDocumentReader.createDocumentOperation(
+                    getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+        } catch (RuntimeException e) {
+            skipRemaining(documentParser, documentParseInfo); // such that the next operation can be read
+            throw e;
+        }
+        try {
+            documentParser.parseRemaining(documentParseInfo);
+        } catch (IOException e) {
+            state = END_OF_FEED;
+            throw new IllegalArgumentException(e);
+        }
+        vespaJsonDocumentReader.setCreateIfNonExistent(operation, documentParseInfo);
+        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
         return operation;
     }
 
 
+    private void skipRemaining(DocumentParser documentParser, DocumentParseInfo documentParseInfo) {
+        try {
+            documentParseInfo.fieldsBuffer.skipStreamed();
+            documentParser.parseRemaining(documentParseInfo);
+        } catch (IOException | RuntimeException e) {
+            // Jackson is not able to recover from structural parse errors
+            state = END_OF_FEED;
+        }
+    }
+
     public DocumentType readDocumentType(DocumentId docId) {
         return getDocumentTypeFromString(docId.getDocType(), typeManager);
     }
@@ -13,6 +13,9 @@ import com.google.common.base.Preconditions;
 /**
  * Helper class to enable lookahead in the token stream.
  *
+ * The tokens of a struct are either buffered up front, or read from the parser as they are consumed,
+ * such that only the tokens which are looked ahead to are held in memory.
+ *
  * @author Steinar Knutsen
  */
 public class TokenBuffer {
@@ -32,6 +35,12 @@ public class TokenBuffer {
     private Deque<Token> buffer;
     private int nesting = 0;
 
+    /** The parser to read the rest of a streamed struct from, or null if all tokens are in the buffer */
+    private JsonParser source = null;
+
+    /** The nesting of the tokens read from the source so far */
+    private int sourceNesting = 0;
+
     public TokenBuffer() {
         this(new ArrayDeque<>());
     }
@@ -48,6 +57,8 @@ public class TokenBuffer {
 
     public JsonToken next() {
         buffer.removeFirst();
+        if (buffer.isEmpty())
+            readFromSource();
         Token t = buffer.peekFirst();
         if (t == null) {
             return null;
@@ -93,6 +104,52 @@ public class TokenBuffer {
         bufferJsonStruct(first, tokens, JsonToken.START_ARRAY);
     }
 
+    /**
+     * Adds the object starting at the given token to this, but reads the rest of its tokens from the parser only
+     * as they are consumed from this. The parser must not be used by others until the end of the object is consumed.
+     */
+    public void streamObject(JsonToken first, JsonParser tokens) {
+        Preconditions.checkArgument(first == JsonToken.START_OBJECT,
+                "Expected %s, got %s.", JsonToken.START_OBJECT.name(), first);
+        Preconditions.checkState(source == null, "Already streaming a struct");
+        if (size() == 0) {
+            updateNesting(first);
+        }
+        addFromParser(first, tokens);
+        source = tokens;
+        sourceNesting = 1;
+    }
+
+    /** Reads the next token of a streamed struct into the buffer. Returns false if there are no more tokens */
+    private boolean readFromSource() {
+        if (source == null) return false;
+        JsonToken t = nextValue(source);
+        if (t == null)
+            throw new IllegalArgumentException("Unexpected end of input in a JSON struct");
+        addFromParser(t, source);
+        sourceNesting += nestingOffset(t);
+        if (sourceNesting == 0)
+            source = null;
+        return true;
+    }
+
+    /** Reads past the rest of a streamed struct in the parser without buffering it */
+    public void skipStreamed() {
+        while (source != null) {
+            JsonToken t = nextValue(source);
+            if (t == null)
+                throw new IllegalArgumentException("Unexpected end of input in a JSON struct");
+            sourceNesting += nestingOffset(t);
+            if (sourceNesting == 0)
+                source = null;
+        }
+    }
+
+    /** Reads the rest of a streamed struct into the buffer, to look ahead in it */
+    private void readAllFromSource() {
+        while (readFromSource()) { }
+    }
+
     private void bufferJsonStruct(JsonToken first, JsonParser tokens, JsonToken firstToken) {
         int localNesting = 0;
         JsonToken t = first;
@@ -168,6 +225,7 @@ public class TokenBuffer {
     }
 
     public TokenBuffer prefetchCurrentElement() {
+        readAllFromSource();
         Deque<Token> copy = new ArrayDeque<>();
 
         if (currentToken().isScalarValue()) {
@@ -187,6 +245,7 @@ public class TokenBuffer {
     }
 
     public Token prefetchScalar(String name) {
+        readAllFromSource();
         int localNesting = nesting();
         int nestingBarrier = localNesting;
         Token toReturn = null;
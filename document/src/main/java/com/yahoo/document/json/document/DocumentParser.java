@@ -25,10 +25,26 @@ public class DocumentParser {
     public static final String FIELDS = "fields";
     public static final String REMOVE = "remove";
     private final JsonParser parser;
+    private final boolean streamFields;
     private  long indentLevel;
+    private boolean docIdAndOperationIsSetExternally;
+    private boolean fieldsStreamed;
 
     public DocumentParser(JsonParser parser) {
+        this(parser, false);
+    }
+
+    /**
+     * Creates a document parser
+     *
+     * @param parser the parser to read from
+     * @param streamFields whether the fields of puts and updates should be read from the parser as they are consumed
+     *                     from the fields buffer, rather than buffered up front, when the operation is known before
+     *                     the fields. {@link #parseRemaining} must then be called once the fields are consumed.
+     */
+    public DocumentParser(JsonParser parser, boolean streamFields) {
         this.parser = parser;
+        this.streamFields = streamFields;
     }
 
     /**
@@ -36,13 +52,28 @@ public class DocumentParser {
      * Returns empty if we have reached the end of the stream.
      */
     public Optional<DocumentParseInfo> parse(Optional<DocumentId> documentIdArg) throws IOException {
+        return parse(documentIdArg, Optional.empty());
+    }
+
+    /**
+     * Parses a single document and returns it.
+     * Returns empty if we have reached the end of the stream.
+     *
+     * @param documentIdArg the id of the document, if given outside the document
+     * @param operationTypeArg the type of the operation, if given outside the document
+     */
+    public Optional<DocumentParseInfo> parse(Optional<DocumentId> documentIdArg,
+                                             Optional<DocumentOperationType> operationTypeArg) throws IOException {
         indentLevel = 0;
+        docIdAndOperationIsSetExternally = documentIdArg.isPresent();
+        fieldsStreamed = false;
         DocumentParseInfo documentParseInfo = new DocumentParseInfo();
         documentIdArg.ifPresent(documentId -> documentParseInfo.documentId = documentId);
+        operationTypeArg.ifPresent(operationType -> documentParseInfo.operationType = operationType);
         boolean foundItems = false;
         do {
-            foundItems |= parseOneItem(documentParseInfo, documentIdArg.isPresent() /* doc id set externally */);
-        } while (indentLevel > 0L);
+            foundItems |= parseOneItem(documentParseInfo, docIdAndOperationIsSetExternally);
+        } while (indentLevel > 0L && ! fieldsStreamed);
 
         if (documentParseInfo.documentId == null) {
             if (foundItems)
@@ -53,6 +84,17 @@ public class DocumentParser {
         return Optional.of(documentParseInfo);
     }
 
+    /**
+     * Parses the rest of a document after its streamed fields have been consumed.
+     * This does nothing if the fields of the last parsed document were not streamed.
+     */
+    public void parseRemaining(DocumentParseInfo documentParseInfo) throws IOException {
+        if ( ! fieldsStreamed) return;
+        while (indentLevel > 0L)
+            parseOneItem(documentParseInfo, docIdAndOperationIsSetExternally);
+        fieldsStreamed = false;
+    }
+
     /**
      * Parses one item from the stream.
      *
@@ -124,14 +166,25 @@ public class DocumentParser {
             JsonToken currentToken = parser.getCurrentToken();
             // "fields" opens a dictionary and is therefore on level two which might be surprising.
             if (currentToken == JsonToken.START_OBJECT && FIELDS.equals(parser.getCurrentName())) {
-                documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
-                processIndent();
+                if (streamFields && isPutOrUpdate(documentParseInfo.operationType)) {
+                    documentParseInfo.fieldsBuffer.streamObject(currentToken, parser);
+                    indentLevel--; // the end of the fields is consumed from the fields buffer
+                    fieldsStreamed = true;
+                }
+                else {
+                    documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                    processIndent();
+                }
             }
         } catch (IOException e) {
             throw new RuntimeException("Got IO exception while parsing document", e);
         }
     }
 
+    private static boolean isPutOrUpdate(DocumentOperationType operationType) {
+        return operationType == DocumentOperationType.PUT || operationType == DocumentOperationType.UPDATE;
+    }
+
     private static DocumentOperationType operationNameToOperationType(String operationName) {
         switch (operationName) {
             case PUT:
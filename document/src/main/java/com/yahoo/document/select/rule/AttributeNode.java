@@ -29,6 +29,9 @@ public class AttributeNode implements ExpressionNode {
     private ExpressionNode value;
     private final List<Item> items = new ArrayList<>();
 
+    // The field path last resolved by this, which is reused as long as the path and document type stays the same.
+    private volatile ResolvedFieldPath resolvedFieldPath = null;
+
     public AttributeNode(ExpressionNode value, List items) {
         this.value = value;
         for (Object obj : items) {
@@ -61,13 +64,13 @@ public class AttributeNode implements ExpressionNode {
 
     @Override
     public Object evaluate(Context context) {
-        StringBuilder pos = new StringBuilder(value.toString());
         Object obj = value.evaluate(context);
 
         StringBuilder builder = new StringBuilder();
-        for (Item item : items) {
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
             if (obj == null) {
-                throw new IllegalStateException("Can not invoke '" + item + "' on '" + pos + "' because that term " +
+                throw new IllegalStateException("Can not invoke '" + item + "' on '" + termBefore(i) + "' because that term " +
                                                 "evaluated to null.");
             }
             if (item.getType() != Item.FUNCTION) {
@@ -84,8 +87,6 @@ public class AttributeNode implements ExpressionNode {
 
                 obj = evaluateFunction(item.getName(), obj);
             }
-
-            pos.append(".").append(item);
         }
 
         if (builder.length() > 0) {
@@ -94,6 +95,14 @@ public class AttributeNode implements ExpressionNode {
         return obj;
     }
 
+    /** Returns the term consisting of the value of this and the given number of items */
+    private String termBefore(int itemCount) {
+        StringBuilder term = new StringBuilder(value.toString());
+        for (int i = 0; i < itemCount; i++)
+            term.append(".").append(items.get(i));
+        return term.toString();
+    }
+
     public static class VariableValueList extends ArrayList<ResultList.VariableValue> {
 
     }
@@ -151,7 +160,7 @@ public class AttributeNode implements ExpressionNode {
         return documentType.hasImportedField(path);
     }
 
-    private static Object evaluateFieldPath(String fieldPathStr, Object value) {
+    private Object evaluateFieldPath(String fieldPathStr, Object value) {
         if (value instanceof DocumentPut) {
             final Document doc = ((DocumentPut) value).getDocument();
             if (isSimpleImportedField(fieldPathStr, doc.getDataType())) {
@@ -162,7 +171,7 @@ public class AttributeNode implements ExpressionNode {
                 // augment the FieldPath code with knowledge of imported fields.
                 return null;
             }
-            FieldPath fieldPath = doc.getDataType().buildFieldPath(fieldPathStr);
+            FieldPath fieldPath = resolveFieldPath(fieldPathStr, doc.getDataType());
             IteratorHandler handler = new IteratorHandler();
             doc.iterateNested(fieldPath, 0, handler);
             if (handler.values.isEmpty()) {
@@ -179,6 +188,16 @@ public class AttributeNode implements ExpressionNode {
         return Result.FALSE;
     }
 
+    /** Returns the field path of the given string in the given document type, reusing the last resolved path if possible */
+    private FieldPath resolveFieldPath(String fieldPathStr, DocumentType documentType) {
+        ResolvedFieldPath resolved = resolvedFieldPath;
+        if (resolved == null || resolved.documentType != documentType || ! resolved.path.equals(fieldPathStr)) {
+            resolved = new ResolvedFieldPath(fieldPathStr, documentType, documentType.buildFieldPath(fieldPathStr));
+            resolvedFieldPath = resolved;
+        }
+        return resolved.fieldPath;
+    }
+
     private static Object evaluateFunction(String function, Object value) {
         if (value instanceof VariableValueList) {
             VariableValueList retVal = new VariableValueList();
@@ -210,6 +229,20 @@ public class AttributeNode implements ExpressionNode {
         return ret.toString();
     }
 
+    private static class ResolvedFieldPath {
+
+        final String path;
+        final DocumentType documentType;
+        final FieldPath fieldPath;
+
+        ResolvedFieldPath(String path, DocumentType documentType, FieldPath fieldPath) {
+            this.path = path;
+            this.documentType = documentType;
+            this.fieldPath = fieldPath;
+        }
+
+    }
+
     public static class Item {
         public static final int ATTRIBUTE = 0;
         public static final int FUNCTION = 1;
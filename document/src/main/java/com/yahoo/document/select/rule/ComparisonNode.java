@@ -26,6 +26,9 @@ public class ComparisonNode implements ExpressionNode {
     // The operator string for this.
     private String operator;
 
+    // The pattern compiled for the last evaluated right-hand-side of a regex or glob comparison.
+    private volatile CompiledPattern compiledPattern = null;
+
     /**
      * Constructs a new comparison node.
      *
@@ -318,11 +321,22 @@ public class ComparisonNode implements ExpressionNode {
     private Result evaluateString(Object lhs, Object rhs) {
         String left = "" + lhs; // Allows null objects to evaluate to string.
         String right = "" + rhs;
-        if (operator.equals("=~")) {
-            return Result.toResult(Pattern.compile(right).matcher(left).find());
-        } else {
-            return Result.toResult(Pattern.compile(globToRegex(right)).matcher(left).find());
+        return Result.toResult(patternOf(right).matcher(left).find());
+    }
+
+    /**
+     * Returns the compiled pattern of the given right-hand-side of a regex or glob comparison.
+     * The pattern is compiled once as long as the right-hand-side and the operator stays the same,
+     * which is always when the right-hand-side is a literal.
+     */
+    private Pattern patternOf(String right) {
+        CompiledPattern compiled = compiledPattern;
+        if (compiled == null || ! compiled.operator.equals(operator) || ! compiled.source.equals(right)) {
+            Pattern pattern = Pattern.compile(operator.equals("=~") ? right : globToRegex(right));
+            compiled = new CompiledPattern(operator, right, pattern);
+            compiledPattern = compiled;
         }
+        return compiled.pattern;
     }
 
     /**
@@ -372,6 +386,20 @@ public class ComparisonNode implements ExpressionNode {
         }
     }
 
+    private static class CompiledPattern {
+
+        final String operator;
+        final String source;
+        final Pattern pattern;
+
+        CompiledPattern(String operator, String source, Pattern pattern) {
+            this.operator = operator;
+            this.source = source;
+            this.pattern = pattern;
+        }
+
+    }
+
     @Override
     public void accept(Visitor visitor) {
         visitor.visit(this);
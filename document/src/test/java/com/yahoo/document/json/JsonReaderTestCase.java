@@ -840,6 +840,45 @@ public class JsonReaderTestCase {
     }
 
 
+    @Test
+    public void readSingleDocumentUpdateWithCreateAndConditionAfterFields() {
+        JsonReader r = createReader(inputJson("{ 'update': 'id:unittest:testarray::whee',",
+                "  'fields': {",
+                "    'actualarray': {",
+                "      'add': [",
+                "        'person',",
+                "        'another person' ]}},",
+                "  'create': true,",
+                "  'condition': 'bla'",
+                "}"));
+        DocumentUpdate update = (DocumentUpdate) r.readSingleDocument(DocumentOperationType.UPDATE,
+                                                                      "id:unittest:testarray::whee");
+        checkSimpleArrayAdd(update);
+        assertTrue(update.getCreateIfNonExistent());
+        assertEquals("bla", update.getCondition().getSelection());
+    }
+
+    @Test
+    public void testFeedContinuesAfterInvalidFields() {
+        JsonReader r = createReader(inputJson("[",
+                "{ 'put': 'id:unittest:smoke::bad',",
+                "  'fields': {",
+                "    'nonexisting': 'smoketest',",
+                "    'something': 'smoketest' },",
+                "  'condition': 'bla' },",
+                "{ 'remove': 'id:unittest:smoke::whee' }]"));
+        try {
+            r.next();
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        DocumentRemove remove = (DocumentRemove) r.next();
+        assertEquals("id:unittest:smoke::whee", remove.getId().toString());
+        assertNull(r.next());
+    }
+
     @Test(expected=RuntimeException.class)
     public void testCreateIfNonExistentInPut() {
         JsonReader r = createReader(inputJson("[{",
@@ -777,6 +777,26 @@ public class DocumentSelectorTestCase {
         evaluate("test.my_imported_field.foo", documents.get(0));
     }
 
+    @Test
+    public void testSelectorIsReusableAcrossDocumentsAndOperands() throws ParseException {
+        var documents = createDocs();
+        DocumentSelector regex = new DocumentSelector("test.hstring =~ \"^b.r$\"");
+        DocumentSelector glob = new DocumentSelector("test.content = \"b*\"");
+        DocumentSelector function = new DocumentSelector("test.hstring.lowercase() == \"yet\"");
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Result.FALSE, regex.accepts(documents.get(0)));
+            assertEquals(Result.TRUE, regex.accepts(documents.get(1)));
+            assertEquals(Result.TRUE, regex.accepts(documents.get(4)));
+
+            assertEquals(Result.TRUE, glob.accepts(documents.get(0)));
+            assertEquals(Result.FALSE, glob.accepts(documents.get(1)));
+            assertEquals(Result.TRUE, glob.accepts(documents.get(4)));
+
+            assertEquals(Result.FALSE, function.accepts(documents.get(0)));
+            assertEquals(Result.TRUE, function.accepts(documents.get(3)));
+        }
+    }
+
     @Test
     public void testTicket1769674() {
         assertParseError("music.uri=\"junk",
@@ -2,6 +2,7 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 /**
  * @author Bjorn Borud
@@ -10,10 +11,10 @@ class AccessLogHandler {
 
     private final LogFileHandler<RequestLogEntry> logFileHandler;
 
-    AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter) {
+    AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter, Metric metric) {
         logFileHandler = new LogFileHandler<>(
                 toCompression(config), config.pattern(), config.rotation(),
-                config.symlink(), config.queueSize(), "request-logger", logWriter);
+                config.symlink(), config.queueSize(), config.blockOnFullQueue(), "request-logger", logWriter, metric);
     }
 
     public void log(RequestLogEntry entry) {
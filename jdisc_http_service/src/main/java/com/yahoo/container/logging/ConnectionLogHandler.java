@@ -2,21 +2,26 @@
 
 package com.yahoo.container.logging;
 
+import com.yahoo.jdisc.Metric;
+
 /**
  * @author mortent
  */
 class ConnectionLogHandler {
     private final LogFileHandler<ConnectionLogEntry> logFileHandler;
 
-    public ConnectionLogHandler(String logDirectoryName, String clusterName, int queueSize, LogWriter<ConnectionLogEntry> logWriter) {
+    public ConnectionLogHandler(String logDirectoryName, String clusterName, int queueSize, boolean blockOnFullQueue,
+                                LogWriter<ConnectionLogEntry> logWriter, Metric metric) {
         logFileHandler = new LogFileHandler<>(
                 LogFileHandler.Compression.ZSTD,
                 String.format("logs/vespa/%s/ConnectionLog.%s.%s", logDirectoryName, clusterName, "%Y%m%d%H%M%S"),
                 "0 60 ...",
                 String.format("ConnectionLog.%s", clusterName),
                 queueSize,
+                blockOnFullQueue,
                 "connection-logger",
-                logWriter);
+                logWriter,
+                metric);
     }
 
     public void log(ConnectionLogEntry entry) {
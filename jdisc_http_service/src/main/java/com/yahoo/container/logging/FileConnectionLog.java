@@ -4,6 +4,7 @@ package com.yahoo.container.logging;
 
 import com.google.inject.Inject;
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.jdisc.Metric;
 
 /**
  * @author mortent
@@ -13,8 +14,9 @@ public class FileConnectionLog extends AbstractComponent implements ConnectionLo
     private final ConnectionLogHandler logHandler;
 
     @Inject
-    public FileConnectionLog(ConnectionLogConfig config) {
-        logHandler = new ConnectionLogHandler(config.logDirectoryName(), config.cluster(), config.queueSize(), new JsonConnectionLogWriter());
+    public FileConnectionLog(ConnectionLogConfig config, Metric metric) {
+        logHandler = new ConnectionLogHandler(config.logDirectoryName(), config.cluster(), config.queueSize(),
+                                              config.blockOnFullQueue(), new JsonConnectionLogWriter(), metric);
     }
 
     @Override
@@ -3,6 +3,7 @@ package com.yahoo.container.logging;
 
 import com.yahoo.compress.ZstdOuputStream;
 import com.yahoo.io.NativeIO;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.log.LogFileDb;
 import com.yahoo.protect.Process;
 import com.yahoo.yolean.Exceptions;
@@ -19,13 +20,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
@@ -33,6 +36,13 @@ import java.util.zip.GZIPOutputStream;
 /**
  * Implements log file naming/rotating logic for container logs.
  *
+ * Log entries are passed to a single log thread through a bounded ring buffer. The log thread drains
+ * all queued entries at once and writes them as a batch to the buffered log file, so producers and
+ * the log thread contend on the queue once per batch rather than once per entry. When the queue is full,
+ * entries are either dropped or the producer waits for room, as configured.
+ * The number of queued operations, sampled each time the log thread takes a batch, and the number of dropped
+ * entries are reported as metrics with the name of the log thread as dimension.
+ *
  * @author Bob Travis
  * @author bjorncs
  */
@@ -40,15 +50,27 @@ class LogFileHandler <LOGTYPE> {
 
     enum Compression {NONE, GZIP, ZSTD}
 
+    /** The max number of operations the log thread handles before checking whether it should flush */
+    private static final int maxBatchSize = 1000;
+
+    static final String QUEUE_SIZE_METRIC = "jdisc.logging.queue.size";
+    static final String DROPPED_ENTRIES_METRIC = "jdisc.logging.queue.dropped";
+    static final String LOGGER_DIMENSION = "logger";
+
     private final static Logger logger = Logger.getLogger(LogFileHandler.class.getName());
     private final BlockingQueue<Operation<LOGTYPE>> logQueue;
+    private final boolean blockOnFullQueue;
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private final Metric metric;
+    private final Metric.Context metricContext;
     final LogThread<LOGTYPE> logThread;
 
-    @FunctionalInterface private interface Pollable<T> { Operation<T> poll() throws InterruptedException; }
+    @FunctionalInterface private interface Pollable<T> { void poll(List<Operation<T>> batch) throws InterruptedException; }
 
     LogFileHandler(Compression compression, String filePattern, String rotationTimes, String symlinkName, int queueSize,
-                   String threadName, LogWriter<LOGTYPE> logWriter) {
-        this(compression, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, threadName, logWriter);
+                   boolean blockOnFullQueue, String threadName, LogWriter<LOGTYPE> logWriter, Metric metric) {
+        this(compression, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, blockOnFullQueue, threadName,
+             logWriter, metric);
     }
 
     LogFileHandler(
@@ -57,15 +79,26 @@ class LogFileHandler <LOGTYPE> {
             long[] rotationTimes,
             String symlinkName,
             int queueSize,
+            boolean blockOnFullQueue,
             String threadName,
-            LogWriter<LOGTYPE> logWriter) {
-        this.logQueue = new LinkedBlockingQueue<>(queueSize);
-        this.logThread = new LogThread<>(logWriter, filePattern, compression, rotationTimes, symlinkName, threadName, this::poll);
+            LogWriter<LOGTYPE> logWriter,
+            Metric metric) {
+        this.logQueue = new ArrayBlockingQueue<>(queueSize);
+        this.blockOnFullQueue = blockOnFullQueue;
+        this.metric = metric;
+        this.metricContext = metric.createContext(Map.of(LOGGER_DIMENSION, threadName));
+        this.logThread = new LogThread<>(logWriter, filePattern, compression, rotationTimes, symlinkName, threadName,
+                                         this::poll, droppedEntries);
         this.logThread.start();
     }
 
-    private Operation<LOGTYPE> poll() throws InterruptedException {
-        return logQueue.poll(100, TimeUnit.MILLISECONDS);
+    /** Waits a short while for an operation, and then adds it and all other queued operations to the given batch */
+    private void poll(List<Operation<LOGTYPE>> batch) throws InterruptedException {
+        Operation<LOGTYPE> first = logQueue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) return;
+        batch.add(first);
+        logQueue.drainTo(batch, maxBatchSize - 1);
+        metric.set(QUEUE_SIZE_METRIC, batch.size() + logQueue.size(), metricContext);
     }
 
     /**
@@ -74,11 +107,11 @@ class LogFileHandler <LOGTYPE> {
      * @param r logrecord to publish
      */
     public void publish(LOGTYPE r) {
-        addOperation(new Operation<>(r));
+        addOperation(new Operation<>(r, false));
     }
 
     void publishAndWait(LOGTYPE r) {
-        addOperationAndWait(new Operation<>(r));
+        addOperationAndWait(new Operation<>(r, true));
     }
 
     public void flush() {
@@ -96,9 +129,24 @@ class LogFileHandler <LOGTYPE> {
         addOperationAndWait(new Operation<>(Operation.Type.close));
     }
 
+    /** Returns the number of entries currently waiting to be written */
+    int queuedEntries() {
+        return logQueue.size();
+    }
+
+    /** Returns the number of entries dropped because the queue was full, since this was created */
+    long droppedEntries() {
+        return droppedEntries.get();
+    }
+
     private void addOperation(Operation<LOGTYPE> op) {
         try {
-            logQueue.put(op);
+            if (blockOnFullQueue)
+                logQueue.put(op);
+            else if ( ! logQueue.offer(op)) {
+                droppedEntries.incrementAndGet();
+                metric.add(DROPPED_ENTRIES_METRIC, 1, metricContext);
+            }
         } catch (InterruptedException e) {
         }
     }
@@ -189,6 +237,10 @@ class LogFileHandler <LOGTYPE> {
      */
     static class LogThread<LOGTYPE> extends Thread {
         private final Pollable<LOGTYPE> operationProvider;
+        private final List<Operation<LOGTYPE>> batch = new ArrayList<>();
+        private final AtomicLong droppedEntries;
+        private long reportedDroppedEntries = 0;
+        private long lastDropReport = 0;
         long lastFlush = 0;
         private PageCacheFriendlyFileOutputStream fileOutput = null;
         private long nextRotationTime = 0;
@@ -208,7 +260,8 @@ class LogFileHandler <LOGTYPE> {
                   long[] rotationTimes,
                   String symlinkName,
                   String threadName,
-                  Pollable<LOGTYPE> operationProvider) {
+                  Pollable<LOGTYPE> operationProvider,
+                  AtomicLong droppedEntries) {
             super(threadName);
             setDaemon(true);
             this.logWriter = logWriter;
@@ -217,6 +270,7 @@ class LogFileHandler <LOGTYPE> {
             this.rotationTimes = rotationTimes;
             this.symlinkName = (symlinkName != null && !symlinkName.isBlank()) ? symlinkName : null;
             this.operationProvider = operationProvider;
+            this.droppedEntries = droppedEntries;
         }
 
         private static ExecutorService createCompressionTaskExecutor() {
@@ -242,8 +296,9 @@ class LogFileHandler <LOGTYPE> {
 
         private void handleLogOperations() throws InterruptedException {
             while (!isInterrupted()) {
-                Operation<LOGTYPE> r = operationProvider.poll();
-                if (r != null) {
+                operationProvider.poll(batch);
+                boolean published = false;
+                for (Operation<LOGTYPE> r : batch) {
                     if (r.type == Operation.Type.flush) {
                         internalFlush();
                     } else if (r.type == Operation.Type.close) {
@@ -252,16 +307,33 @@ class LogFileHandler <LOGTYPE> {
                         internalRotateNow();
                         lastFlush = System.nanoTime();
                     } else if (r.type == Operation.Type.log) {
-                        internalPublish(r.log.get());
-                        flushIfOld(3, TimeUnit.SECONDS);
+                        internalPublish(r.log);
+                        published = true;
                     }
-                    r.countDownLatch.countDown();
-                } else {
-                    flushIfOld(100, TimeUnit.MILLISECONDS);
+                    if (r.countDownLatch != null)
+                        r.countDownLatch.countDown();
                 }
+                if (batch.isEmpty())
+                    flushIfOld(100, TimeUnit.MILLISECONDS);
+                else if (published)
+                    flushIfOld(3, TimeUnit.SECONDS);
+                batch.clear();
+                reportDroppedEntries();
             }
         }
 
+        /** Logs the number of entries dropped because the queue was full, at most once a minute */
+        private void reportDroppedEntries() {
+            long dropped = droppedEntries.get();
+            if (dropped == reportedDroppedEntries) return;
+            long now = System.nanoTime();
+            if (lastDropReport != 0 && TimeUnit.NANOSECONDS.toMinutes(now - lastDropReport) < 1) return;
+            logger.log(Level.WARNING, "Dropped " + (dropped - reportedDroppedEntries) + " log entries in " + getName() +
+                                      " because the log queue was full");
+            reportedDroppedEntries = dropped;
+            lastDropReport = now;
+        }
+
         private void flushIfOld(long age, TimeUnit unit) {
             long now = System.nanoTime();
             if (TimeUnit.NANOSECONDS.toMillis(now - lastFlush) > unit.toMillis(age)) {
@@ -475,24 +547,26 @@ class LogFileHandler <LOGTYPE> {
     private static class Operation<LOGTYPE> {
         enum Type {log, flush, close, rotate}
 
-        ;
-
         final Type type;
 
-        final Optional<LOGTYPE> log;
-        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        /** The entry to log, or null if this is not a log operation */
+        final LOGTYPE log;
+
+        /** The latch to count down when this is handled, or null if nobody waits for it */
+        final CountDownLatch countDownLatch;
 
         Operation(Type type) {
-            this(type, Optional.empty());
+            this(type, null, true);
         }
 
-        Operation(LOGTYPE log) {
-            this(Type.log, Optional.of(log));
+        Operation(LOGTYPE log, boolean await) {
+            this(Type.log, log, await);
         }
 
-        private Operation(Type type, Optional<LOGTYPE> log) {
+        private Operation(Type type, LOGTYPE log, boolean await) {
             this.type = type;
             this.log = log;
+            this.countDownLatch = await ? new CountDownLatch(1) : null;
         }
     }
 
@@ -4,6 +4,7 @@ package com.yahoo.container.logging;
 import com.yahoo.compress.ZstdCompressor;
 import com.yahoo.container.logging.LogFileHandler.Compression;
 import com.yahoo.io.IOUtils;
+import com.yahoo.jdisc.test.MockMetric;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -18,6 +19,8 @@ import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.function.BiFunction;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -43,7 +46,7 @@ public class LogFileHandlerTestCase {
 
         String pattern = root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S";
         long[] rTimes = {1000, 2000, 10000};
-        LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, pattern, rTimes, null, 2048, "thread-name", new StringLogWriter());
+        LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, pattern, rTimes, null, 2048, true, "thread-name", new StringLogWriter(), new MockMetric());
         long now = System.currentTimeMillis();
         long millisPerDay = 60*60*24*1000;
         long tomorrowDays = (now / millisPerDay) +1;
@@ -65,7 +68,7 @@ public class LogFileHandlerTestCase {
         File logFile = temporaryFolder.newFile("testLogFileG1.txt");
 
       //create logfilehandler
-      LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, logFile.getAbsolutePath(), "0 5 ...", null, 2048, "thread-name", new StringLogWriter());
+      LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, logFile.getAbsolutePath(), "0 5 ...", null, 2048, true, "thread-name", new StringLogWriter(), new MockMetric());
 
       //write log
       h.publish("testDeleteFileFirst1");
@@ -78,7 +81,7 @@ public class LogFileHandlerTestCase {
       File logFile = temporaryFolder.newFile("testLogFileG2.txt");
 
       //create logfilehandler
-       LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, logFile.getAbsolutePath(), "0 5 ...", null, 2048, "thread-name", new StringLogWriter());
+       LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, logFile.getAbsolutePath(), "0 5 ...", null, 2048, true, "thread-name", new StringLogWriter(), new MockMetric());
 
       //write log
       h.publish("testDeleteFileDuringLogging1");
@@ -104,7 +107,7 @@ public class LogFileHandlerTestCase {
             }
         };
         LogFileHandler<String> handler = new LogFileHandler<>(
-                Compression.NONE, root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S%s", new long[]{0}, "symlink", 2048, "thread-name", new StringLogWriter());
+                Compression.NONE, root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S%s", new long[]{0}, "symlink", 2048, true, "thread-name", new StringLogWriter(), new MockMetric());
 
         String message = formatter.format(new LogRecord(Level.INFO, "test"));
         handler.publishAndWait(message);
@@ -144,13 +147,46 @@ public class LogFileHandlerTestCase {
                 }));
     }
 
+    @Test(timeout = /*5 minutes*/300_000)
+    public void testEntriesAreDroppedWhenQueueIsFull() throws IOException, InterruptedException {
+        File logFile = temporaryFolder.newFile("testLogFileG3.txt");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        MockMetric metric = new MockMetric();
+        LogWriter<String> blockingWriter = (record, outputStream) -> {
+            writing.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            outputStream.write(record.getBytes(StandardCharsets.UTF_8));
+        };
+        LogFileHandler<String> h = new LogFileHandler<>(Compression.NONE, logFile.getAbsolutePath(), "0 5 ...", null, 1, false, "thread-name", blockingWriter, metric);
+
+        h.publish("first");
+        writing.await();
+        h.publish("second");
+        h.publish("third");
+        assertThat(h.queuedEntries()).isEqualTo(1);
+        assertThat(h.droppedEntries()).isEqualTo(1);
+        Map<String, String> dimensions = Map.of(LogFileHandler.LOGGER_DIMENSION, "thread-name");
+        assertThat(metric.metrics().get(LogFileHandler.DROPPED_ENTRIES_METRIC)).containsEntry(dimensions, 1.0);
+        assertThat(metric.metrics().get(LogFileHandler.QUEUE_SIZE_METRIC)).containsEntry(dimensions, 1.0);
+
+        proceed.countDown();
+        h.flush();
+        assertThat(IOUtils.readFile(new File(h.getFileName()))).isEqualTo("first\nsecond\n");
+        h.shutdown();
+    }
+
     private void testcompression(Compression compression,
                                  String fileExtension,
                                  BiFunction<Path, Integer, String> decompressor) throws IOException, InterruptedException {
         File root = temporaryFolder.newFolder("testcompression" + compression.name());
 
         LogFileHandler<String> h = new LogFileHandler<>(
-                compression, root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S%s", new long[]{0}, null, 2048, "thread-name", new StringLogWriter());
+                compression, root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S%s", new long[]{0}, null, 2048, true, "thread-name", new StringLogWriter(), new MockMetric());
         int logEntries = 10000;
         for (int i = 0; i < logEntries; i++) {
             h.publish("test");
@@ -0,0 +1,91 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of direct byte buffers used as connection input and output buffers. Using direct
+ * buffers lets socket reads and writes go straight to and from the buffer, without the copy
+ * via a temporary direct buffer which is made for heap buffers, and pooling them avoids
+ * allocating and freeing off-heap memory as buffers grow and shrink and connections come and go.
+ *
+ * Buffers are pooled in power of two size classes. Buffers larger than the largest size class
+ * are allocated on the heap and not pooled.
+ *
+ * This class is thread safe.
+ */
+class BufferPool {
+
+    static final int MIN_SIZE = 4096;
+    static final int MAX_SIZE = 1024 * 1024;
+
+    private final long maxPooledBytes;
+    private final List<ArrayDeque<ByteBuffer>> free = new ArrayList<>();
+    private long pooledBytes = 0;
+
+    BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i <= sizeClass(MAX_SIZE); i++) {
+            free.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns a cleared, big endian buffer with a capacity of at least the given size. Buffers
+     * which are not needed anymore should be given back using {@link #release}.
+     */
+    ByteBuffer allocate(int size) {
+        if (size > MAX_SIZE) {
+            return ByteBuffer.allocate(size);
+        }
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = free.get(sizeClass).pollFirst();
+            if (buffer != null) {
+                pooledBytes -= buffer.capacity();
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+        }
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /** Returns the capacity of the buffers this allocates for the given size */
+    static int capacityOf(int size) {
+        return size > MAX_SIZE ? size : MIN_SIZE << sizeClass(size);
+    }
+
+    /** Gives back a buffer allocated from this pool. The buffer must not be used after this */
+    void release(ByteBuffer buffer) {
+        if ( ! buffer.isDirect()) {
+            return;
+        }
+        synchronized (this) {
+            if (pooledBytes + buffer.capacity() > maxPooledBytes) {
+                return;
+            }
+            free.get(sizeClass(buffer.capacity())).addFirst(buffer);
+            pooledBytes += buffer.capacity();
+        }
+    }
+
+    /** Returns the number of bytes in the buffers currently held by this pool */
+    synchronized long pooledBytes() {
+        return pooledBytes;
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros((size - 1) / MIN_SIZE);
+    }
+}
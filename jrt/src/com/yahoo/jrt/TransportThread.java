@@ -69,6 +69,8 @@ public class TransportThread {
 
     private static final Logger log = Logger.getLogger(TransportThread.class.getName());
 
+    private static final long MAX_POOLED_BUFFER_BYTES = 16 * 1024 * 1024;
+
     private final Transport parent;
     private final Thread    thread;
     private final Queue     queue;
@@ -76,6 +78,7 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BUFFER_BYTES);
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -186,6 +189,11 @@ public class TransportThread {
         return parent;
     }
 
+    /** Returns the pool of the buffers of the connections handled by this */
+    BufferPool bufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
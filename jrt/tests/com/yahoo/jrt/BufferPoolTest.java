@@ -0,0 +1,59 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BufferPoolTest {
+
+    @org.junit.Test
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPool(0);
+        assertEquals(BufferPool.MIN_SIZE, pool.allocate(1).capacity());
+        assertEquals(BufferPool.MIN_SIZE, pool.allocate(BufferPool.MIN_SIZE).capacity());
+        assertEquals(2 * BufferPool.MIN_SIZE, pool.allocate(BufferPool.MIN_SIZE + 1).capacity());
+        assertEquals(65536, pool.allocate(40000).capacity());
+        assertEquals(BufferPool.MAX_SIZE, pool.allocate(BufferPool.MAX_SIZE).capacity());
+        assertTrue(pool.allocate(BufferPool.MAX_SIZE).isDirect());
+
+        ByteBuffer large = pool.allocate(BufferPool.MAX_SIZE + 1);
+        assertFalse(large.isDirect());
+        assertEquals(BufferPool.MAX_SIZE + 1, large.capacity());
+    }
+
+    @org.junit.Test
+    public void testBuffersAreReused() {
+        BufferPool pool = new BufferPool(65536);
+        ByteBuffer a = pool.allocate(30000);
+        a.order(ByteOrder.LITTLE_ENDIAN).putInt(42);
+        pool.release(a);
+        assertEquals(32768, pool.pooledBytes());
+
+        assertNotSame(a, pool.allocate(1000));
+        ByteBuffer b = pool.allocate(20000);
+        assertSame(a, b);
+        assertEquals(0, b.position());
+        assertEquals(b.capacity(), b.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, b.order());
+        assertEquals(0, pool.pooledBytes());
+    }
+
+    @org.junit.Test
+    public void testPoolIsBounded() {
+        BufferPool pool = new BufferPool(65536);
+        ByteBuffer a = pool.allocate(65536);
+        ByteBuffer b = pool.allocate(4096);
+        pool.release(a);
+        pool.release(b);
+        pool.release(ByteBuffer.allocate(4096));
+        assertEquals(65536, pool.pooledBytes());
+        assertNotSame(b, pool.allocate(4096));
+    }
+
+}
@@ -278,4 +278,57 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        Buffer buf = new Buffer(1000, pool);
+        ByteBuffer b = buf.getWritable(10);
+        assertTrue(b.isDirect());
+        assertEquals(BufferPool.MIN_SIZE, b.capacity());
+        for (int i = 0; i < 5000; i++) {
+            buf.getWritable(1).put((byte)i);
+        }
+        b = buf.getReadable();
+        assertTrue(b.isDirect());
+        assertEquals(8192, b.capacity());
+        assertEquals(BufferPool.MIN_SIZE, pool.pooledBytes());
+        for (int i = 0; i < 4990; i++) {
+            assertEquals((byte)i, b.get());
+        }
+        assertTrue(buf.shrink(100));
+        assertEquals(8192, pool.pooledBytes());
+        b = buf.getReadable();
+        assertEquals(BufferPool.MIN_SIZE, b.capacity());
+        assertEquals(10, b.remaining());
+        for (int i = 4990; i < 5000; i++) {
+            assertEquals((byte)i, b.get());
+        }
+        buf.release();
+        assertEquals(0, buf.bytes());
+        assertEquals(8192 + BufferPool.MIN_SIZE, pool.pooledBytes());
+    }
+
+    @org.junit.Test
+    public void testPooledBufferIsNotShrunkToTheSameSizeClass() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        Buffer buf = new Buffer(8000, pool);
+        ByteBuffer b = buf.getWritable(10);
+        assertEquals(8192, b.capacity());
+        b.put((byte)10);
+
+        assertFalse(buf.shrink(5000));
+        assertEquals(8192, buf.getReadable().capacity());
+        assertEquals(0, pool.pooledBytes());
+
+        assertTrue(buf.shrink(3000));
+        b = buf.getReadable();
+        assertEquals(BufferPool.MIN_SIZE, b.capacity());
+        assertEquals(8192, pool.pooledBytes());
+        assertEquals(10, b.get());
+
+        assertFalse(buf.shrink(3000));
+        assertEquals(BufferPool.MIN_SIZE, buf.getReadable().capacity());
+        assertEquals(8192, pool.pooledBytes());
+    }
+
 }
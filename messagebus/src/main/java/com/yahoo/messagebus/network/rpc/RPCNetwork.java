@@ -57,6 +57,7 @@ public class RPCNetwork implements Network, MethodHandler {
     private final RPCTargetPool targetPool;
     private final RPCServicePool servicePool;
     private final Acceptor listener;
+    private final int maxBatchSize;
     private final Mirror mirror;
     private final Register register;
     private final TreeMap<Version, RPCSendAdapter> sendAdapters = new TreeMap<>();
@@ -93,6 +94,7 @@ public class RPCNetwork implements Network, MethodHandler {
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs(), params.getNumTargetsPerSpec());
         servicePool = new RPCServicePool(this, 4096);
+        maxBatchSize = params.getMaxBatchSize();
 
         Method method = new Method("mbus.getVersion", "", "s", this);
         method.methodDesc("Retrieves the message bus version.");
@@ -186,8 +188,10 @@ public class RPCNetwork implements Network, MethodHandler {
 
         RPCSendAdapter adapter1 = new RPCSendV1();
         RPCSendAdapter adapter2 = new RPCSendV2();
+        RPCSendAdapter adapter3 = new RPCSendV3(maxBatchSize);
         addSendAdapter(new Version(5), adapter1);
         addSendAdapter(new Version(6,149), adapter2);
+        addSendAdapter(new Version(7,300), adapter3);
     }
 
     @Override
@@ -21,6 +21,7 @@ public class RPCNetworkParams {
     private double connectionExpireSecs = 30;
     private int numTargetsPerSpec = 1;
     private int numNetworkThreads = 2;
+    private int maxBatchSize = 1;
 
     private int transportEventsBeforeWakeup = 1;
     public enum Optimization {LATENCY, THROUGHPUT}
@@ -48,6 +49,7 @@ public class RPCNetworkParams {
         maxOutputBufferSize = params.maxOutputBufferSize;
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
+        maxBatchSize = params.maxBatchSize;
         optimization = params.optimization;
     }
 
@@ -167,6 +169,21 @@ public class RPCNetworkParams {
         return numNetworkThreads;
     }
 
+    /**
+     * Sets the max number of messages to send to the same recipient in a single request. Messages are only batched
+     * while earlier requests to the recipient are waiting for a response. The default, 1, disables batching.
+     *
+     * @param maxBatchSize The max number of messages per request.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
     public RPCNetworkParams setOptimization(Optimization optimization) {
         this.optimization = optimization;
         return this;
@@ -52,6 +52,9 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         net.getSupervisor().addMethod(buildMethod());
     }
 
+    /** Returns the network this is attached to */
+    protected final RPCNetwork net() { return net; }
+
     @Override
     public final void send(RoutingNode recipient, Version version, byte[] payload, long timeRemaining) {
         SendContext ctx = new SendContext(recipient, timeRemaining);
@@ -60,8 +63,6 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         Route route = new Route(recipient.getRoute());
         Hop hop = route.removeHop(0);
 
-        Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
-
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                     "Sending message (version " + version + ") from " + clientIdent + " to '" +
@@ -69,6 +70,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         }
 
         if (hop.getIgnoreResult()) {
+            Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
             address.getTarget().getJRTTarget().invokeVoid(req);
             if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
                 ctx.trace.trace(TraceLevel.SEND_RECEIVE,
@@ -77,10 +79,20 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             Reply reply = new EmptyReply();
             reply.getTrace().swap(ctx.trace);
             net.getOwner().deliverReply(reply, recipient);
+            req.discardParameters(); // allow garbage collection of request parameters
         } else {
-            req.setContext(ctx);
-            address.getTarget().getJRTTarget().invokeAsync(req, ctx.timeout, this);
+            sendWithReply(ctx, version, route, address, payload);
         }
+    }
+
+    /**
+     * Sends a message for which a reply is expected. The reply is delivered to the owner of the network
+     * once it arrives.
+     */
+    protected void sendWithReply(SendContext ctx, Version version, Route route, RPCServiceAddress address, byte[] payload) {
+        Request req = encodeRequest(version, route, address, ctx.recipient.getMessage(), ctx.timeRemaining, payload, ctx.trace.getLevel());
+        req.setContext(ctx);
+        address.getTarget().getJRTTarget().invokeAsync(req, ctx.timeout, this);
         req.discardParameters(); // allow garbage collection of request parameters
     }
 
@@ -112,29 +124,36 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
 
     private void doRequestDone(Request req) {
         SendContext ctx = (SendContext)req.getContext();
-        String serviceName = ((RPCServiceAddress)ctx.recipient.getServiceAddress()).getServiceName();
         Reply reply;
         Error error = null;
         if (!req.checkReturnTypes(getReturnSpec())) {
-            // Map all known JRT errors to the appropriate message bus error.
             reply = new EmptyReply();
-            switch (req.errorCode()) {
-                case com.yahoo.jrt.ErrorCode.TIMEOUT:
-                    error = new Error(ErrorCode.TIMEOUT,
-                            "A timeout occured while waiting for '" + serviceName + "' (" +
-                                    ctx.timeout + " seconds expired); " + req.errorMessage());
-                    break;
-                case com.yahoo.jrt.ErrorCode.CONNECTION:
-                    error = new Error(ErrorCode.CONNECTION_ERROR,
-                            "A connection error occured for '" + serviceName + "'; " + req.errorMessage());
-                    break;
-                default:
-                    error = new Error(ErrorCode.NETWORK_ERROR,
-                            "A network error occured for '" + serviceName + "'; " + req.errorMessage());
-            }
+            error = toError(req, ctx);
         } else {
-            reply = createReply(req.returnValues(), serviceName, ctx.trace);
+            reply = createReply(req.returnValues(), ctx.serviceName(), ctx.trace);
         }
+        deliverReply(ctx, reply, error);
+    }
+
+    /** Maps all known JRT errors of a failed request to the appropriate message bus error */
+    protected final Error toError(Request req, SendContext ctx) {
+        String serviceName = ctx.serviceName();
+        switch (req.errorCode()) {
+            case com.yahoo.jrt.ErrorCode.TIMEOUT:
+                return new Error(ErrorCode.TIMEOUT,
+                        "A timeout occured while waiting for '" + serviceName + "' (" +
+                                ctx.timeout + " seconds expired); " + req.errorMessage());
+            case com.yahoo.jrt.ErrorCode.CONNECTION:
+                return new Error(ErrorCode.CONNECTION_ERROR,
+                        "A connection error occured for '" + serviceName + "'; " + req.errorMessage());
+            default:
+                return new Error(ErrorCode.NETWORK_ERROR,
+                        "A network error occured for '" + serviceName + "'; " + req.errorMessage());
+        }
+    }
+
+    /** Delivers the reply to a sent message to the owner of the network, adding the given error if not null */
+    protected final void deliverReply(SendContext ctx, Reply reply, Error error) {
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                     "Reply (type " + reply.getType() + ") received at " + clientIdent + ".");
@@ -159,7 +178,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     }
 
     @Override
-    public final void invoke(Request request) {
+    public void invoke(Request request) {
         request.detach();
         net.getExecutor().execute(() -> doInvoke(request));
     }
@@ -169,23 +188,28 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
 
         request.discardParameters(); // allow garbage collection of request parameters
 
+        deliverMessage(p, new ReplyContext(request, p.version));
+    }
+
+    /** Decodes a received message and delivers it to the owner of the network, or replies with an error if this fails */
+    protected final void deliverMessage(Params p, ReplyContext replyContext) {
         // Make sure that the owner understands the protocol.
         Protocol protocol = net.getOwner().getProtocol(p.protocolName);
         if (protocol == null) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(replyContext, p.traceLevel,
                     new Error(ErrorCode.UNKNOWN_PROTOCOL,
                             "Protocol '" + p.protocolName + "' is not known by " + serverIdent + "."));
             return;
         }
         Routable routable = protocol.decode(p.version, p.payload);
         if (routable == null) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(replyContext, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Protocol '" + protocol.getName() + "' failed to decode routable."));
             return;
         }
         if (routable instanceof Reply) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(replyContext, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Payload decoded to a reply when expecting a message."));
             return;
@@ -194,7 +218,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         if (p.route != null && p.route.length() > 0) {
             msg.setRoute(net.getRoute(p.route));
         }
-        msg.setContext(new ReplyContext(request, p.version));
+        msg.setContext(replyContext);
         msg.pushHandler(this);
         msg.setRetryEnabled(p.retryEnabled);
         msg.setRetry(p.retry);
@@ -231,6 +255,11 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
                         "An error occured while encoding the reply."));
             }
         }
+        returnReply(ctx, reply, payload);
+    }
+
+    /** Returns an encoded reply to the sender of the message it is a reply to */
+    protected void returnReply(ReplyContext ctx, Reply reply, byte[] payload) {
         createResponse(ctx.request.returnValues(), reply, ctx.version, payload);
         ctx.request.returnRequest();
     }
@@ -238,33 +267,47 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     /**
      * Send an error reply for a given request.
      *
-     * @param request    The JRT request to reply to.
-     * @param version    The version to serialize for.
-     * @param traceLevel The trace level to set in the reply.
-     * @param err        The error to reply with.
+     * @param replyContext The context of the request to reply to.
+     * @param traceLevel   The trace level to set in the reply.
+     * @param err          The error to reply with.
      */
-    private void replyError(Request request, Version version, int traceLevel, Error err) {
+    private void replyError(ReplyContext replyContext, int traceLevel, Error err) {
         Reply reply = new EmptyReply();
-        reply.setContext(new ReplyContext(request, version));
+        reply.setContext(replyContext);
         reply.getTrace().setLevel(traceLevel);
         reply.addError(err);
         handleReply(reply);
     }
 
-    private static class SendContext {
+    protected static class SendContext {
 
         final RoutingNode recipient;
         final Trace trace;
+        final long timeRemaining;
         final double timeout;
 
         SendContext(RoutingNode recipient, long timeRemaining) {
+            this(recipient, new Trace(recipient.getTrace().getLevel()), timeRemaining);
+        }
+
+        private SendContext(RoutingNode recipient, Trace trace, long timeRemaining) {
             this.recipient = recipient;
-            trace = new Trace(recipient.getTrace().getLevel());
+            this.trace = trace;
+            this.timeRemaining = timeRemaining;
             timeout = timeRemaining * 0.001;
         }
+
+        /** Returns a context for sending the same message with the given time remaining, sharing the trace of this */
+        SendContext withTimeRemaining(long timeRemaining) {
+            return new SendContext(recipient, trace, timeRemaining);
+        }
+
+        String serviceName() {
+            return ((RPCServiceAddress)recipient.getServiceAddress()).getServiceName();
+        }
     }
 
-    private static class ReplyContext {
+    protected static class ReplyContext {
 
         final Request request;
         final Version version;
@@ -78,15 +78,15 @@ public class RPCSendV2 extends RPCSend {
     {
 
         Request req = new Request(METHOD_NAME);
-        Values v = req.parameters();
-
-        v.add(new Int8Value(CompressionType.NONE.getCode()));
-        v.add(new Int32Value(0));
-        v.add(new DataValue(new byte[0]));
-
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        encodeMessage(slime.setObject(), version, route, address, msg, payload, traceLevel);
+        encodeBody(req.parameters(), slime);
+        return req;
+    }
 
+    /** Encodes a message into the given slime object */
+    protected final void encodeMessage(Cursor root, Version version, Route route, RPCServiceAddress address, Message msg,
+                                       byte[] payload, int traceLevel) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setString(ROUTE_F, route.toString());
         root.setString(SESSION_F, address.getSessionName());
@@ -96,6 +96,13 @@ public class RPCSendV2 extends RPCSend {
         root.setLong(TIMEREMAINING_F, msg.getTimeRemaining());
         root.setLong(TRACELEVEL_F, traceLevel);
         root.setData(BLOB_F, payload);
+    }
+
+    /** Adds an empty header and the given slime as the compressed body to the given values */
+    protected final void encodeBody(Values v, Slime slime) {
+        v.add(new Int8Value(CompressionType.NONE.getCode()));
+        v.add(new Int32Value(0));
+        v.add(new DataValue(new byte[0]));
 
         byte[] serializedSlime = BinaryFormat.encode(slime);
         Compressor.Compression compressionResult = compressor.compress(serializedSlime);
@@ -103,17 +110,22 @@ public class RPCSendV2 extends RPCSend {
         v.add(new Int8Value(compressionResult.type().getCode()));
         v.add(new Int32Value(compressionResult.uncompressedSize()));
         v.add(new DataValue(compressionResult.data()));
+    }
 
-        return req;
+    /** Returns the slime body of the given values */
+    protected final Inspector decodeBody(Values v) {
+        CompressionType compression = CompressionType.valueOf(v.get(3).asInt8());
+        byte[] slimeBytes = compressor.decompress(v.get(5).asData(), compression, v.get(4).asInt32());
+        return BinaryFormat.decode(slimeBytes).get();
     }
 
     @Override
     protected Reply createReply(Values ret, String serviceName, Trace trace) {
-        CompressionType compression = CompressionType.valueOf(ret.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(ret.get(5).asData(), compression, ret.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return decodeReply(decodeBody(ret), serviceName, trace);
+    }
 
+    /** Decodes a reply from the given slime object */
+    protected final Reply decodeReply(Inspector root, String serviceName, Trace trace) {
         Version version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         byte[] payload = root.field(BLOB_F).asData();
 
@@ -150,10 +162,11 @@ public class RPCSendV2 extends RPCSend {
     }
 
     protected Params toParams(Values args) {
-        CompressionType compression = CompressionType.valueOf(args.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(args.get(5).asData(), compression, args.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return toParams(decodeBody(args));
+    }
+
+    /** Decodes the parameters of a message from the given slime object */
+    protected final Params toParams(Inspector root) {
         Params p = new Params();
         p.version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         p.route = root.field(ROUTE_F).asString();
@@ -169,13 +182,13 @@ public class RPCSendV2 extends RPCSend {
 
     @Override
     protected void createResponse(Values ret, Reply reply, Version version, byte [] payload) {
-        ret.add(new Int8Value(CompressionType.NONE.getCode()));
-        ret.add(new Int32Value(0));
-        ret.add(new DataValue(new byte[0]));
-
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        encodeReply(slime.setObject(), reply, version, payload);
+        encodeBody(ret, slime);
+    }
 
+    /** Encodes a reply into the given slime object */
+    protected final void encodeReply(Cursor root, Reply reply, Version version, byte [] payload) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setDouble(RETRYDELAY_F, reply.getRetryDelay());
         root.setString(PROTOCOL_F, reply.getProtocol().getBytes());
@@ -196,13 +209,6 @@ public class RPCSendV2 extends RPCSend {
                 }
             }
         }
-
-        byte[] serializedSlime = BinaryFormat.encode(slime);
-        Compressor.Compression compressionResult = compressor.compress(serializedSlime);
-
-        ret.add(new Int8Value(compressionResult.type().getCode()));
-        ret.add(new Int32Value(compressionResult.uncompressedSize()));
-        ret.add(new DataValue(compressionResult.data()));
     }
 
 }
@@ -0,0 +1,401 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.component.Version;
+import com.yahoo.concurrent.SystemTimer;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.RequestWaiter;
+import com.yahoo.jrt.Task;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.routing.Route;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implements the request adapter for method "mbus.slime.batch", which sends multiple messages to the same
+ * target in a single request. The messages and replies are encoded as in "mbus.slime", in an array in the
+ * body of the request and the response.
+ *
+ * Messages are batched per target like in Nagle's algorithm: A message is sent at once if there are fewer than
+ * {@link #MAX_BATCHES_IN_FLIGHT} batches waiting for a response from the target, and is otherwise added to a
+ * batch which is sent when one of those responds, or when it is full. Batches therefore only grow when a target
+ * is busy, and sending does not wait for a timer.
+ *
+ * Each message gets a timeout reply at its own deadline, counted from when it was given to this, unless the reply
+ * to its batch is delivered first, and its reply in the batch response is then ignored. Messages which expire
+ * while waiting in a batch are not sent, and a batch request times out with the largest time remaining of the
+ * messages in it when it is sent.
+ *
+ * A received batch is responded to when all its messages have been replied to, so the reply to a fast message
+ * waits for the slowest message in its batch. This head-of-line blocking is accepted in return for one response
+ * per batch. It is limited since batches are only formed while a target is busy, and bounded by the max batch size,
+ * and it does not delay the timeout of any message, as above.
+ *
+ * Targets which do not support this method (returning NO_SUCH_METHOD) are sent single messages using
+ * "mbus.slime" from then on.
+ */
+public class RPCSendV3 extends RPCSendV2 {
+
+    private final static String METHOD_NAME = "mbus.slime.batch";
+    private final static String METHOD_PARAMS = "bixbix";
+    private final static String METHOD_RETURN = "bixbix";
+    private static final String MESSAGES_F = "messages";
+    private static final String REPLIES_F = "replies";
+
+    /** The number of batches which may be outstanding to a target before further messages are batched */
+    static final int MAX_BATCHES_IN_FLIGHT = 2;
+
+    /** A batch is sent once the payloads of its messages exceeds this */
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private final int maxBatchSize;
+
+    /** The batches of each target currently having batches in flight. Access synchronized on this */
+    private final Map<RPCTarget, TargetBatches> batches = new IdentityHashMap<>();
+
+    /** Targets which have responded that they do not support batches */
+    private final Set<RPCTarget> unbatchedTargets = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Creates a batching request adapter
+     *
+     * @param maxBatchSize the max number of messages to send in one request, where 1 or less disables batching
+     *                     of sent messages. Batches are always accepted when received.
+     */
+    public RPCSendV3(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    protected Method buildMethod() {
+        Method method = new Method(METHOD_NAME, METHOD_PARAMS, METHOD_RETURN, this);
+        method.methodDesc("Send a batch of message bus requests and get their replies back.");
+        method.paramDesc(0, "header_encoding", "Encoding type of header.")
+                .paramDesc(1, "header_decodedSize", "Number of bytes after header decoding.")
+                .paramDesc(2, "header_payload", "Slime encoded header payload.")
+                .paramDesc(3, "body_encoding", "Encoding type of body.")
+                .paramDesc(4, "body_decoded_size", "Number of bytes after body decoding.")
+                .paramDesc(5, "body_payload", "Slime encoded body payload, an array of messages.");
+        method.returnDesc(0, "header_encoding", "Encoding type of header.")
+                .returnDesc(1, "header_decoded_size", "Number of bytes after header decoding.")
+                .returnDesc(2, "header_payload", "Slime encoded header payload.")
+                .returnDesc(3, "body_encoding", "Encoding type of body.")
+                .returnDesc(4, "body_encoded_size", "Number of bytes after body decoding.")
+                .returnDesc(5, "body_payload", "Slime encoded body payload, an array of replies in message order.");
+        return method;
+    }
+
+    @Override
+    protected void sendWithReply(SendContext ctx, Version version, Route route, RPCServiceAddress address, byte[] payload) {
+        RPCTarget target = address.getTarget();
+        if (maxBatchSize <= 1 || unbatchedTargets.contains(target)) {
+            super.sendWithReply(ctx, version, route, address, payload);
+            return;
+        }
+
+        Entry entry = new Entry(ctx, version, route, address, payload);
+        entry.expiry = net().getSupervisor().transport().selectThread()
+                            .createTask(() -> net().getExecutor().execute(() -> expire(entry)));
+        entry.expiry.schedule(ctx.timeout);
+
+        Batch batchToSend = null;
+        synchronized (this) {
+            TargetBatches targetBatches = batches.computeIfAbsent(target, __ -> new TargetBatches());
+            if (targetBatches.pending == null)
+                targetBatches.pending = new Batch(target);
+            targetBatches.pending.add(entry);
+            if (targetBatches.inFlight < MAX_BATCHES_IN_FLIGHT || targetBatches.pending.isFull()) {
+                batchToSend = targetBatches.pending;
+                targetBatches.pending = null;
+                targetBatches.inFlight++;
+            }
+        }
+        if (batchToSend != null)
+            sendBatch(batchToSend);
+    }
+
+    private void sendBatch(Batch batch) {
+        if (unbatchedTargets.contains(batch.target)) {
+            batchDone(batch);
+            batch.sendUnbatched();
+            return;
+        }
+
+        batch.removeExpired();
+        if (batch.entries.isEmpty()) {
+            batchDone(batch);
+            return;
+        }
+
+        Slime slime = new Slime();
+        Cursor messages = slime.setObject().setArray(MESSAGES_F);
+        long timeRemaining = 0;
+        for (Entry entry : batch.entries) {
+            encodeMessage(messages.addObject(), entry.version, entry.route, entry.address,
+                          entry.ctx.recipient.getMessage(), entry.payload, entry.ctx.trace.getLevel());
+            timeRemaining = Math.max(timeRemaining, entry.timeRemaining());
+        }
+        Request request = new Request(METHOD_NAME);
+        encodeBody(request.parameters(), slime);
+        batch.target.getJRTTarget().invokeAsync(request, timeRemaining * 0.001, batch);
+        request.discardParameters(); // allow garbage collection of request parameters
+    }
+
+    /** Marks a batch as no longer in flight, and sends the next batch to the same target if any */
+    private void batchDone(Batch batch) {
+        Batch next;
+        synchronized (this) {
+            TargetBatches targetBatches = batches.get(batch.target);
+            next = targetBatches.pending;
+            targetBatches.pending = null;
+            if (next == null && --targetBatches.inFlight == 0)
+                batches.remove(batch.target);
+        }
+        if (next != null)
+            sendBatch(next);
+    }
+
+    /** Delivers a timeout reply to the given entry, unless the reply to its batch is delivered first */
+    private void expire(Entry entry) {
+        if ( ! entry.complete()) return;
+        deliverReply(entry.ctx, new EmptyReply(),
+                     new Error(ErrorCode.TIMEOUT, "A timeout occured while waiting for '" + entry.ctx.serviceName() +
+                                                  "' (" + entry.ctx.timeout + " seconds expired); " +
+                                                  "No response to the batch containing this message"));
+    }
+
+    private void handleBatchDone(Batch batch, Request request) {
+        if (request.errorCode() == com.yahoo.jrt.ErrorCode.NO_SUCH_METHOD) {
+            unbatchedTargets.add(batch.target);
+            batchDone(batch);
+            batch.sendUnbatched();
+            return;
+        }
+        batchDone(batch);
+
+        Inspector replies = request.checkReturnTypes(getReturnSpec()) ? decodeBody(request.returnValues()).field(REPLIES_F)
+                                                                       : null;
+        for (int i = 0; i < batch.entries.size(); i++) {
+            if ( ! batch.entries.get(i).complete()) continue; // expired
+            SendContext ctx = batch.entries.get(i).ctx;
+            if (replies == null)
+                deliverReply(ctx, new EmptyReply(), toError(request, ctx));
+            else if (replies.entries() != batch.entries.size())
+                deliverReply(ctx, new EmptyReply(),
+                             new Error(ErrorCode.NETWORK_ERROR, "A network error occured for '" + ctx.serviceName() + "'; " +
+                                                                "Expected " + batch.entries.size() + " replies but got " +
+                                                                replies.entries()));
+            else
+                deliverReply(ctx, decodeReply(replies.entry(i), ctx.serviceName(), ctx.trace), null);
+        }
+    }
+
+    @Override
+    public void invoke(Request request) {
+        request.detach();
+        net().getExecutor().execute(() -> doInvoke(request));
+    }
+
+    private void doInvoke(Request request) {
+        Inspector messages = decodeBody(request.parameters()).field(MESSAGES_F);
+        request.discardParameters(); // allow garbage collection of request parameters
+
+        BatchReplies replies = new BatchReplies(request, messages.entries());
+        if (messages.entries() == 0) {
+            replies.returnRequest();
+            return;
+        }
+        for (int i = 0; i < messages.entries(); i++) {
+            Params p = toParams(messages.entry(i));
+            deliverMessage(p, new BatchReplyContext(request, p.version, replies, i));
+        }
+    }
+
+    @Override
+    protected void returnReply(ReplyContext ctx, Reply reply, byte[] payload) {
+        if ( ! (ctx instanceof BatchReplyContext)) {
+            super.returnReply(ctx, reply, payload);
+            return;
+        }
+        BatchReplyContext batchCtx = (BatchReplyContext)ctx;
+        batchCtx.replies.set(batchCtx.index, new EncodableReply(reply, ctx.version, payload));
+    }
+
+    private static class Entry {
+
+        final SendContext ctx;
+        final Version version;
+        final Route route;
+        final RPCServiceAddress address;
+        final byte[] payload;
+
+        /** Whether a reply has been delivered for this, or it has been passed on to be sent unbatched */
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        /** The time in milliseconds at which this expires */
+        final long deadline;
+
+        /** The task expiring this at its deadline */
+        volatile Task expiry = null;
+
+        Entry(SendContext ctx, Version version, Route route, RPCServiceAddress address, byte[] payload) {
+            this.ctx = ctx;
+            this.version = version;
+            this.route = route;
+            this.address = address;
+            this.payload = payload;
+            this.deadline = SystemTimer.INSTANCE.milliTime() + ctx.timeRemaining;
+        }
+
+        /** Returns the number of milliseconds until this expires */
+        long timeRemaining() {
+            return deadline - SystemTimer.INSTANCE.milliTime();
+        }
+
+        /** Returns whether a reply has been delivered for this, or it has been passed on to be sent unbatched */
+        boolean isCompleted() {
+            return completed.get();
+        }
+
+        /** Marks this as completed, and returns whether it was not already completed */
+        boolean complete() {
+            Task expiry = this.expiry;
+            if (expiry != null)
+                expiry.kill();
+            return completed.compareAndSet(false, true);
+        }
+
+    }
+
+    /** The batches of a single target. Access synchronized on the owning adapter */
+    private static class TargetBatches {
+
+        /** The number of batches sent and not yet responded to */
+        int inFlight = 0;
+
+        /** The batch collecting messages to send next, or null if none */
+        Batch pending = null;
+
+    }
+
+    private class Batch implements RequestWaiter {
+
+        final RPCTarget target;
+        final List<Entry> entries = new ArrayList<>();
+        long bytes = 0;
+
+        Batch(RPCTarget target) {
+            this.target = target;
+        }
+
+        void add(Entry entry) {
+            entries.add(entry);
+            bytes += entry.payload.length;
+        }
+
+        /** Removes the messages which have expired, or will have expired before they are sent */
+        void removeExpired() {
+            entries.removeIf(entry -> {
+                if (entry.isCompleted()) return true;
+                if (entry.timeRemaining() > 0) return false;
+                expire(entry);
+                return true;
+            });
+        }
+
+        boolean isFull() {
+            return entries.size() >= maxBatchSize || bytes >= MAX_BATCH_BYTES;
+        }
+
+        void sendUnbatched() {
+            for (Entry entry : entries) {
+                long timeRemaining = entry.timeRemaining();
+                if (timeRemaining <= 0)
+                    expire(entry);
+                else if (entry.complete()) // not expired
+                    RPCSendV3.super.sendWithReply(entry.ctx.withTimeRemaining(timeRemaining),
+                                                  entry.version, entry.route, entry.address, entry.payload);
+            }
+        }
+
+        @Override
+        public void handleRequestDone(Request request) {
+            net().getExecutor().execute(() -> handleBatchDone(this, request));
+        }
+
+    }
+
+    private static class EncodableReply {
+
+        final Reply reply;
+        final Version version;
+        final byte[] payload;
+
+        EncodableReply(Reply reply, Version version, byte[] payload) {
+            this.reply = reply;
+            this.version = version;
+            this.payload = payload;
+        }
+
+    }
+
+    /** Collects the replies to a received batch, and returns the request when all are present */
+    private class BatchReplies {
+
+        private final Request request;
+        private final EncodableReply[] replies;
+        private int missing;
+
+        BatchReplies(Request request, int size) {
+            this.request = request;
+            this.replies = new EncodableReply[size];
+            this.missing = size;
+        }
+
+        void set(int index, EncodableReply reply) {
+            synchronized (this) {
+                replies[index] = reply;
+                if (--missing > 0) return;
+            }
+            returnRequest();
+        }
+
+        void returnRequest() {
+            Slime slime = new Slime();
+            Cursor array = slime.setObject().setArray(REPLIES_F);
+            for (EncodableReply reply : replies)
+                encodeReply(array.addObject(), reply.reply, reply.version, reply.payload);
+            encodeBody(request.returnValues(), slime);
+            request.returnRequest();
+        }
+
+    }
+
+    private static class BatchReplyContext extends ReplyContext {
+
+        final BatchReplies replies;
+        final int index;
+
+        BatchReplyContext(Request request, Version version, BatchReplies replies, int index) {
+            super(request, version);
+            this.replies = replies;
+            this.index = index;
+        }
+
+    }
+
+}
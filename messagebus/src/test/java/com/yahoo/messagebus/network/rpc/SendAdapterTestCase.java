@@ -3,6 +3,7 @@ package com.yahoo.messagebus.network.rpc;
 
 import com.yahoo.component.Version;
 import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
 import com.yahoo.jrt.slobrok.server.Slobrok;
 import com.yahoo.messagebus.*;
 import com.yahoo.messagebus.network.Identity;
@@ -19,6 +20,7 @@ import org.junit.Test;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -84,9 +86,138 @@ public class SendAdapterTestCase {
         assertTrue(srcServer.net.getSendAdapter(new Version(5,0)) instanceof RPCSendV1);
         assertTrue(srcServer.net.getSendAdapter(new Version(6,148)) instanceof RPCSendV1);
         assertTrue(srcServer.net.getSendAdapter(new Version(6,149)) instanceof RPCSendV2);
+        assertFalse(srcServer.net.getSendAdapter(new Version(7,299)) instanceof RPCSendV3);
+        assertTrue(srcServer.net.getSendAdapter(new Version(7,300)) instanceof RPCSendV3);
         assertTrue(srcServer.net.getSendAdapter(new Version(9,9999)) instanceof RPCSendV2);
     }
 
+    @Test
+    public void requireThatMessagesAreBatchedWhenTargetIsBusy() throws Exception {
+        AtomicInteger batchRequests = countRequests("mbus.slime.batch", new Version(9, 999));
+        AtomicInteger singleRequests = countRequests("mbus.slime", new Version(6, 149));
+        TestServer batchingServer = createBatchingServer();
+        Receptor replies = new Receptor();
+        SourceSession batchingSession = batchingServer.mb.createSourceSession(
+                new SourceSessionParams().setTimeout(600.0).setThrottlePolicy(null).setReplyHandler(replies));
+        try {
+            int messages = 100;
+            for (int i = 0; i < messages; i++)
+                assertTrue(batchingSession.send(new SimpleMessage("foo" + i), Route.parse("dst/session")).isAccepted());
+
+            replyToMessages(messages);
+            assertReplies(messages, replies);
+            assertTrue("Several messages are sent in one request", batchRequests.get() < messages);
+            assertEquals(0, singleRequests.get());
+        }
+        finally {
+            batchingSession.destroy();
+            batchingServer.destroy();
+        }
+    }
+
+    @Test
+    public void requireThatTargetsNotSupportingBatchesAreSentSingleMessages() throws Exception {
+        Method removed = new Method("mbus.slime.batch", "bixbix", "bixbix", request -> { });
+        ((RPCNetwork)dstServer.net).getSupervisor().addMethod(removed); // replaces the batch method ...
+        ((RPCNetwork)dstServer.net).getSupervisor().removeMethod(removed); // ... such that it can be removed
+        AtomicInteger singleRequests = countRequests("mbus.slime", new Version(6, 149));
+        TestServer batchingServer = createBatchingServer();
+        Receptor replies = new Receptor();
+        SourceSession batchingSession = batchingServer.mb.createSourceSession(
+                new SourceSessionParams().setTimeout(600.0).setThrottlePolicy(null).setReplyHandler(replies));
+        try {
+            int messages = 10;
+            for (int i = 0; i < messages; i++)
+                assertTrue(batchingSession.send(new SimpleMessage("foo" + i), Route.parse("dst/session")).isAccepted());
+
+            replyToMessages(messages);
+            assertReplies(messages, replies);
+            assertEquals(messages, singleRequests.get());
+        }
+        finally {
+            batchingSession.destroy();
+            batchingServer.destroy();
+        }
+    }
+
+    @Test
+    public void requireThatMessagesInABatchExpireAtTheirOwnTimeout() throws Exception {
+        TestServer batchingServer = createBatchingServer();
+        Receptor replies = new Receptor();
+        SourceSession batchingSession = batchingServer.mb.createSourceSession(
+                new SourceSessionParams().setTimeout(600.0).setThrottlePolicy(null).setReplyHandler(replies));
+        try {
+            Receptor handler = (Receptor)dstSession.getMessageHandler();
+            for (int i = 0; i < RPCSendV3.MAX_BATCHES_IN_FLIGHT; i++)
+                assertTrue(batchingSession.send(new SimpleMessage("blocker"), Route.parse("dst/session")).isAccepted());
+            Message blocker = handler.getMessage(60);
+            assertNotNull(blocker);
+            assertNotNull(handler.getMessage(60));
+
+            // Both are batched, as the target is busy
+            assertTrue(batchingSession.send(new SimpleMessage("long"), Route.parse("dst/session")).isAccepted());
+            Message shortMessage = new SimpleMessage("short").setTimeRemaining(1000);
+            shortMessage.setRetryEnabled(false);
+            assertTrue(batchingSession.send(shortMessage, Route.parse("dst/session")).isAccepted());
+            reply(blocker);
+            assertNotNull(replies.getReply(60));
+
+            Message longMessage = handler.getMessage(60);
+            assertEquals("long", ((SimpleMessage)longMessage).getValue());
+            reply(longMessage);
+            Message receivedShortMessage = handler.getMessage(60);
+            assertEquals("short", ((SimpleMessage)receivedShortMessage).getValue());
+
+            Reply expired = replies.getReply(60); // before the batch is responded to
+            assertNotNull(expired);
+            assertEquals("short", ((SimpleMessage)expired.getMessage()).getValue());
+            assertEquals(ErrorCode.TIMEOUT, expired.getError(0).getCode());
+
+            reply(receivedShortMessage);
+            Reply reply = replies.getReply(60);
+            assertNotNull(reply);
+            assertFalse(reply.hasErrors());
+            assertEquals("long", ((SimpleMessage)reply.getMessage()).getValue());
+            assertNull(replies.getReply(1)); // the reply to the expired message in the batch is ignored
+        }
+        finally {
+            batchingSession.destroy();
+            batchingServer.destroy();
+        }
+    }
+
+    @Test
+    public void requireThatMessagesExpiringWhileWaitingInABatchAreNotSent() throws Exception {
+        TestServer batchingServer = createBatchingServer();
+        Receptor replies = new Receptor();
+        SourceSession batchingSession = batchingServer.mb.createSourceSession(
+                new SourceSessionParams().setTimeout(600.0).setThrottlePolicy(null).setReplyHandler(replies));
+        try {
+            Receptor handler = (Receptor)dstSession.getMessageHandler();
+            for (int i = 0; i < RPCSendV3.MAX_BATCHES_IN_FLIGHT; i++)
+                assertTrue(batchingSession.send(new SimpleMessage("blocker"), Route.parse("dst/session")).isAccepted());
+            List<Message> blockers = Arrays.asList(handler.getMessage(60), handler.getMessage(60));
+
+            // Batched, as the target is busy
+            Message shortMessage = new SimpleMessage("short").setTimeRemaining(1000);
+            shortMessage.setRetryEnabled(false);
+            assertTrue(batchingSession.send(shortMessage, Route.parse("dst/session")).isAccepted());
+
+            Reply expired = replies.getReply(60); // while no batch has been responded to
+            assertNotNull(expired);
+            assertEquals("short", ((SimpleMessage)expired.getMessage()).getValue());
+            assertEquals(ErrorCode.TIMEOUT, expired.getError(0).getCode());
+
+            blockers.forEach(blocker -> reply(blocker));
+            assertReplies(2, replies);
+            assertNull(handler.getMessage(1)); // the expired message is not sent
+        }
+        finally {
+            batchingSession.destroy();
+            batchingServer.destroy();
+        }
+    }
+
     @Test
     public void requireThatMessagesCanBeSentAcrossAllSupportedVersions() throws Exception {
         List<Version> versions = Arrays.asList(
@@ -111,6 +242,51 @@ public class SendAdapterTestCase {
     //
     ////////////////////////////////////////////////////////////////////////////////
 
+    private TestServer createBatchingServer() throws ListenFailedException {
+        TestServer batchingServer = new TestServer(
+                new MessageBusParams().addProtocol(new TestProtocol()),
+                new RPCNetworkParams().setMaxBatchSize(16).setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok)));
+        batchingServer.net.setVersion(new Version(9, 999));
+        dstServer.net.setVersion(new Version(9, 999));
+        assertTrue(batchingServer.waitSlobrok("dst/session", 1));
+        return batchingServer;
+    }
+
+    /** Counts the requests to the given method of the destination, handled by the send adapter of the given version */
+    private AtomicInteger countRequests(String methodName, Version adapterVersion) {
+        AtomicInteger requests = new AtomicInteger();
+        RPCSendAdapter adapter = dstServer.net.getSendAdapter(adapterVersion);
+        ((RPCNetwork)dstServer.net).getSupervisor().addMethod(new Method(methodName, "bixbix", "bixbix", request -> {
+            requests.incrementAndGet();
+            ((RPCSend)adapter).invoke(request);
+        }));
+        return requests;
+    }
+
+    private void replyToMessages(int messages) {
+        Receptor handler = (Receptor)dstSession.getMessageHandler();
+        for (int i = 0; i < messages; i++) {
+            Message msg = handler.getMessage(60);
+            assertNotNull(msg);
+            reply(msg);
+        }
+    }
+
+    private void reply(Message msg) {
+        Reply reply = new SimpleReply("bar:" + ((SimpleMessage)msg).getValue());
+        reply.swapState(msg);
+        dstSession.reply(reply);
+    }
+
+    private static void assertReplies(int messages, Receptor replies) {
+        for (int i = 0; i < messages; i++) {
+            Reply reply = replies.getReply(60);
+            assertNotNull(reply);
+            assertFalse(reply.hasErrors());
+            assertEquals("bar:" + ((SimpleMessage)reply.getMessage()).getValue(), ((SimpleReply)reply).getValue());
+        }
+    }
+
     private void assertVersionedSend(Version srcVersion, Version itrVersion, Version dstVersion) {
         System.out.println("Sending from " + srcVersion + " through " + itrVersion + " to " + dstVersion + ":");
         srcServer.net.setVersion(srcVersion);
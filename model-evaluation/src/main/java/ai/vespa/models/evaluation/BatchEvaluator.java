@@ -0,0 +1,245 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.google.common.annotations.Beta;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An evaluator which can be used to evaluate a single function once over a batch of bindings.
+ * Arguments are bound either to a column, holding one value for each row of the batch,
+ * or to a single value which is used for all rows. All columns must have the same size.
+ * A single context is reused for all rows, so this is cheaper than using a function evaluator per row.
+ */
+// This wraps all access to the context and the ranking expression to avoid incorrect usage
+@Beta
+public class BatchEvaluator {
+
+    private final ExpressionFunction function;
+    private final LazyArrayContext context;
+
+    /** The columns bound in this, indexed by argument name */
+    private final Map<String, Value[]> columns = new LinkedHashMap<>();
+
+    /** The context indexes and values of the columns, resolved when evaluating */
+    private int[] columnIndexes;
+    private Value[][] columnValues;
+
+    private boolean evaluated = false;
+
+    BatchEvaluator(ExpressionFunction function, LazyArrayContext context) {
+        this.function = function;
+        this.context = context;
+    }
+
+    /**
+     * Binds the given variable referred in this expression to a column of values, one for each row.
+     *
+     * @param name the variable to bind
+     * @param values the values this becomes bound to in each row
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, List<Tensor> values) {
+        TensorType requiredType = requireArgumentType(name);
+        Value[] column = new Value[values.size()];
+        for (int row = 0; row < column.length; row++) {
+            Tensor value = values.get(row);
+            if ( ! value.type().isAssignableTo(requiredType))
+                throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " +
+                                                   value.type() + " in row " + row);
+            column[row] = new TensorValue(value).freeze();
+        }
+        return bindColumn(name, column);
+    }
+
+    /**
+     * Binds the given variable referred in this expression to a column of scalar values, one for each row.
+     *
+     * @param name the variable to bind
+     * @param values the values this becomes bound to in each row
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, double[] values) {
+        TensorType requiredType = requireArgumentType(name);
+        if ( ! TensorType.empty.isAssignableTo(requiredType))
+            throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " +
+                                               TensorType.empty);
+        Value[] column = new Value[values.length];
+        for (int row = 0; row < column.length; row++)
+            column[row] = DoubleValue.frozen(values[row]);
+        return bindColumn(name, column);
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, Tensor value) {
+        requireUnused();
+        TensorType requiredType = requireArgumentType(name);
+        if ( ! value.type().isAssignableTo(requiredType))
+            throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " + value.type());
+        columns.remove(name);
+        context.put(name, new TensorValue(value));
+        return this;
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     * This is equivalent to <code>bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build())</code>
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, double value) {
+        return bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     * String values are not yet supported in tensors.
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, String value) {
+        requireUnused();
+        columns.remove(name);
+        context.put(name, new StringValue(value));
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchEvaluator setMissingValue(Tensor value) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot change the missing value in a used evaluator");
+        context.setMissingValue(value);
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchEvaluator setMissingValue(double value) {
+        return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Evaluates the function for each row of the bound columns.
+     *
+     * @return the value of the function in each row, in the order of the rows
+     * @throws IllegalStateException if no column is bound, or some argument is not bound to a valid value
+     */
+    public List<Tensor> evaluate() {
+        int rows = prepare();
+        List<Tensor> results = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++)
+            results.add(evaluate(row).asTensor());
+        return results;
+    }
+
+    /**
+     * Evaluates the function, which must return a scalar, for each row of the bound columns.
+     * This avoids creating a tensor for each result.
+     *
+     * @return the value of the function in each row, in the order of the rows
+     * @throws IllegalStateException if no column is bound, or some argument is not bound to a valid value
+     */
+    public double[] evaluateDoubles() {
+        int rows = prepare();
+        double[] results = new double[rows];
+        for (int row = 0; row < rows; row++)
+            results[row] = evaluate(row).asDouble();
+        return results;
+    }
+
+    private Value evaluate(int row) {
+        for (int i = 0; i < columnIndexes.length; i++)
+            context.put(columnIndexes[i], columnValues[i][row]);
+        context.resetComputedValues(); // values computed in the previous row, or in a previous evaluation
+        return function.getBody().evaluate(context);
+    }
+
+    /** Validates the bindings of this, resolves the context indexes of the columns and returns the number of rows */
+    private int prepare() {
+        if (columns.isEmpty())
+            throw new IllegalStateException("No column is bound in this evaluator");
+        for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
+            if (columns.containsKey(argument.getKey())) continue;
+            if (context.isMissing(argument.getKey()))
+                throw new IllegalStateException("Missing argument '" + argument.getKey() +
+                                                "': Must be bound to a value of type " + argument.getValue());
+            if (! context.get(argument.getKey()).type().isAssignableTo(argument.getValue()))
+                throw new IllegalStateException("Argument '" + argument.getKey() +
+                                                "' must be bound to a value of type " + argument.getValue());
+        }
+        evaluated = true;
+
+        columnIndexes = new int[columns.size()];
+        columnValues = new Value[columns.size()][];
+        int i = 0;
+        for (Map.Entry<String, Value[]> column : columns.entrySet()) {
+            columnIndexes[i] = context.getIndex(column.getKey());
+            columnValues[i] = column.getValue();
+            i++;
+        }
+        return columnValues[0].length;
+    }
+
+    private BatchEvaluator bindColumn(String name, Value[] column) {
+        requireUnused();
+        context.getIndex(name); // Fail early if this cannot be bound
+        for (Map.Entry<String, Value[]> other : columns.entrySet()) {
+            if (other.getKey().equals(name)) continue;
+            if (other.getValue().length != column.length)
+                throw new IllegalArgumentException("'" + name + "' is bound to " + column.length + " values, but '" +
+                                                   other.getKey() + "' is bound to " + other.getValue().length);
+            break; // all other columns have the same size
+        }
+        columns.put(name, column);
+        return this;
+    }
+
+    private TensorType requireArgumentType(String name) {
+        TensorType requiredType = function.argumentTypes().get(name);
+        if (requiredType == null)
+            throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
+                                               ". Expected arguments: " + function.argumentTypes().entrySet().stream()
+                                                                                  .map(e -> e.getKey() + ": " + e.getValue())
+                                                                                  .collect(Collectors.joining(", ")));
+        return requiredType;
+    }
+
+    private void requireUnused() {
+        if (evaluated)
+            throw new IllegalStateException("Cannot bind a new value in a used evaluator");
+    }
+
+    /** Returns the function evaluated by this */
+    public ExpressionFunction function() { return function; }
+
+}
@@ -128,6 +128,11 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return indexedBindings.indexOf(name) == null;
     }
 
+    /** Forgets the values computed by the functions referenced in this, such that it can be reused with new bindings */
+    void resetComputedValues() {
+        indexedBindings.resetComputedValues();
+    }
+
     /** Returns the value which should be used when no value is set */
     public Value defaultValue() {
         return indexedBindings.missingValue;
@@ -258,6 +263,12 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             values[index] = value;
         }
 
+        void resetComputedValues() {
+            for (Value value : values)
+                if (value instanceof LazyValue)
+                    ((LazyValue)value).reset();
+        }
+
         Set<String> names() { return nameToIndex.keySet(); }
         Set<String> arguments() { return arguments; }
         Integer indexOf(String name) { return nameToIndex.get(name); }
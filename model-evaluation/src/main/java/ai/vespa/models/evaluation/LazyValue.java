@@ -34,6 +34,11 @@ class LazyValue extends Value {
         this.model = model;
     }
 
+    /** Forgets the value computed by this, such that it is computed again the next time it is requested */
+    void reset() {
+        computedValue = null;
+    }
+
     private Value computedValue() {
         if (computedValue == null)
             computedValue = model.requireReferencedFunction(function).getBody().evaluate(context);
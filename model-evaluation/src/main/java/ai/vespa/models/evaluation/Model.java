@@ -5,17 +5,23 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.Reference;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.ScalarOptimizer;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -87,12 +93,9 @@ public class Model {
             }
         }
         this.contextPrototypes = contextBuilder.build();
-        this.functions = ImmutableList.copyOf(functions.values());
-        this.publicFunctions = ImmutableList.copyOf(functions.values().stream()
-                                                                      .filter(f ->  ! f.getName().startsWith(INTERMEDIATE_OPERATION_FUNCTION_PREFIX))
-                                                                      .collect(Collectors.toList()));
 
-        // Optimize functions
+        // Optimize functions. Referenced functions are evaluated in the context of the function referencing them,
+        // whose indexes are not those of the prototype used here, so these are not compiled
         ImmutableMap.Builder<FunctionReference, ExpressionFunction> functionsBuilder = new ImmutableMap.Builder<>();
         for (Map.Entry<FunctionReference, ExpressionFunction> function : referencedFunctions.entrySet()) {
             ExpressionFunction optimizedFunction = optimize(function.getValue(),
@@ -100,6 +103,14 @@ public class Model {
             functionsBuilder.put(function.getKey(), optimizedFunction);
         }
         this.referencedFunctions = functionsBuilder.build();
+
+        // Compile the scalar parts of free functions, which are always evaluated in a copy of their own context prototype
+        for (Map.Entry<FunctionReference, ExpressionFunction> function : functions.entrySet())
+            functions.put(function.getKey(), compile(function.getValue()));
+        this.functions = ImmutableList.copyOf(functions.values());
+        this.publicFunctions = ImmutableList.copyOf(functions.values().stream()
+                                                                      .filter(f ->  ! f.getName().startsWith(INTERMEDIATE_OPERATION_FUNCTION_PREFIX))
+                                                                      .collect(Collectors.toList()));
     }
 
     /** Returns an optimized version of the given function */
@@ -109,6 +120,33 @@ public class Model {
         return function;
     }
 
+    /** Returns a copy of the given function where scalar sub-expressions are compiled */
+    private ExpressionFunction compile(ExpressionFunction function) {
+        RankingExpression body = new RankingExpression(function.getBody().getName(), function.getBody().getRoot());
+        LazyArrayContext context = contextPrototypes.get(function.getName());
+        new ScalarOptimizer().optimize(body, context, typesOf(function, context), new OptimizationReport());
+        return function.withBody(body);
+    }
+
+    /** Returns the types of the values bound in the given context when invoking the given function */
+    private TypeContext<Reference> typesOf(ExpressionFunction function, LazyArrayContext context) {
+        return new TypeContext<Reference>() {
+
+            @Override
+            public TensorType getType(Reference reference) { return getType(reference.toString()); }
+
+            @Override
+            public TensorType getType(String name) {
+                if (context.isMissing(name)) return null;
+                if (context.arguments().contains(name)) return function.argumentTypes().get(name);
+                Optional<FunctionReference> reference = FunctionReference.fromSerial(name);
+                if (reference.isPresent()) return requireReferencedFunction(reference.get()).returnType().orElse(null);
+                return context.get(name).type(); // a constant
+            }
+
+        };
+    }
+
     public String name() { return name; }
 
     /**
@@ -172,22 +210,42 @@ public class Model {
      *              by dot.
      * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
      */
-    public FunctionEvaluator evaluatorOf(String ... names) {  // TODO: Parameter overloading?
+    public FunctionEvaluator evaluatorOf(String ... names) {
+        return evaluatorOf(functionOf(names));
+    }
+
+    /**
+     * Returns an evaluator which can be used to evaluate the given function over a batch of bindings
+     * in a single thread once.
+     *
+     * Usage:
+     * <code>List&lt;Tensor&gt; results = model.batchEvaluatorOf("myFunction").bind("foo", values).bind("bar", value).evaluate()</code>
+     *
+     * @param names the names identifying the function, as in {@link #evaluatorOf}
+     * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
+     */
+    public BatchEvaluator batchEvaluatorOf(String ... names) {
+        ExpressionFunction function = functionOf(names);
+        return new BatchEvaluator(function, requireContextPrototype(function.getName()).copy());
+    }
+
+    /** Returns the function identified by the given names, as described in {@link #evaluatorOf} */
+    private ExpressionFunction functionOf(String ... names) {  // TODO: Parameter overloading?
         if (names.length == 0) {
             if (functions.size() > 1)
                 throwUndeterminedFunction("More than one function is available in " + this + ", but no name is given");
-            return evaluatorOf(functions.get(0));
+            return functions.get(0);
         }
         else if (names.length == 1) {
             String name = names[0];
             ExpressionFunction function = function(name);
-            if (function != null) return evaluatorOf(function);
+            if (function != null) return function;
 
             // Check if the name is a signature
             List<ExpressionFunction> functionsStartingByName =
                     functions.stream().filter(f -> f.getName().startsWith(name + ".")).collect(Collectors.toList());
             if (functionsStartingByName.size() == 1)
-                return evaluatorOf(functionsStartingByName.get(0));
+                return functionsStartingByName.get(0);
             if (functionsStartingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions start by '" + name + "' in " + this);
 
@@ -195,19 +253,19 @@ public class Model {
             List<ExpressionFunction> functionsEndingByName =
                     functions.stream().filter(f -> f.getName().endsWith("." + name)).collect(Collectors.toList());
             if (functionsEndingByName.size() == 1)
-                return evaluatorOf(functionsEndingByName.get(0));
+                return functionsEndingByName.get(0);
             if (functionsEndingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions called '" + name + "' in " + this);
 
             // To handle TensorFlow conversion to ONNX
             if (name.startsWith("serving_default")) {
-                return evaluatorOf("default" + name.substring("serving_default".length()));
+                return functionOf("default" + name.substring("serving_default".length()));
             }
 
             throwUndeterminedFunction("No function '" + name + "' in " + this);
         }
         else if (names.length == 2) {
-            return evaluatorOf(names[0] + "." + names[1]);
+            return functionOf(names[0] + "." + names[1]);
         }
         throw new IllegalArgumentException("No more than 2 names can be given when choosing a function, got " +
                                            Arrays.toString(names));
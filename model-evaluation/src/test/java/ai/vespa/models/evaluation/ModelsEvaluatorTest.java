@@ -17,8 +17,10 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author bratseth
@@ -122,6 +124,67 @@ public class ModelsEvaluatorTest {
 
     }
 
+    @Test
+    public void testBatchEvaluationDependingFunctionTakingArguments() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        BatchEvaluator function = models.batchEvaluatorOf("macros", "secondphase");
+        function.bind("match", new double[] { 3, 1, 0, -5 });
+        function.bind("rankBoost", 5);
+        assertArrayEquals(new double[] { 32.0, 24.0, 20.0, 0.0 }, function.evaluateDoubles(), delta);
+    }
+
+    @Test
+    public void testRepeatedBatchEvaluation() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        BatchEvaluator function = models.batchEvaluatorOf("macros", "secondphase");
+        function.bind("match", new double[] { 3, -5 });
+        function.bind("rankBoost", 5);
+        assertEquals(List.of(Tensor.from(32.0), Tensor.from(0.0)), function.evaluate());
+        assertArrayEquals(new double[] { 32.0, 0.0 }, function.evaluateDoubles(), delta);
+    }
+
+    @Test
+    public void testBatchEvaluationOfTensors() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(arg1 * arg2) + arg3"));
+        function = function.withArgument("arg1", TensorType.fromSpec("tensor(d0[2])"));
+        function = function.withArgument("arg2", TensorType.fromSpec("tensor(d0[2])"));
+        function = function.withArgument("arg3", TensorType.empty);
+        Model model = new Model("test-model", List.of(function));
+
+        BatchEvaluator evaluator = model.batchEvaluatorOf("test");
+        evaluator.bind("arg1", List.of(Tensor.from("tensor(d0[2]):[1, 2]"),
+                                       Tensor.from("tensor(d0[2]):[3, 4]"),
+                                       Tensor.from("tensor(d0[2]):[0, 0]")));
+        evaluator.bind("arg2", Tensor.from("tensor(d0[2]):[10, 100]"));
+        evaluator.bind("arg3", new double[] { 0.5, 1.5, 2.5 });
+        assertEquals(List.of(Tensor.from(210.5), Tensor.from(431.5), Tensor.from(2.5)), evaluator.evaluate());
+
+        try { // Columns of different sizes
+            model.batchEvaluatorOf("test").bind("arg3", new double[] { 1, 2 })
+                                          .bind("arg1", List.of(Tensor.from("tensor(d0[2]):[1, 2]")));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("'arg1' is bound to 1 values, but 'arg3' is bound to 2", Exceptions.toMessageString(e));
+        }
+
+        try { // No columns
+            model.batchEvaluatorOf("test").bind("arg3", 1).evaluate();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("No column is bound in this evaluator", Exceptions.toMessageString(e));
+        }
+
+        try { // Attempt to reuse evaluator
+            evaluator.bind("arg3", new double[] { 0, 0, 0 });
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Cannot bind a new value in a used evaluator", Exceptions.toMessageString(e));
+        }
+    }
+
     // TODO: Test argument-less function
     // TODO: Test with nested functions
 
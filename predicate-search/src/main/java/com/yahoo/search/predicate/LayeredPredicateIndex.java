@@ -0,0 +1,165 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.google.common.annotations.Beta;
+import com.yahoo.document.predicate.Predicate;
+import org.eclipse.collections.api.set.primitive.ImmutableIntSet;
+import org.eclipse.collections.impl.factory.primitive.IntSets;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * A {@link PredicateIndex} which can be updated without rebuilding it, by layering a small index of
+ * updated documents on top of an immutable base index.
+ * <p>
+ * Indexing a document which exists in the base index replaces it, and removing a document hides it
+ * from the base index. The delta index is rebuilt from all updated documents on the first search after
+ * an update, so this is cheap as long as the number of updated documents is small compared to the
+ * base index. Build a new base index with {@link PredicateIndexBuilder} to fold the updates into it.
+ * </p><p>
+ * Note that the {@link LayeredPredicateIndex} is thread-safe, but a {@link Searcher} is not.
+ * Each thread <strong>must</strong> use its own searcher.
+ * </p>
+ */
+@Beta
+public class LayeredPredicateIndex {
+
+    private final PredicateIndex base;
+
+    /** Documents indexed since the base index was built. Guarded by this. */
+    private final IntObjectHashMap<Predicate> updatedDocuments = new IntObjectHashMap<>();
+
+    /** Ids of documents which should not be returned from the base index. Guarded by this. */
+    private final IntHashSet hiddenDocuments = new IntHashSet();
+
+    /** The delta layer searched, or null if it must be rebuilt due to updates */
+    private volatile Delta delta;
+
+    public LayeredPredicateIndex(PredicateIndex base) {
+        this.base = base;
+        this.delta = new Delta(new PredicateIndexBuilder(base.config()).build(), IntSets.immutable.empty());
+    }
+
+    /**
+     * Indexes a predicate with the given id, replacing any previous predicate with this id.
+     *
+     * @param docId     a 32-bit document id, returned in the Hit objects when the predicate matches
+     * @param predicate the predicate to index
+     * @throws IllegalStateException if the predicate is too complex to be indexed
+     */
+    public void indexDocument(int docId, Predicate predicate) {
+        new PredicateIndexBuilder(base.config()).indexDocument(docId, predicate); // Fail now rather than on rebuild
+        synchronized (this) {
+            updatedDocuments.put(docId, predicate);
+            hiddenDocuments.add(docId);
+            delta = null;
+        }
+    }
+
+    /** Removes the predicate with the given id, if any */
+    public synchronized void removeDocument(int docId) {
+        updatedDocuments.remove(docId);
+        hiddenDocuments.add(docId);
+        delta = null;
+    }
+
+    /** Returns the number of documents updated or removed since the base index was built */
+    public synchronized int updatedDocumentCount() {
+        return hiddenDocuments.size();
+    }
+
+    public void rebuildPostingListCache() {
+        base.rebuildPostingListCache();
+        delta().index.rebuildPostingListCache();
+    }
+
+    /**
+     * Create a new searcher.
+     */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    /** Returns the current delta layer, rebuilding it first if there are updates since the last rebuild */
+    private Delta delta() {
+        Delta current = delta;
+        if (current != null) return current;
+
+        synchronized (this) {
+            if (delta == null) {
+                PredicateIndexBuilder builder = new PredicateIndexBuilder(base.config());
+                updatedDocuments.forEachKeyValue(builder::indexDocument);
+                delta = new Delta(builder.build(), hiddenDocuments.toImmutable());
+            }
+            return delta;
+        }
+    }
+
+    /** An immutable snapshot of the updates made to the base index */
+    private static class Delta {
+
+        final PredicateIndex index;
+        final ImmutableIntSet hiddenDocuments;
+
+        Delta(PredicateIndex index, ImmutableIntSet hiddenDocuments) {
+            this.index = index;
+            this.hiddenDocuments = hiddenDocuments;
+        }
+
+    }
+
+    @Beta
+    public class Searcher {
+
+        private final PredicateIndex.Searcher baseSearcher = base.searcher();
+        private Delta delta = null;
+        private PredicateIndex.Searcher deltaSearcher = null;
+
+        private Searcher() { }
+
+        /**
+         * Retrieves a stream of hits for the given query, reflecting all updates made before this is called.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query) {
+            Delta current = updateDelta();
+            return merge(current, baseSearcher.search(query), deltaSearcher.search(query));
+        }
+
+        /**
+         * Retrieves the hits for the given query, searching disjoint ranges of the base index in parallel,
+         * as in {@link PredicateIndex.Searcher#search(PredicateQuery, ForkJoinPool, int)}.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @param pool The pool to search the document ranges in.
+         * @param partitions The number of document ranges of the base index to search.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query, ForkJoinPool pool, int partitions) {
+            Delta current = updateDelta();
+            return merge(current, baseSearcher.search(query, pool, partitions), deltaSearcher.search(query));
+        }
+
+        private Delta updateDelta() {
+            Delta current = delta();
+            if (current != delta) {
+                delta = current;
+                deltaSearcher = current.index.searcher();
+            }
+            return current;
+        }
+
+        private Stream<Hit> merge(Delta current, Stream<Hit> baseHits, Stream<Hit> deltaHits) {
+            if ( ! current.hiddenDocuments.isEmpty())
+                baseHits = baseHits.filter(hit -> ! current.hiddenDocuments.contains(hit.getDocId()));
+            return Stream.concat(baseHits, deltaHits);
+        }
+
+    }
+
+}
@@ -13,9 +13,13 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * An index of {@link Predicate} objects.
  * <p>
@@ -31,6 +35,8 @@ import java.util.stream.Stream;
  * </p><p>
  * Note that the {@link PredicateIndex} is thread-safe, but a {@link Searcher} is not.
  * Each thread <strong>must</strong> use its own searcher.
+ * A single search may still be spread over multiple threads using
+ * {@link Searcher#search(PredicateQuery, java.util.concurrent.ForkJoinPool, int)}.
  * </p>
  * @author Magnar Nedland
  * @author bjorncs
@@ -89,6 +95,9 @@ public class PredicateIndex {
         postingListCounter.getAndUpdate(CachedPostingListCounter::rebuildCache);
     }
 
+    /** Returns the config this index was built with */
+    Config config() { return config; }
+
     /**
      * Create a new searcher.
      */
@@ -160,6 +169,56 @@ public class PredicateIndex {
          * @return A stream of hits.
          */
         public Stream<Hit> search(PredicateQuery query) {
+            List<PostingList> postingLists = createPostingLists(query, conjunctionIndexSearcher.search(query));
+            CachedPostingListCounter counter = postingListCounter.get();
+            counter.registerUsage(postingLists);
+            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
+            return new PredicateSearch(
+                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
+                    .map(this::toExternalHit);
+        }
+
+        /**
+         * Retrieves the hits for the given query by searching disjoint ranges of the documents in parallel.
+         * This reduces latency for large indexes and queries with many subqueries, at the cost of some
+         * overhead per range. The hits are returned in the same order as by {@link #search(PredicateQuery)}.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @param pool The pool to search the document ranges in.
+         * @param partitions The number of document ranges to search, typically the parallelism of the pool.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query, ForkJoinPool pool, int partitions) {
+            int nDocuments = internalToExternalIdMapping.length;
+            partitions = Math.max(1, Math.min(partitions, nDocuments));
+            List<ConjunctionHit> conjunctionHits = conjunctionIndexSearcher.search(query);
+            CachedPostingListCounter counter = postingListCounter.get();
+            List<ForkJoinTask<List<Hit>>> tasks = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                // Posting lists are iterators, so each range needs its own instances
+                List<PostingList> postingLists = createPostingLists(query, conjunctionHits);
+                if (i == 0)
+                    counter.registerUsage(postingLists);
+                int fromDocId = (int)((long)nDocuments * i / partitions);
+                int toDocId = (int)((long)nDocuments * (i + 1) / partitions);
+                tasks.add(pool.submit(() -> search(postingLists, counter, fromDocId, toDocId)));
+            }
+            List<Hit> hits = new ArrayList<>();
+            for (ForkJoinTask<List<Hit>> task : tasks)
+                hits.addAll(task.join());
+            return hits.stream();
+        }
+
+        private List<Hit> search(List<PostingList> postingLists, CachedPostingListCounter counter, int fromDocId, int toDocId) {
+            // Ranges are disjoint, so each task counts into its own part of the shared count array
+            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument, fromDocId, toDocId);
+            return new PredicateSearch(postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds,
+                                       highestIntervalEnd, fromDocId, toDocId).stream()
+                    .map(this::toExternalHit)
+                    .collect(toList());
+        }
+
+        private List<PostingList> createPostingLists(PredicateQuery query, List<ConjunctionHit> conjunctionHits) {
             ArrayList<PostingList> postingLists = new ArrayList<>();
             for (PredicateQuery.Feature feature : query.getFeatures()) {
                 addIntervalPostingList(feature.featureHash, feature.subqueryBitmap, postingLists);
@@ -172,16 +231,14 @@ public class PredicateIndex {
                         (featureHash, value) -> addBoundsPostingList(featureHash, value, feature.subqueryBitmap, postingLists));
             }
             addCompressedZStarPostingList(postingLists);
-            addConjunctionPostingLists(query, postingLists);
+            addConjunctionPostingLists(conjunctionHits, postingLists);
             addZeroConstraintPostingList(postingLists);
+            return postingLists;
+        }
 
-            CachedPostingListCounter counter = postingListCounter.get();
-            counter.registerUsage(postingLists);
-            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
-            return new PredicateSearch(
-                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
-                    // Map to external id. Note that internal id for first document is 1.
-                    .map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
+        // Map to external id. Note that internal id for first document is 1.
+        private Hit toExternalHit(Hit hit) {
+            return new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery());
         }
 
         private void addCompressedZStarPostingList(List<PostingList> postingLists) {
@@ -206,8 +263,7 @@ public class PredicateIndex {
             }
         }
 
-        private void addConjunctionPostingLists(PredicateQuery query, List<PostingList> postingLists) {
-            List<ConjunctionHit> hits = conjunctionIndexSearcher.search(query);
+        private void addConjunctionPostingLists(List<ConjunctionHit> hits, List<PostingList> postingLists) {
             for (ConjunctionHit hit : hits) {
                 SimpleIndex.Entry e = conjunctionIntervalIndex.getPostingList(hit.conjunctionId);
                 if (e != null) {
@@ -3,9 +3,7 @@ package com.yahoo.search.predicate;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Preconditions;
-import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Ints;
-import com.google.common.primitives.Shorts;
 import com.yahoo.document.predicate.BooleanPredicate;
 import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.annotator.PredicateTreeAnnotations;
@@ -19,12 +17,14 @@ import com.yahoo.search.predicate.index.PredicateOptimizer;
 import com.yahoo.search.predicate.index.SimpleIndex;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionIndexBuilder;
 import com.yahoo.search.predicate.index.conjunction.IndexableFeatureConjunction;
+import org.eclipse.collections.impl.list.mutable.primitive.ByteArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.ShortArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 
 import static java.util.stream.Collectors.joining;
@@ -51,10 +51,11 @@ import static java.util.stream.Collectors.toList;
 @Beta
 public class PredicateIndexBuilder {
 
-    // Unique ids / mapping from internal to external id. LinkedHashSet as the insertion order is crucial.
-    private final Set<Integer> seenIds = new LinkedHashSet<>();
-    private final List<Short> intervalEndsBuilder = new ArrayList<>();
-    private final List<Byte> minFeatureIndexBuilder = new ArrayList<>();
+    // Unique ids, and mapping from internal to external id in insertion order. Primitive collections as these are per document.
+    private final IntHashSet seenIds = new IntHashSet();
+    private final IntArrayList externalIds = new IntArrayList();
+    private final ShortArrayList intervalEndsBuilder = new ShortArrayList();
+    private final ByteArrayList minFeatureIndexBuilder = new ByteArrayList();
     private final List<Integer> zeroConstraintDocuments = new ArrayList<>();
     private final SimpleIndex.Builder intervalIndexBuilder = new SimpleIndex.Builder();
     private final SimpleIndex.Builder boundsIndexBuilder = new SimpleIndex.Builder();
@@ -118,6 +119,7 @@ public class PredicateIndexBuilder {
             return;
         }
         seenIds.add(docId);
+        externalIds.add(docId);
         predicate = optimizer.optimizePredicate(predicate);
         int internalId = documentIdCounter++;
         if (isAlwaysMatchingDocument(predicate)) {
@@ -195,9 +197,9 @@ public class PredicateIndexBuilder {
     public PredicateIndex build() {
         return new PredicateIndex(
                 config,
-                Ints.toArray(seenIds),
-                Bytes.toArray(minFeatureIndexBuilder),
-                Shorts.toArray(intervalEndsBuilder),
+                externalIds.toArray(),
+                minFeatureIndexBuilder.toArray(),
+                intervalEndsBuilder.toArray(),
                 highestIntervalEnd,
                 intervalIndexBuilder.build(),
                 boundsIndexBuilder.build(),
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Iterators;
 import com.yahoo.search.predicate.Config;
+import com.yahoo.search.predicate.Hit;
+import com.yahoo.search.predicate.LayeredPredicateIndex;
 import com.yahoo.search.predicate.PredicateIndex;
 import com.yahoo.search.predicate.PredicateIndexBuilder;
 import com.yahoo.search.predicate.PredicateQuery;
@@ -40,6 +42,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Algorithm;
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Format;
@@ -70,8 +74,14 @@ public class PredicateIndexBenchmark {
         if (args.indexOutputFile != null) {
             writeIndexToFile(index, args.indexOutputFile);
         }
-        if (args.queryFile != null) {
-            runQueries(args, index);
+        if (args.updatedDocuments > 0) {
+            LayeredPredicateIndex layeredIndex = updateIndex(args, index);
+            if (args.queryFile != null) {
+                runQueries(args, () -> layeredIndex.searcher()::search, layeredIndex::rebuildPostingListCache);
+            }
+        }
+        else if (args.queryFile != null) {
+            runQueries(args, () -> index.searcher()::search, index::rebuildPostingListCache);
         }
         output.put("Total time", System.currentTimeMillis() - start);
         output.put("Timestamp", new Date().toString());
@@ -87,6 +97,10 @@ public class PredicateIndexBenchmark {
             System.err.println("Provide either a feed file or index file.");
             return Optional.empty();
         }
+        if (args.updatedDocuments > 0 && args.feedFile == null) {
+            System.err.println("Updating documents requires a feed file.");
+            return Optional.empty();
+        }
         return Optional.of(args);
     }
 
@@ -115,6 +129,25 @@ public class PredicateIndexBenchmark {
         }
     }
 
+    /**
+     * Re-indexes the first documents of the feed on top of the given index, to compare the cost of
+     * incremental updates with that of building the full index.
+     */
+    private static LayeredPredicateIndex updateIndex(BenchmarkArguments args, PredicateIndex index) throws IOException {
+        LayeredPredicateIndex layeredIndex = new LayeredPredicateIndex(index);
+        long start = System.currentTimeMillis();
+        AtomicInteger idCounter = new AtomicInteger();
+        int documentCount = VespaFeedParser.parseDocuments(
+                args.feedFile, args.updatedDocuments, p -> layeredIndex.indexDocument(idCounter.incrementAndGet(), p));
+        output.put("Updated document count", documentCount);
+        output.put("Time updating documents", System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        layeredIndex.searcher().search(new PredicateQuery()).count(); // Rebuilds the delta index
+        output.put("Time first search after updates", System.currentTimeMillis() - start);
+        return layeredIndex;
+    }
+
     private static void writeIndexToFile(PredicateIndex index, String indexOutputFile) throws IOException {
         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexOutputFile)))) {
             long start = System.currentTimeMillis();
@@ -127,6 +160,7 @@ public class PredicateIndexBenchmark {
         output.put("Arity", args.arity);
         output.put("Max documents", args.maxDocuments);
         output.put("Max queries", args.maxQueries);
+        output.put("Updated documents", args.updatedDocuments);
         output.put("Threads", args.nThreads);
         output.put("Runtime", args.runtime);
         output.put("Algorithm", args.algorithm);
@@ -138,19 +172,20 @@ public class PredicateIndexBenchmark {
         output.put("Warmup", args.warmup);
     }
 
-    private static void runQueries(BenchmarkArguments args, PredicateIndex index) throws IOException {
+    private static void runQueries(BenchmarkArguments args, Supplier<Searcher> searchers, Runnable postingListCacheRebuilder)
+            throws IOException {
         List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
-        long warmup1 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        long warmup1 = warmup(queries, searchers, args.nThreads, args.warmup / 2);
         output.put("Time warmup before building posting cache", warmup1);
-        rebuildPostingListCache(index);
-        long warmup2 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        rebuildPostingListCache(postingListCacheRebuilder);
+        long warmup2 = warmup(queries, searchers, args.nThreads, args.warmup / 2);
         output.put("Time warmup after building posting cache", warmup2);
-        searchIndex(queries, index, args.nThreads, args.runtime);
+        searchIndex(queries, searchers, args.nThreads, args.runtime);
     }
 
-    private static void rebuildPostingListCache(PredicateIndex index) {
+    private static void rebuildPostingListCache(Runnable postingListCacheRebuilder) {
         long start = System.currentTimeMillis();
-        index.rebuildPostingListCache();
+        postingListCacheRebuilder.run();
         output.put("Time rebuild posting list cache", System.currentTimeMillis() - start);
     }
 
@@ -164,27 +199,27 @@ public class PredicateIndexBenchmark {
         return queries;
     }
 
-    private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int warmup) {
+    private static long warmup(List<PredicateQuery> queries, Supplier<Searcher> searchers, int nThreads, int warmup) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            executor.submit(new QueryRunner(shuffledQueries, index.searcher()));
+            executor.submit(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         waitAndShutdown(warmup, executor);
         return System.currentTimeMillis() - start;
     }
 
-    private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int runtime) {
+    private static void searchIndex(List<PredicateQuery> queries, Supplier<Searcher> searchers, int nThreads, int runtime) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         List<QueryRunner> runners = new ArrayList<>();
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            runners.add(new QueryRunner(shuffledQueries, index.searcher()));
+            runners.add(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         List<Future<ResultMetrics>> futureResults = runners.stream().map(executor::submit).collect(toList());
@@ -215,11 +250,16 @@ public class PredicateIndexBenchmark {
         }
     }
 
+    /** A searcher of either a {@link PredicateIndex} or a {@link LayeredPredicateIndex}, used by a single thread */
+    private interface Searcher {
+        Stream<Hit> search(PredicateQuery query);
+    }
+
     private static class QueryRunner implements Callable<ResultMetrics> {
         private final List<PredicateQuery> queries;
-        private final PredicateIndex.Searcher searcher;
+        private final Searcher searcher;
 
-        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher) {
+        public QueryRunner(List<PredicateQuery> queries, Searcher seacher) {
             this.queries = queries;
             this.searcher = seacher;
         }
@@ -269,6 +309,11 @@ public class PredicateIndexBenchmark {
         @Option(name = {"-mq", "--max-queries"}, description = "The maximum number of queries to run from query file")
         public int maxQueries = Integer.MAX_VALUE;
 
+        @Option(name = {"-ud", "--update-documents"},
+                description = "The number of documents from the start of the feed file to index again as updates, " +
+                              "on top of the built index, before running queries")
+        public int updatedDocuments = 0;
+
         @Option(name = {"-al", "--algorithm"}, description = "Algorithm (CONJUNCTION or INTERVALONLY)")
         public Algorithm algorithm = Algorithm.INTERVALONLY;
 
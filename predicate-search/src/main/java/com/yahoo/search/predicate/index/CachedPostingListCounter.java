@@ -45,7 +45,19 @@ public class CachedPostingListCounter {
     }
 
     public void countPostingListsPerDocument(List<PostingList> postingLists, byte[] nPostingListsForDocument) {
-        Arrays.fill(nPostingListsForDocument, (byte) 0);
+        countPostingListsPerDocument(postingLists, nPostingListsForDocument, 0, nPostingListsForDocument.length);
+    }
+
+    /**
+     * Counts the number of posting lists per document id in the given range of document ids only,
+     * leaving the counts outside the range untouched. Counting disjoint ranges may therefore be done in parallel.
+     *
+     * @param fromDocId the first document id to count, inclusive
+     * @param toDocId the last document id to count, exclusive
+     */
+    public void countPostingListsPerDocument(List<PostingList> postingLists, byte[] nPostingListsForDocument,
+                                             int fromDocId, int toDocId) {
+        Arrays.fill(nPostingListsForDocument, fromDocId, toDocId, (byte) 0);
         List<int[]> nonCachedPostingLists = new ArrayList<>(postingLists.size());
         List<int[]> cachedPostingLists = new ArrayList<>(postingLists.size());
         long nDocumentsCachedPostingLists = 0;
@@ -63,26 +75,28 @@ public class CachedPostingListCounter {
         }
         if (postingListBitmap != 0) {
             if (nDocumentsCachedPostingLists > nDocuments * THRESHOLD_USE_BIT_VECTOR) {
-                countUsingBitVector(nPostingListsForDocument, postingListBitmap);
+                countUsingBitVector(nPostingListsForDocument, postingListBitmap, fromDocId, toDocId);
             } else {
                 nonCachedPostingLists.addAll(cachedPostingLists);
             }
         }
         if (!nonCachedPostingLists.isEmpty()) {
-            countUsingDocIdIteration(nPostingListsForDocument, nonCachedPostingLists);
+            countUsingDocIdIteration(nPostingListsForDocument, nonCachedPostingLists, fromDocId, toDocId);
         }
     }
 
-    private void countUsingBitVector(byte[] nPostingListsForDocument, int postingListBitmap) {
-        for (int docId = 0; docId < nDocuments; docId++) {
+    private void countUsingBitVector(byte[] nPostingListsForDocument, int postingListBitmap, int fromDocId, int toDocId) {
+        for (int docId = fromDocId; docId < toDocId; docId++) {
             nPostingListsForDocument[docId] += Integer.bitCount(bitVector[docId] & postingListBitmap);
         }
     }
 
-    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<int[]> nonCachedPostingLists) {
+    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<int[]> nonCachedPostingLists,
+                                                 int fromDocId, int toDocId) {
         for (int[] docIds : nonCachedPostingLists) {
-            for (int docId : docIds) {
-                ++nPostingListsForDocument[docId];
+            int i = fromDocId == 0 ? 0 : Arrays.binarySearch(docIds, fromDocId);
+            for (i = i < 0 ? -i - 1 : i; i < docIds.length && docIds[i] < toDocId; i++) {
+                ++nPostingListsForDocument[docIds[i]];
             }
         }
     }
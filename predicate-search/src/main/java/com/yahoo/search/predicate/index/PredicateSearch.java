@@ -31,6 +31,8 @@ public class PredicateSearch {
     private final long[] subqueryMarkers;
     private final boolean[] visited;
     private final short[] intervalEnds;
+    private final int fromDocId;
+    private final int toDocId;
 
     private short[] sortedIndexes;
     private short[] sortedIndexesMergeBuffer;
@@ -48,6 +50,25 @@ public class PredicateSearch {
     public PredicateSearch(
             List<PostingList> postingLists, byte[] nPostingListsForDocument,
             byte[] minFeatureIndex, short[] intervalEnds, int  highestIntervalEnd) {
+        this(postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd,
+             0, nPostingListsForDocument.length);
+    }
+
+    /**
+     * Creates a search for a set of posting lists, which only returns hits in the given range of docIds.
+     * Searches of disjoint ranges may run in parallel, as long as they use separate posting list instances.
+     *
+     * @param postingLists Posting lists for the boolean variables that evaluate to true
+     * @param nPostingListsForDocument The number of posting list for each docId, only read inside the range
+     * @param minFeatureIndex Index from docId to min-feature value.
+     * @param intervalEnds The interval end for each document.
+     * @param highestIntervalEnd The highest end value.
+     * @param fromDocId The first docId to search, inclusive.
+     * @param toDocId The last docId to search, exclusive.
+     */
+    public PredicateSearch(
+            List<PostingList> postingLists, byte[] nPostingListsForDocument,
+            byte[] minFeatureIndex, short[] intervalEnds, int  highestIntervalEnd, int fromDocId, int toDocId) {
         int size = postingLists.size();
         this.nPostingListsForDocument = nPostingListsForDocument;
         this.minFeatureIndex = minFeatureIndex;
@@ -61,6 +82,8 @@ public class PredicateSearch {
         this.subqueryMarkers = new long[highestIntervalEnd + 1];
         this.visited = new boolean[highestIntervalEnd + 1];
         this.intervalEnds = intervalEnds;
+        this.fromDocId = fromDocId;
+        this.toDocId = Math.min(toDocId, nPostingListsForDocument.length);
 
         // Sort posting list array based on the underlying number of documents (largest first).
         Arrays.sort(this.postingLists, (l, r) -> -Integer.compare(l.size(), r.size()));
@@ -85,7 +108,7 @@ public class PredicateSearch {
     }
 
     private class PredicateSpliterator implements java.util.Spliterator<Hit> {
-        private int lastHit = -1;
+        private int lastHit = fromDocId - 1;
 
         @Override
         public boolean tryAdvance(Consumer<? super Hit> action) {
@@ -122,6 +145,7 @@ public class PredicateSearch {
         boolean skippedToEnd = skipMinFeature(docId);
         while (nPostingLists > 0 && !skippedToEnd) {
             int docId0 = docIds[sortedIndexes[0]];
+            if (docId0 >= toDocId) break;
             int minFeature = minFeatureIndex[docId0];
             int k = minFeature > 0 ? minFeature - 1 : 0;
             int intervalEnd = Short.toUnsignedInt(intervalEnds[docId0]);
@@ -139,11 +163,10 @@ public class PredicateSearch {
     }
 
     private boolean skipMinFeature(int docId) {
-        int nDocuments = nPostingListsForDocument.length;
-        while (docId < nDocuments && minFeatureIndex[docId] > nPostingListsForDocument[docId]) {
+        while (docId < toDocId && minFeatureIndex[docId] > nPostingListsForDocument[docId]) {
             ++docId;
         }
-        if (docId < nDocuments) {
+        if (docId < toDocId) {
             advanceAllTo(docId);
             return false;
         }
@@ -4,6 +4,7 @@ package com.yahoo.search.predicate.index;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 import org.eclipse.collections.api.map.primitive.LongObjectMap;
 import org.eclipse.collections.api.tuple.primitive.LongObjectPair;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 
 import java.io.DataInputStream;
@@ -11,9 +12,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * An index mapping keys of type Long to lists of postings of generic data.
@@ -73,7 +72,7 @@ public class SimpleIndex {
     }
 
     public static class Builder {
-        private final HashMap<Long, List<Posting>> dictionaryBuilder = new HashMap<>();
+        private final LongObjectHashMap<PostingsBuilder> dictionaryBuilder = new LongObjectHashMap<>();
         private int entryCount;
 
         /**
@@ -82,25 +81,13 @@ public class SimpleIndex {
          * @param posting Entry for the posting list
          */
         public void insert(long key, Posting posting) {
-            dictionaryBuilder.computeIfAbsent(key, (k) -> new ArrayList<>()).add(posting);
+            dictionaryBuilder.getIfAbsentPut(key, PostingsBuilder::new).add(posting.getId(), posting.getDataRef());
             ++entryCount;
         }
 
         public SimpleIndex build() {
-            LongObjectHashMap<Entry> dictionary = new LongObjectHashMap<>();
-            for (Map.Entry<Long, List<Posting>> entry : dictionaryBuilder.entrySet()) {
-                List<Posting> postings = entry.getValue();
-                Collections.sort(postings);
-                int size = postings.size();
-                int[] docIds = new int[size];
-                int[] dataRefs = new int[size];
-                for (int i = 0; i < size; i++) {
-                    Posting posting = postings.get(i);
-                    docIds[i] = posting.getId();
-                    dataRefs[i] = posting.getDataRef();
-                }
-                dictionary.put(entry.getKey(), new Entry(docIds, dataRefs));
-            }
+            LongObjectHashMap<Entry> dictionary = new LongObjectHashMap<>(dictionaryBuilder.size());
+            dictionaryBuilder.forEachKeyValue((key, postings) -> dictionary.put(key, postings.build()));
             dictionary.compact();
             return new SimpleIndex(dictionary);
         }
@@ -109,4 +96,39 @@ public class SimpleIndex {
         public int getKeyCount() { return dictionaryBuilder.size(); }
     }
 
+    /**
+     * Collects the postings of a key in primitive arrays, as the number of postings may be very large.
+     * Documents are usually inserted in id order, so sorting is only done when that is not the case.
+     */
+    private static class PostingsBuilder {
+
+        private final IntArrayList docIds = new IntArrayList(1);
+        private final IntArrayList dataRefs = new IntArrayList(1);
+        private boolean sorted = true;
+
+        void add(int docId, int dataRef) {
+            if ( ! docIds.isEmpty() && Integer.compareUnsigned(docIds.getLast(), docId) > 0)
+                sorted = false;
+            docIds.add(docId);
+            dataRefs.add(dataRef);
+        }
+
+        Entry build() {
+            if (sorted) return new Entry(docIds.toArray(), dataRefs.toArray());
+
+            List<Posting> postings = new ArrayList<>(docIds.size());
+            for (int i = 0; i < docIds.size(); i++)
+                postings.add(new Posting(docIds.get(i), dataRefs.get(i)));
+            Collections.sort(postings);
+            int[] sortedDocIds = new int[postings.size()];
+            int[] sortedDataRefs = new int[postings.size()];
+            for (int i = 0; i < postings.size(); i++) {
+                sortedDocIds[i] = postings.get(i).getId();
+                sortedDataRefs[i] = postings.get(i).getDataRef();
+            }
+            return new Entry(sortedDocIds, sortedDataRefs);
+        }
+
+    }
+
 }
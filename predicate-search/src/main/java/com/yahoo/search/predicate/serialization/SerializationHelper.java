@@ -6,6 +6,7 @@ import com.yahoo.search.predicate.PredicateIndex;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Misc utility functions to help serialization of {@link PredicateIndex}.
@@ -14,68 +15,99 @@ import java.io.IOException;
  */
 public class SerializationHelper {
 
+    /** The max number of bytes converted at a time, which bounds the size of the temporary buffer */
+    private static final int chunkSize = 1 << 16;
+
     public static void writeIntArray(int[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (int v : array) {
-            out.writeInt(v);
+        ByteBuffer buffer = chunkBuffer(array.length, Integer.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int n = Math.min(array.length - i, buffer.capacity() / Integer.BYTES);
+            buffer.asIntBuffer().put(array, i, n);
+            out.write(buffer.array(), 0, n * Integer.BYTES);
+            i += n;
         }
     }
 
     public static int[] readIntArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         int[] array = new int[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readInt();
+        ByteBuffer buffer = chunkBuffer(length, Integer.BYTES);
+        for (int i = 0; i < length; ) {
+            int n = Math.min(length - i, buffer.capacity() / Integer.BYTES);
+            in.readFully(buffer.array(), 0, n * Integer.BYTES);
+            buffer.asIntBuffer().get(array, i, n);
+            i += n;
         }
         return array;
     }
 
     public static void writeByteArray(byte[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (int v : array) {
-            out.writeByte(v);
-        }
+        out.write(array);
     }
 
     public static byte[] readByteArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         byte[] array = new byte[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readByte();
-        }
+        in.readFully(array);
         return array;
     }
 
     public static void writeLongArray(long[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (long v : array) {
-            out.writeLong(v);
+        ByteBuffer buffer = chunkBuffer(array.length, Long.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int n = Math.min(array.length - i, buffer.capacity() / Long.BYTES);
+            buffer.asLongBuffer().put(array, i, n);
+            out.write(buffer.array(), 0, n * Long.BYTES);
+            i += n;
         }
     }
 
     public static long[] readLongArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         long[] array = new long[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readLong();
+        ByteBuffer buffer = chunkBuffer(length, Long.BYTES);
+        for (int i = 0; i < length; ) {
+            int n = Math.min(length - i, buffer.capacity() / Long.BYTES);
+            in.readFully(buffer.array(), 0, n * Long.BYTES);
+            buffer.asLongBuffer().get(array, i, n);
+            i += n;
         }
         return array;
     }
 
     public static void writeShortArray(short[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
-        for (short v : array) {
-            out.writeShort(v);
+        ByteBuffer buffer = chunkBuffer(array.length, Short.BYTES);
+        for (int i = 0; i < array.length; ) {
+            int n = Math.min(array.length - i, buffer.capacity() / Short.BYTES);
+            buffer.asShortBuffer().put(array, i, n);
+            out.write(buffer.array(), 0, n * Short.BYTES);
+            i += n;
         }
     }
 
     public static short[] readShortArray(DataInputStream in) throws IOException {
         int length = in.readInt();
         short[] array = new short[length];
-        for (int i = 0; i < length; i++) {
-            array[i] = in.readShort();
+        ByteBuffer buffer = chunkBuffer(length, Short.BYTES);
+        for (int i = 0; i < length; ) {
+            int n = Math.min(length - i, buffer.capacity() / Short.BYTES);
+            in.readFully(buffer.array(), 0, n * Short.BYTES);
+            buffer.asShortBuffer().get(array, i, n);
+            i += n;
         }
         return array;
     }
 
+    /**
+     * Returns a big-endian buffer, as used by {@link DataInputStream} and {@link DataOutputStream},
+     * holding as many of the given elements as will fit in a chunk
+     */
+    private static ByteBuffer chunkBuffer(int elements, int elementSize) {
+        return ByteBuffer.allocate((int)Math.min((long)elements * elementSize, chunkSize));
+    }
+
 }
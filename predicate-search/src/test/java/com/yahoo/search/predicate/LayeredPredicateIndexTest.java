@@ -0,0 +1,65 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.document.predicate.Predicate;
+import org.junit.Test;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class LayeredPredicateIndexTest {
+
+    @Test
+    public void requireThatUpdatesAreVisibleToSearchers() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in ['no', 'se']"));
+        builder.indexDocument(2, Predicate.fromString("country in ['no']"));
+        builder.indexDocument(3, Predicate.fromString("country in ['se']"));
+        LayeredPredicateIndex index = new LayeredPredicateIndex(builder.build());
+        LayeredPredicateIndex.Searcher searcher = index.searcher();
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no");
+        assertEquals("[1, 2]", search(searcher, query));
+
+        index.indexDocument(3, Predicate.fromString("country in ['no']"));
+        index.indexDocument(4, Predicate.fromString("country in ['no'] and gender in ['male']"));
+        index.indexDocument(5, Predicate.fromString("true"));
+        assertEquals("[1, 2, 3, 5]", search(searcher, query));
+
+        index.indexDocument(2, Predicate.fromString("country in ['dk']"));
+        index.removeDocument(1);
+        index.removeDocument(5);
+        assertEquals("[3]", search(searcher, query));
+        assertEquals(5, index.updatedDocumentCount());
+
+        query.addFeature("gender", "male");
+        assertEquals("[3, 4]", search(index.searcher(), query));
+    }
+
+    @Test
+    public void requireThatSubqueriesAreRetained() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in [no] and gender in [male]"));
+        LayeredPredicateIndex index = new LayeredPredicateIndex(builder.build());
+        index.indexDocument(2, Predicate.fromString("country in [no]"));
+
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no", 0x3);
+        query.addFeature("gender", "male", 0x6);
+        assertEquals("[[1,0x2], [2,0x3]]", search(index.searcher(), query));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requireThatPredicatesWhichCannotBeIndexedAreRejectedOnUpdate() {
+        LayeredPredicateIndex index = new LayeredPredicateIndex(new PredicateIndexBuilder(10).build());
+        StringBuilder predicate = new StringBuilder("a in [0]");
+        for (int i = 1; i < 300; i++)
+            predicate.append(" and a").append(i).append(" in [").append(i).append("]");
+        index.indexDocument(1, Predicate.fromString(predicate.toString()));
+    }
+
+    private static String search(LayeredPredicateIndex.Searcher searcher, PredicateQuery query) {
+        return searcher.search(query).sorted().collect(toList()).toString();
+    }
+
+}
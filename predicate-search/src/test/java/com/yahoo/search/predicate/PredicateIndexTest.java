@@ -5,6 +5,8 @@ import com.yahoo.document.predicate.Predicate;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationDeserializationMatches;
 import static java.util.stream.Collectors.toList;
@@ -129,6 +131,43 @@ public class PredicateIndexTest {
         assertEquals("[42]", searcher.search(query).collect(toList()).toString());
     }
 
+    @Test
+    public void requireThatParallelSearchReturnsTheSameHitsAsSequentialSearch() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        for (int i = 0; i < 1000; i++) {
+            String predicate;
+            switch (i % 4) {
+                case 0: predicate = "country in ['no', 'se'] and gender in ['male']"; break;
+                case 1: predicate = "country in ['no'] and age in [" + (i % 40) + "..40]"; break;
+                case 2: predicate = "gender not in ['female']"; break;
+                default: predicate = i % 3 == 0 ? "true" : "country in ['dk']"; break;
+            }
+            builder.indexDocument(1000 - i, Predicate.fromString(predicate));
+        }
+        PredicateIndex index = builder.build();
+        PredicateIndex.Searcher searcher = index.searcher();
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no", 0x3);
+        query.addFeature("gender", "male", 0x5);
+        query.addRangeFeature("age", 36, 0x2);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Hit> expected = searcher.search(query).collect(toList());
+            assertEquals(809, expected.size());
+            assertEquals(expected, searcher.search(query, pool, 7).collect(toList()));
+            assertEquals(expected, searcher.search(query, pool, 1).collect(toList()));
+            assertEquals(expected, searcher.search(query, pool, 5000).collect(toList()));
+
+            index.rebuildPostingListCache();
+            assertEquals(expected, searcher.search(query).collect(toList()));
+            assertEquals(expected, searcher.search(query, pool, 7).collect(toList()));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void require_that_serialization_and_deserialization_retain_data() throws IOException {
         PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
@@ -3,9 +3,14 @@ package com.yahoo.search.predicate.serialization;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.*;
+import static org.junit.Assert.assertArrayEquals;
 
 /**
  * @author bjorncs
@@ -40,5 +45,31 @@ public class SerializationHelperTest {
                 shorts, SerializationHelper::writeShortArray, SerializationHelper::readShortArray);
     }
 
+    @Test
+    public void require_that_arrays_larger_than_a_chunk_are_serialized_in_the_element_wise_format() throws IOException {
+        int[] ints = new int[100_003];
+        long[] longs = new long[ints.length];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * 31 - 7;
+            longs[i] = (long)i << 33 | i;
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        out.writeInt(ints.length);
+        for (int v : ints) out.writeInt(v);
+        out.writeInt(longs.length);
+        for (long v : longs) out.writeLong(v);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        out = new DataOutputStream(actual);
+        SerializationHelper.writeIntArray(ints, out);
+        SerializationHelper.writeLongArray(longs, out);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(actual.toByteArray()));
+        assertArrayEquals(ints, SerializationHelper.readIntArray(in));
+        assertArrayEquals(longs, SerializationHelper.readLongArray(in));
+    }
 
 }
@@ -40,49 +40,114 @@ public class Group extends Identifiable {
      * @param rhs          The group to merge with.
      */
     public void merge(int firstLevel, int currentLevel, Group rhs) {
-        if (rhs.rank > rank) {
-            rank = rhs.rank; // keep highest rank
+        merge(firstLevel, currentLevel, Collections.singletonList(rhs));
+    }
+
+    /**
+     * Merges the content of all the given groups <b>into</b> this, in the given order. This is equivalent to
+     * merging each of them into this in turn, but the children at each level are merged in a single pass over
+     * all the groups, rather than once per group. When this function returns, make sure to call
+     * {@link #postMerge(java.util.List, int, int)}.
+     *
+     * @param firstLevel   The first level to merge.
+     * @param currentLevel The current level.
+     * @param others       The groups to merge with.
+     */
+    public void merge(int firstLevel, int currentLevel, List<Group> others) {
+        for (Group other : others) {
+            if (other.rank > rank) {
+                rank = other.rank; // keep highest rank
+            }
+            if (currentLevel >= firstLevel) {
+                for (int i = 0, len = aggregationResults.size(); i < len; ++i) {
+                    aggregationResults.get(i).merge(other.aggregationResults.get(i));
+                }
+            }
         }
-        if (currentLevel >= firstLevel) {
-            for (int i = 0, len = aggregationResults.size(); i < len; ++i) {
-                aggregationResults.get(i).merge(rhs.aggregationResults.get(i));
+        mergeChildren(firstLevel, currentLevel, others);
+    }
+
+    /**
+     * Merges the children of the given groups into the children of this. Children sorted by id are merged in a single
+     * pass over all the groups, while unsorted children are merged with one group at a time.
+     */
+    private void mergeChildren(int firstLevel, int currentLevel, List<Group> others) {
+        if (others.size() == 1 || !isSortedById(children) || !areChildrenSortedById(others)) {
+            for (Group other : others) {
+                mergeSortedChildren(firstLevel, currentLevel, other.children);
             }
+            return;
         }
 
-        ArrayList<Group> merged = new ArrayList<>();
-        Iterator<Group> lhsChild = children.iterator(), rhsChild = rhs.children.iterator();
-        if (lhsChild.hasNext() && rhsChild.hasNext()) {
-            Group lhsGroup = lhsChild.next();
-            Group rhsGroup = rhsChild.next();
-            for (; (lhsGroup != null) && (rhsGroup != null); ) {
-                int cmp = lhsGroup.getId().compareTo(rhsGroup.getId());
-                if (cmp < 0) {
-                    merged.add(lhsGroup);
-                    lhsGroup = lhsChild.hasNext() ? lhsChild.next() : null;
-                } else if (cmp > 0) {
-                    merged.add(rhsGroup);
-                    rhsGroup = rhsChild.hasNext() ? rhsChild.next() : null;
-                } else {
-                    lhsGroup.merge(firstLevel, currentLevel + 1, rhsGroup);
-                    merged.add(lhsGroup);
-                    lhsGroup = lhsChild.hasNext() ? lhsChild.next() : null;
-                    rhsGroup = rhsChild.hasNext() ? rhsChild.next() : null;
-                }
+        List<List<Group>> lists = new ArrayList<>(others.size() + 1);
+        int size = 0;
+        for (int i = -1; i < others.size(); ++i) {
+            List<Group> list = (i < 0) ? children : others.get(i).children;
+            if (!list.isEmpty()) {
+                lists.add(list);
+                size += list.size();
             }
-            if (lhsGroup != null) {
-                merged.add(lhsGroup);
+        }
+        ArrayList<Group> merged = new ArrayList<>(size);
+        ChildQueue queue = new ChildQueue(lists);
+        List<Group> equal = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Group first = queue.poll();
+            while (!queue.isEmpty() && queue.peek().getId().compareTo(first.getId()) == 0) {
+                equal.add(queue.poll());
             }
-            if (rhsGroup != null) {
+            if (!equal.isEmpty()) {
+                first.merge(firstLevel, currentLevel + 1, equal);
+                equal.clear();
+            }
+            merged.add(first);
+        }
+        children = merged;
+    }
+
+    /** Merges the given children into the children of this in one ordered pass, as when both are sorted by id. */
+    private void mergeSortedChildren(int firstLevel, int currentLevel, List<Group> rhsChildren) {
+        ArrayList<Group> merged = new ArrayList<>(children.size() + rhsChildren.size());
+        int lhsIdx = 0, rhsIdx = 0;
+        int lhsLen = children.size(), rhsLen = rhsChildren.size();
+        while (lhsIdx < lhsLen && rhsIdx < rhsLen) {
+            Group lhsGroup = children.get(lhsIdx);
+            Group rhsGroup = rhsChildren.get(rhsIdx);
+            int cmp = lhsGroup.getId().compareTo(rhsGroup.getId());
+            if (cmp < 0) {
+                merged.add(lhsGroup);
+                ++lhsIdx;
+            } else if (cmp > 0) {
                 merged.add(rhsGroup);
+                ++rhsIdx;
+            } else {
+                lhsGroup.merge(firstLevel, currentLevel + 1, rhsGroup);
+                merged.add(lhsGroup);
+                ++lhsIdx;
+                ++rhsIdx;
             }
         }
-        while (lhsChild.hasNext()) {
-            merged.add(lhsChild.next());
+        merged.addAll(children.subList(lhsIdx, lhsLen));
+        merged.addAll(rhsChildren.subList(rhsIdx, rhsLen));
+        children = merged;
+    }
+
+    private static boolean areChildrenSortedById(List<Group> groups) {
+        for (Group group : groups) {
+            if (!isSortedById(group.children)) {
+                return false;
+            }
         }
-        while (rhsChild.hasNext()) {
-            merged.add(rhsChild.next());
+        return true;
+    }
+
+    private static boolean isSortedById(List<Group> groups) {
+        for (int i = 1, len = groups.size(); i < len; ++i) {
+            if (groups.get(i - 1).getId().compareTo(groups.get(i).getId()) > 0) {
+                return false;
+            }
         }
-        children = merged;
+        return true;
     }
 
     private void executeOrderBy() {
@@ -447,6 +512,74 @@ public class Group extends Identifiable {
         }
     }
 
+    /**
+     * A priority queue of the next child of each of a set of child lists sorted by id. Children with equal ids are
+     * returned in the order of the lists they belong to.
+     */
+    private static class ChildQueue {
+
+        private final List<List<Group>> lists;
+        private final int[] positions;
+        private final int[] heap;
+        private int size;
+
+        ChildQueue(List<List<Group>> lists) {
+            this.lists = lists;
+            positions = new int[lists.size()];
+            heap = new int[lists.size()];
+            size = lists.size();
+            for (int i = 0; i < size; ++i) {
+                heap[i] = i;
+            }
+            for (int i = size / 2 - 1; i >= 0; --i) {
+                siftDown(i);
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Group peek() {
+            return head(heap[0]);
+        }
+
+        Group poll() {
+            int list = heap[0];
+            Group group = head(list);
+            if (++positions[list] == lists.get(list).size()) {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return group;
+        }
+
+        private Group head(int list) {
+            return lists.get(list).get(positions[list]);
+        }
+
+        private boolean less(int a, int b) {
+            int cmp = head(a).getId().compareTo(head(b).getId());
+            return cmp < 0 || (cmp == 0 && a < b);
+        }
+
+        private void siftDown(int i) {
+            int list = heap[i];
+            for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    ++child;
+                }
+                if (!less(heap[child], list)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = list;
+        }
+
+    }
+
     private static enum SortType {
         UNSORTED,
         BYRANK,
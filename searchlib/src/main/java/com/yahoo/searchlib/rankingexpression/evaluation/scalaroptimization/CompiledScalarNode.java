@@ -0,0 +1,55 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Deque;
+
+/**
+ * A scalar sub-expression compiled to primitive evaluation by {@link ScalarOptimizer}.
+ * <p>
+ * This evaluates the compiled form, which reads variables by index and requires them to be scalars,
+ * unless this is deserialized, in which case the original expression is evaluated.
+ * It serializes and types as the original expression.
+ */
+public final class CompiledScalarNode extends ExpressionNode {
+
+    private final ExpressionNode original;
+    /** Not serialized: Deserialized instances always use the original expression */
+    private final transient ScalarExpression compiled;
+    private final boolean booleanResult;
+
+    CompiledScalarNode(ExpressionNode original, ScalarExpression compiled, boolean booleanResult) {
+        this.original = original;
+        this.compiled = compiled;
+        this.booleanResult = booleanResult;
+    }
+
+    /** Returns the expression this is compiled from */
+    public ExpressionNode original() { return original; }
+
+    @Override
+    public Value evaluate(Context context) {
+        if (compiled == null) return original.evaluate(context);
+        double value = compiled.evaluate(context);
+        return booleanResult ? new BooleanValue(value != 0) : new DoubleValue(value);
+    }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return original.type(context); }
+
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return original.toString(string, context, path, parent);
+    }
+
+}
@@ -0,0 +1,40 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+
+/**
+ * A compiled scalar expression, which evaluates to a primitive double without allocating values.
+ * Booleans are represented as 1 and 0.
+ */
+@FunctionalInterface
+interface ScalarExpression {
+
+    /** Evaluates this in a context supporting lookup by index, where the variables read are scalars */
+    double evaluate(Context context);
+
+    /** A constant, which is inlined into the expressions using it */
+    final class Constant implements ScalarExpression {
+
+        final double value;
+
+        Constant(double value) { this.value = value; }
+
+        @Override
+        public double evaluate(Context context) { return value; }
+
+    }
+
+    /** A variable looked up by index in the context */
+    final class Variable implements ScalarExpression {
+
+        private final int index;
+
+        Variable(int index) { this.index = index; }
+
+        @Override
+        public double evaluate(Context context) { return context.getDouble(index); }
+
+    }
+
+}
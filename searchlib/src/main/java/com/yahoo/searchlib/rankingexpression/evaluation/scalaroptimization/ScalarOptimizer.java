@@ -0,0 +1,345 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.ScalarExpression.Constant;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.ScalarExpression.Variable;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.BooleanNode;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compiles the scalar sub-expressions of ranking expressions to trees of primitive double evaluators,
+ * replacing them by {@link CompiledScalarNode}s. The compiled form avoids allocating a value at each node,
+ * looks up variables by index, and folds and inlines constants.
+ * <p>
+ * Arithmetic, comparisons, conditions and scalar functions over constants, optimized decision trees
+ * and variables whose types are known to be scalar when optimizing are compiled. Anything else,
+ * such as tensor functions and variables of unknown type, is left to the interpreter.
+ * <p>
+ * The compiled expressions <b>must</b> be evaluated in contexts having the same indexes as the context
+ * given here, that is, the context itself or copies of it, and binding values of the types given here.
+ * The original nodes are not modified.
+ * <p>
+ * This is disabled by default in {@link com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer}.
+ * This class is not multithread safe.
+ */
+public class ScalarOptimizer extends Optimizer {
+
+    private OptimizationReport report;
+    private TypeContext<Reference> types;
+
+    /**
+     * Compiles the scalar sub-expressions of the given expression. Variables are only known to be scalars
+     * if the context is a {@link DoubleOnlyArrayContext}, as other contexts only know the types of
+     * the values bound at present.
+     */
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        TypeContext<Reference> types = context instanceof DoubleOnlyArrayContext ? (DoubleOnlyArrayContext)context : null;
+        optimize(expression, context, types, report);
+    }
+
+    /**
+     * Compiles the scalar sub-expressions of the given expression.
+     *
+     * @param types the types of the values which will be bound in the context at evaluation,
+     *              or null if these are not known, in which case no variables are compiled
+     */
+    public void optimize(RankingExpression expression, ContextIndex context, TypeContext<Reference> types,
+                         OptimizationReport report) {
+        if ( ! isEnabled()) return;
+
+        this.report = report;
+        this.types = types;
+        expression.setRoot(optimize(expression.getRoot(), context));
+        report.note("Scalar expression compilation done");
+    }
+
+    /** Returns the given node with its largest compilable sub-expressions compiled */
+    private ExpressionNode optimize(ExpressionNode node, ContextIndex context) {
+        if (node instanceof CompiledScalarNode) return node;
+
+        ScalarExpression compiled = compile(node, context);
+        Boolean booleanResult = isBoolean(node);
+        if (compiled != null && booleanResult != null && ! isLeaf(node)) {
+            report.incMetric("Compiled scalar expressions", 1);
+            return new CompiledScalarNode(node, compiled, booleanResult);
+        }
+
+        if ( ! isScalarOperation(node)) return node;
+        CompositeNode composite = (CompositeNode)node;
+        List<ExpressionNode> children = new ArrayList<>(composite.children().size());
+        boolean changed = false;
+        for (ExpressionNode child : composite.children()) {
+            ExpressionNode optimizedChild = optimize(child, context);
+            children.add(optimizedChild);
+            changed |= optimizedChild != child;
+        }
+        return changed ? composite.setChildren(children) : node;
+    }
+
+    /** Returns the compiled form of the given node, or null if it cannot be compiled */
+    private ScalarExpression compile(ExpressionNode node, ContextIndex context) {
+        if (node instanceof CompiledScalarNode)
+            return compile(((CompiledScalarNode)node).original(), context);
+        if (node instanceof ConstantNode)
+            return compileConstant(((ConstantNode)node).getValue());
+        if (node instanceof ReferenceNode)
+            return compileVariable((ReferenceNode)node, context);
+        if (node instanceof GBDTNode) {
+            double[] values = ((GBDTNode)node).values();
+            return c -> GBDTNode.evaluate(values, 0, c);
+        }
+        if (node instanceof GBDTForestNode)
+            return c -> node.evaluate(c).asDouble();
+        if (node instanceof EmbracedNode)
+            return compile(((EmbracedNode)node).getValue(), context);
+        if (node instanceof NegativeNode)
+            return compileNegative(((NegativeNode)node).getValue(), context);
+        if (node instanceof NotNode)
+            return compileNot(((NotNode)node).getValue(), context);
+        if (node instanceof ArithmeticNode)
+            return compileArithmetic((ArithmeticNode)node, context);
+        if (node instanceof ComparisonNode)
+            return compileComparison((ComparisonNode)node, context);
+        if (node instanceof IfNode)
+            return compileIf((IfNode)node, context);
+        if (node instanceof FunctionNode)
+            return compileFunction((FunctionNode)node, context);
+        return null;
+    }
+
+    private ScalarExpression compileConstant(Value value) {
+        if ( ! (value instanceof DoubleCompatibleValue)) return null; // strings are compared by value, not hash
+        return new Constant(value.asDouble());
+    }
+
+    private ScalarExpression compileVariable(ReferenceNode node, ContextIndex context) {
+        if (context == null || types == null) return null;
+        TensorType type = types.getType(node.reference());
+        if (type == null || type.rank() > 0) return null; // Not known to be a scalar
+        return new Variable(context.getIndex(node.toString()));
+    }
+
+    private ScalarExpression compileNegative(ExpressionNode argument, ContextIndex context) {
+        ScalarExpression x = compile(argument, context);
+        if (x == null) return null;
+        if (x instanceof Constant) return new Constant(- ((Constant)x).value);
+        return c -> - x.evaluate(c);
+    }
+
+    private ScalarExpression compileNot(ExpressionNode argument, ContextIndex context) {
+        ScalarExpression x = compile(argument, context);
+        if (x == null) return null;
+        if (x instanceof Constant) return new Constant(((Constant)x).value != 0 ? 0 : 1);
+        return c -> x.evaluate(c) != 0 ? 0 : 1;
+    }
+
+    /** Compiles the arithmetic node by applying the operators in the same precedence order as the interpreter */
+    private ScalarExpression compileArithmetic(ArithmeticNode node, ContextIndex context) {
+        List<ScalarExpression> children = new ArrayList<>(node.children().size());
+        for (ExpressionNode child : node.children()) {
+            ScalarExpression compiled = compile(child, context);
+            if (compiled == null) return null;
+            children.add(compiled);
+        }
+
+        Iterator<ScalarExpression> child = children.iterator();
+        Deque<Item> stack = new ArrayDeque<>();
+        stack.push(new Item(ArithmeticOperator.OR, child.next()));
+        for (Iterator<ArithmeticOperator> it = node.operators().iterator(); it.hasNext() && child.hasNext();) {
+            ArithmeticOperator op = it.next();
+            while (stack.peek().op.hasPrecedenceOver(op))
+                pop(stack);
+            stack.push(new Item(op, child.next()));
+        }
+        while (stack.size() > 1)
+            pop(stack);
+        return stack.getFirst().expression;
+    }
+
+    private void pop(Deque<Item> stack) {
+        Item right = stack.pop();
+        Item left = stack.peek();
+        left.expression = compile(right.op, left.expression, right.expression);
+    }
+
+    private ScalarExpression compile(ArithmeticOperator op, ScalarExpression x, ScalarExpression y) {
+        if (x instanceof Constant && y instanceof Constant)
+            return new Constant(apply(op, ((Constant)x).value, ((Constant)y).value));
+        if (y instanceof Constant) {
+            double b = ((Constant)y).value;
+            switch (op) {
+                case PLUS:     return c -> x.evaluate(c) + b;
+                case MINUS:    return c -> x.evaluate(c) - b;
+                case MULTIPLY: return c -> x.evaluate(c) * b;
+                case DIVIDE:   return c -> x.evaluate(c) / b;
+            }
+        }
+        if (x instanceof Constant) {
+            double a = ((Constant)x).value;
+            switch (op) {
+                case PLUS:     return c -> a + y.evaluate(c);
+                case MINUS:    return c -> a - y.evaluate(c);
+                case MULTIPLY: return c -> a * y.evaluate(c);
+                case DIVIDE:   return c -> a / y.evaluate(c);
+            }
+        }
+        switch (op) {
+            case OR:       return c -> (x.evaluate(c) != 0) | (y.evaluate(c) != 0) ? 1 : 0;
+            case AND:      return c -> (x.evaluate(c) != 0) & (y.evaluate(c) != 0) ? 1 : 0;
+            case PLUS:     return c -> x.evaluate(c) + y.evaluate(c);
+            case MINUS:    return c -> x.evaluate(c) - y.evaluate(c);
+            case MULTIPLY: return c -> x.evaluate(c) * y.evaluate(c);
+            case DIVIDE:   return c -> x.evaluate(c) / y.evaluate(c);
+            case MODULO:   return c -> x.evaluate(c) % y.evaluate(c);
+            case POWER:    return c -> Math.pow(x.evaluate(c), y.evaluate(c));
+            default: throw new IllegalArgumentException("Unknown operator " + op);
+        }
+    }
+
+    /** Applies an operator as the interpreter does to scalars */
+    private static double apply(ArithmeticOperator op, double x, double y) {
+        switch (op) {
+            case OR:       return (x != 0) || (y != 0) ? 1 : 0;
+            case AND:      return (x != 0) && (y != 0) ? 1 : 0;
+            case PLUS:     return x + y;
+            case MINUS:    return x - y;
+            case MULTIPLY: return x * y;
+            case DIVIDE:   return x / y;
+            case MODULO:   return x % y;
+            case POWER:    return Math.pow(x, y);
+            default: throw new IllegalArgumentException("Unknown operator " + op);
+        }
+    }
+
+    private ScalarExpression compileComparison(ComparisonNode node, ContextIndex context) {
+        ScalarExpression x = compile(node.getLeftCondition(), context);
+        ScalarExpression y = compile(node.getRightCondition(), context);
+        if (x == null || y == null) return null;
+        TruthOperator op = node.getOperator();
+        if (x instanceof Constant && y instanceof Constant)
+            return new Constant(op.evaluate(((Constant)x).value, ((Constant)y).value) ? 1 : 0);
+        if (y instanceof Constant) {
+            double b = ((Constant)y).value;
+            switch (op) {
+                case SMALLER: return c -> x.evaluate(c) < b ? 1 : 0;
+                case LARGER:  return c -> x.evaluate(c) > b ? 1 : 0;
+                case EQUAL:   return c -> x.evaluate(c) == b ? 1 : 0;
+            }
+            return c -> op.evaluate(x.evaluate(c), b) ? 1 : 0;
+        }
+        return c -> op.evaluate(x.evaluate(c), y.evaluate(c)) ? 1 : 0;
+    }
+
+    private ScalarExpression compileIf(IfNode node, ContextIndex context) {
+        ScalarExpression condition = compile(node.getCondition(), context);
+        ScalarExpression trueExpression = compile(node.getTrueExpression(), context);
+        ScalarExpression falseExpression = compile(node.getFalseExpression(), context);
+        if (condition == null || trueExpression == null || falseExpression == null) return null;
+        if (condition instanceof Constant)
+            return ((Constant)condition).value != 0 ? trueExpression : falseExpression;
+        return c -> condition.evaluate(c) != 0 ? trueExpression.evaluate(c) : falseExpression.evaluate(c);
+    }
+
+    /** Compiles a function node, which like the interpreter uses zero for missing arguments */
+    private ScalarExpression compileFunction(FunctionNode node, ContextIndex context) {
+        List<ExpressionNode> arguments = node.children();
+        ScalarExpression x = arguments.size() > 0 ? compile(arguments.get(0), context) : new Constant(0);
+        ScalarExpression y = arguments.size() > 1 ? compile(arguments.get(1), context) : new Constant(0);
+        if (x == null || y == null) return null;
+        Function function = node.getFunction();
+        if (x instanceof Constant && y instanceof Constant)
+            return new Constant(function.evaluate(((Constant)x).value, ((Constant)y).value));
+        switch (function) {
+            case exp:     return c -> Math.exp(x.evaluate(c));
+            case log:     return c -> Math.log(x.evaluate(c));
+            case sqrt:    return c -> Math.sqrt(x.evaluate(c));
+            case tanh:    return c -> Math.tanh(x.evaluate(c));
+            case sigmoid: return c -> 1.0 / (1.0 + Math.exp(-1.0 * x.evaluate(c)));
+            case max:     return c -> Math.max(x.evaluate(c), y.evaluate(c));
+            case min:     return c -> Math.min(x.evaluate(c), y.evaluate(c));
+        }
+        if (y instanceof Constant) {
+            double b = ((Constant)y).value;
+            return c -> function.evaluate(x.evaluate(c), b);
+        }
+        return c -> function.evaluate(x.evaluate(c), y.evaluate(c));
+    }
+
+    /**
+     * Returns whether the interpreter evaluates the given node to a boolean value,
+     * or null if this depends on the values evaluated
+     */
+    private static Boolean isBoolean(ExpressionNode node) {
+        if (node instanceof BooleanNode || node instanceof NotNode) return true;
+        if (node instanceof ConstantNode) return ((ConstantNode)node).getValue() instanceof BooleanValue;
+        if (node instanceof EmbracedNode) return isBoolean(((EmbracedNode)node).getValue());
+        if (node instanceof ArithmeticNode) // the operator with the lowest precedence is applied last
+            return ((ArithmeticNode)node).operators().stream().anyMatch(op -> op == ArithmeticOperator.OR ||
+                                                                             op == ArithmeticOperator.AND);
+        if (node instanceof IfNode) {
+            Boolean trueBoolean = isBoolean(((IfNode)node).getTrueExpression());
+            Boolean falseBoolean = isBoolean(((IfNode)node).getFalseExpression());
+            return trueBoolean != null && trueBoolean.equals(falseBoolean) ? trueBoolean : null;
+        }
+        return false;
+    }
+
+    /** Returns whether this is a node whose children are scalars if it is itself */
+    private static boolean isScalarOperation(ExpressionNode node) {
+        return node instanceof ArithmeticNode || node instanceof ComparisonNode || node instanceof IfNode ||
+               node instanceof FunctionNode || node instanceof NegativeNode || node instanceof NotNode ||
+               node instanceof EmbracedNode;
+    }
+
+    /** Returns whether this node only produces a value, such that compiling it gives no gain */
+    private static boolean isLeaf(ExpressionNode node) {
+        return node instanceof ConstantNode || node instanceof ReferenceNode ||
+               node instanceof GBDTNode || node instanceof GBDTForestNode;
+    }
+
+    private static class Item {
+
+        final ArithmeticOperator op;
+        ScalarExpression expression;
+
+        Item(ArithmeticOperator op, ScalarExpression expression) {
+            this.op = op;
+            this.expression = expression;
+        }
+
+    }
+
+}
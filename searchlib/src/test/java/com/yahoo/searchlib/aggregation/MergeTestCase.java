@@ -13,6 +13,7 @@ import com.yahoo.searchlib.expression.MultiplyFunctionNode;
 import com.yahoo.searchlib.expression.StringResultNode;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -724,6 +725,64 @@ public class MergeTestCase {
         assertMerge(request, rhs, lhs, expect);
     }
 
+    // Merge many trees with overlapping groups at all levels at once, and verify that this equals merging them in turn.
+    @Test
+    public void testMergeManyTrees() {
+        Grouping request = new Grouping()
+            .setFirstLevel(0)
+            .setLastLevel(2)
+            .addLevel(new GroupingLevel().setMaxGroups(-1))
+            .addLevel(new GroupingLevel().setMaxGroups(-1));
+
+        List<Grouping> replies = new ArrayList<>();
+        for (int reply = 0; reply < 8; ++reply) {
+            Group root = new Group().addAggregationResult(new SumAggregationResult()
+                                                                  .setSum(new IntegerResultNode(reply))
+                                                                  .setExpression(new AttributeNode("foo")));
+            for (int id = 0; id < 10; ++id) {
+                if ((id + reply) % 3 == 0) continue;
+                Group child = new Group()
+                    .setId(new IntegerResultNode(id))
+                    .setRank(reply)
+                    .addAggregationResult(new SumAggregationResult()
+                                                  .setSum(new IntegerResultNode(id * reply))
+                                                  .setExpression(new AttributeNode("foo")));
+                for (int grandChildId = 0; grandChildId < 4; ++grandChildId) {
+                    if ((grandChildId + reply) % 2 == 0) continue;
+                    child.addChild(new Group()
+                                       .setId(new IntegerResultNode(grandChildId))
+                                       .addAggregationResult(new SumAggregationResult()
+                                                                     .setSum(new IntegerResultNode(1))
+                                                                     .setExpression(new AttributeNode("foo"))));
+                }
+                root.addChild(child);
+            }
+            replies.add(request.clone().setRoot(root));
+        }
+
+        Grouping expect = replies.get(0).clone();
+        for (int i = 1; i < replies.size(); ++i) {
+            expect.merge(replies.get(i).clone());
+        }
+        expect.postMerge();
+
+        Grouping actual = replies.get(0).clone();
+        List<Grouping> others = new ArrayList<>();
+        for (int i = 1; i < replies.size(); ++i) {
+            others.add(replies.get(i).clone());
+        }
+        actual.merge(others);
+        actual.postMerge();
+
+        assertEquals(expect.getRoot().toString(), actual.getRoot().toString());
+        assertEquals(expect.getRoot(), actual.getRoot());
+        assertEquals(28, ((SumAggregationResult)actual.getRoot().getAggregationResults().get(0)).getSum().getInteger());
+        assertEquals(10, actual.getRoot().getChildren().size());
+        for (Group child : actual.getRoot().getChildren()) {
+            assertEquals(4, child.getChildren().size());
+        }
+    }
+
     private static void assertMerge(Grouping request, Group lhs, Group rhs, Group expect) {
         assertMerge(Arrays.asList(request.clone().setRoot(lhs.clone()),
                                   request.clone().setRoot(rhs.clone())),
@@ -744,8 +803,19 @@ public class MergeTestCase {
     private static void assertMerge(List<Grouping> groupingList, Group expect) {
         Grouping tmp = groupingList.get(0).clone();
         for (int i = 1; i < groupingList.size(); ++i) {
-            tmp.merge(groupingList.get(i));
+            tmp.merge(groupingList.get(i).clone());
+        }
+        tmp.postMerge();
+        assertEquals(expect.toString(), tmp.getRoot().toString());
+        assertEquals(expect, tmp.getRoot());
+
+        // Merging all at once must give the same result
+        tmp = groupingList.get(0).clone();
+        List<Grouping> others = new ArrayList<>();
+        for (int i = 1; i < groupingList.size(); ++i) {
+            others.add(groupingList.get(i).clone());
         }
+        tmp.merge(others);
         tmp.postMerge();
         assertEquals(expect.toString(), tmp.getRoot().toString());
         assertEquals(expect, tmp.getRoot());
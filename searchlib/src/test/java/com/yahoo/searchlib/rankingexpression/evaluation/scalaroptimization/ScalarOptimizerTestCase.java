@@ -0,0 +1,134 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapTypeContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScalarOptimizerTestCase {
+
+    private final double delta = 0.00000000001;
+
+    @Test
+    public void testCompiledEvaluationEqualsInterpretedEvaluation() throws ParseException {
+        assertCompiledLikeInterpreted("a + b * c - a / b");
+        assertCompiledLikeInterpreted("a - b - c * 2 ^ a % 3");
+        assertCompiledLikeInterpreted("2 * a + 3 - b / 4 + 1 / c");
+        assertCompiledLikeInterpreted("if (a < 0.5, b * 2, c ^ 2) + max(a, b) - -c % 3");
+        assertCompiledLikeInterpreted("if (a > b && c != 0.3 || !(a >= c), 1, 0)");
+        assertCompiledLikeInterpreted("sigmoid(a) + exp(b) + log(c) + sqrt(a) + tanh(b) + min(a, 0.5) + atan2(a, b) + fabs(-c)");
+        assertCompiledLikeInterpreted("(a + b) * (b + c) * pow(a, 2) + relu(b - 0.5)");
+        assertCompiledLikeInterpreted("a < b");
+        assertCompiledLikeInterpreted("a + 1 < b || c == 0.25");
+        assertCompiledLikeInterpreted("if (a <= 0.5, b < c, a ~= b)");
+    }
+
+    @Test
+    public void testConstantsAreFolded() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * (1 + 2 * 3) + if (2 > 1, b, c)");
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        OptimizationReport report = optimizer().optimize(expression, context);
+        assertEquals(1, report.getMetric("Compiled scalar expressions"));
+        assertTrue(expression.getRoot() instanceof CompiledScalarNode);
+        assertEquals("a * (1 + 2 * 3) + if (2 > 1, b, c)", expression.getRoot().toString());
+        context.put("a", 2d);
+        context.put("b", 3d);
+        assertEquals(17.0, expression.evaluate(context).asDouble(), delta);
+    }
+
+    @Test
+    public void testOnlyScalarSubExpressionsAreCompiled() throws ParseException {
+        RankingExpression expression = new RankingExpression("reduce(t * 2, sum) + (a * b + 1)");
+        ArrayContext context = new ArrayContext(expression);
+        MapTypeContext types = new MapTypeContext();
+        types.setType(Reference.fromIdentifier("t"), TensorType.fromSpec("tensor(x[2])"));
+        types.setType(Reference.fromIdentifier("a"), TensorType.empty);
+        types.setType(Reference.fromIdentifier("b"), TensorType.empty);
+        new ScalarOptimizer().optimize(expression, context, types, new OptimizationReport());
+        assertTrue(expression.getRoot() instanceof ArithmeticNode);
+        assertTrue(((ArithmeticNode)expression.getRoot()).children().get(1) instanceof CompiledScalarNode);
+
+        context.put("t", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        context.put("a", 2d);
+        context.put("b", 3d);
+        assertEquals(Tensor.from(13.0), expression.evaluate(context).asTensor());
+    }
+
+    @Test
+    public void testVariablesNotKnownToBeScalarsAreNotCompiled() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + b");
+        ArrayContext context = new ArrayContext(expression);
+        optimizer().optimize(expression, context); // an array context does not know the types to be bound
+        assertFalse(expression.getRoot() instanceof CompiledScalarNode);
+
+        MapTypeContext types = new MapTypeContext();
+        types.setType(Reference.fromIdentifier("a"), TensorType.fromSpec("tensor(x[2])"));
+        types.setType(Reference.fromIdentifier("b"), TensorType.empty);
+        new ScalarOptimizer().optimize(expression, context, types, new OptimizationReport());
+        assertFalse(expression.getRoot() instanceof CompiledScalarNode);
+
+        context.put("a", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        context.put("b", 1d);
+        assertEquals(Tensor.from("tensor(x[2]):[3, 5]"), expression.evaluate(context).asTensor());
+    }
+
+    @Test
+    public void testIsDisabledByDefault() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + b");
+        new ExpressionOptimizer().optimize(expression, new DoubleOnlyArrayContext(expression));
+        assertFalse(expression.getRoot() instanceof CompiledScalarNode);
+    }
+
+    private void assertCompiledLikeInterpreted(String expressionString) throws ParseException {
+        RankingExpression interpreted = new RankingExpression(expressionString);
+        RankingExpression compiled = new RankingExpression(expressionString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(compiled);
+        OptimizationReport report = new OptimizationReport();
+        new ScalarOptimizer().optimize(compiled, context, report);
+        assertEquals(expressionString, 1, report.getMetric("Compiled scalar expressions"));
+        assertEquals(interpreted.toString(), compiled.toString());
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            MapContext values = new MapContext();
+            for (String name : new String[] { "a", "b", "c" }) {
+                double value = i % 10 == 0 ? 0.25 : random.nextDouble(); // repeated values to hit equality
+                values.put(name, value);
+                if (context.names().contains(name))
+                    context.put(name, value);
+            }
+            Value expected = interpreted.evaluate(values);
+            Value actual = compiled.evaluate(context);
+            assertEquals(expressionString, expected.asDouble(), actual.asDouble(), delta);
+            assertEquals(expressionString, expected instanceof BooleanValue, actual instanceof BooleanValue);
+            assertEquals(expressionString, expected instanceof DoubleValue, actual instanceof DoubleValue);
+        }
+    }
+
+    private ExpressionOptimizer optimizer() {
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ScalarOptimizer.class).setEnabled(true);
+        return optimizer;
+    }
+
+}
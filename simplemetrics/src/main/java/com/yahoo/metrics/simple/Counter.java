@@ -2,7 +2,6 @@
 package com.yahoo.metrics.simple;
 
 import com.google.common.annotations.Beta;
-import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
 
 /**
  * A counter metric. Create a counter by declaring it with
@@ -16,11 +15,17 @@ public class Counter {
     private final Point defaultPosition;
     private final String name;
     private final MetricReceiver metricReceiver;
+    private final Identifier defaultIdentifier;
+
+    /** The identifier of the last point other than the default this was updated at */
+    private volatile Identifier lastIdentifier;
 
     Counter(String name, Point defaultPosition, MetricReceiver receiver) {
         this.name = name;
         this.defaultPosition = defaultPosition;
         this.metricReceiver = receiver;
+        this.defaultIdentifier = new Identifier(name, defaultPosition);
+        this.lastIdentifier = defaultIdentifier;
     }
 
     /**
@@ -57,7 +62,14 @@ public class Counter {
      *            the point in the metric space at which to add to the metric
      */
     public void add(long n, Point p) {
-        metricReceiver.update(new Sample(new Measurement(Long.valueOf(n)), new Identifier(name, p), AssumedType.COUNTER));
+        metricReceiver.add(identifierOf(p), n);
+    }
+
+    private Identifier identifierOf(Point p) {
+        if (p == defaultPosition) return defaultIdentifier;
+        Identifier last = lastIdentifier;
+        if (p == last.getLocation()) return last;
+        return lastIdentifier = new Identifier(name, p);
     }
 
     /**
@@ -2,7 +2,6 @@
 package com.yahoo.metrics.simple;
 
 import com.google.common.annotations.Beta;
-import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
 
 /**
  * A gauge metric, i.e. a bucket of arbitrary sample values. Create a gauge
@@ -17,11 +16,17 @@ public class Gauge {
     private final Point defaultPosition;
     private final String name;
     private final MetricReceiver receiver;
+    private final Identifier defaultIdentifier;
+
+    /** The identifier of the last point other than the default this was sampled at */
+    private volatile Identifier lastIdentifier;
 
     Gauge(String name, Point defaultPosition, MetricReceiver receiver) {
         this.name = name;
         this.defaultPosition = defaultPosition;
         this.receiver = receiver;
+        this.defaultIdentifier = new Identifier(name, defaultPosition);
+        this.lastIdentifier = defaultIdentifier;
     }
 
     /**
@@ -43,7 +48,14 @@ public class Gauge {
      *            position/dimension values for the sample
      */
     public void sample(double x, Point p) {
-        receiver.update(new Sample(new Measurement(Double.valueOf(x)), new Identifier(name, p), AssumedType.GAUGE));
+        receiver.sample(identifierOf(p), x);
+    }
+
+    private Identifier identifierOf(Point p) {
+        if (p == defaultPosition) return defaultIdentifier;
+        Identifier last = lastIdentifier;
+        if (p == last.getLocation()) return last;
+        return lastIdentifier = new Identifier(name, p);
     }
 
     /**
@@ -24,6 +24,9 @@ public class MetricReceiver {
     private final ThreadLocalDirectory<Bucket, Sample> metricsCollection;
     private final AtomicReference<Bucket> currentSnapshot;
 
+    // A sample per thread which is reused for updates from counters and gauges, which are consumed before update returns
+    private final ThreadLocal<Sample> reusableSample = ThreadLocal.withInitial(() -> new Sample(this));
+
     // metricSettings is volatile for reading, the lock is for updates
     private final Object histogramDefinitionsLock = new Object();
     private volatile Map<String, MetricSettings> metricSettings;
@@ -115,6 +118,14 @@ public class MetricReceiver {
         public void update(Sample s) {
         }
 
+        @Override
+        void add(Identifier id, long n) {
+        }
+
+        @Override
+        void sample(Identifier id, double x) {
+        }
+
         @Override
         public Counter declareCounter(String name) {
             return new NullCounter();
@@ -181,6 +192,16 @@ public class MetricReceiver {
         metricsCollection.update(sample);
     }
 
+    /** Adds to a counter metric without allocating a sample */
+    void add(Identifier id, long n) {
+        metricsCollection.update(reusableSample.get().setCounter(id, n));
+    }
+
+    /** Records a gauge metric sample without allocating a sample */
+    void sample(Identifier id, double x) {
+        metricsCollection.update(reusableSample.get().setGauge(id, x));
+    }
+
     /**
      * Declare a counter metric without setting any default position.
      *
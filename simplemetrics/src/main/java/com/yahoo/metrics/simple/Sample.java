@@ -11,17 +11,44 @@ import com.yahoo.metrics.simple.UntypedMetric.AssumedType;
  */
 public class Sample {
 
-    private final Identifier identifier;
-    private final Measurement measurement;
-    private final AssumedType metricType;
+    private Identifier identifier;
+    private Measurement measurement;
+    private AssumedType metricType;
     private MetricReceiver metricReceiver = null;
 
+    // The value of a sample without a measurement
+    private long longValue;
+    private double doubleValue;
+
     public Sample(Measurement measurement, Identifier id, AssumedType t) {
         this.identifier = id;
         this.measurement = measurement;
         this.metricType = t;
     }
 
+    /** Creates a sample to be reused by a single thread, by setting its values before each update */
+    Sample(MetricReceiver metricReceiver) {
+        this.metricReceiver = metricReceiver;
+    }
+
+    /** Sets this to be a counter sample with the given primitive value, and returns this */
+    Sample setCounter(Identifier id, long n) {
+        this.identifier = id;
+        this.measurement = null;
+        this.metricType = AssumedType.COUNTER;
+        this.longValue = n;
+        return this;
+    }
+
+    /** Sets this to be a gauge sample with the given primitive value, and returns this */
+    Sample setGauge(Identifier id, double x) {
+        this.identifier = id;
+        this.measurement = null;
+        this.metricType = AssumedType.GAUGE;
+        this.doubleValue = x;
+        return this;
+    }
+
     Identifier getIdentifier() {
         return identifier;
     }
@@ -30,6 +57,14 @@ public class Sample {
         return measurement;
     }
 
+    long longValue() {
+        return measurement == null ? longValue : measurement.getMagnitude().longValue();
+    }
+
+    double doubleValue() {
+        return measurement == null ? doubleValue : measurement.getMagnitude().doubleValue();
+    }
+
     AssumedType getMetricType() {
         return metricType;
     }
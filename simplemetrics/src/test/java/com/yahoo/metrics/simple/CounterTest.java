@@ -108,4 +108,31 @@ public class CounterTest {
         assertEquals(twoToThePowerOfFourtyeight, x.get(0).getValue().getCount());
     }
 
+    @Test
+    public final void testAddAtAlternatingPoints() {
+        final String metricName = "unitTestCounter";
+        Point p = receiver.pointBuilder().set("x", 2L).build();
+        Point q = receiver.pointBuilder().set("x", 3L).build();
+        Counter c = receiver.declareCounter(metricName, p);
+        Gauge g = receiver.declareGauge("unitTestGauge", p);
+        for (int i = 0; i < 3; i++) {
+            c.add();
+            c.add(2, q);
+            c.add(3, receiver.pointBuilder().set("x", 3L).build());
+            g.sample(i);
+            g.sample(i + 0.5d, q);
+        }
+        Bucket b = receiver.getSnapshot();
+        Map<Point, UntypedMetric> counts = b.getMapForMetric(metricName);
+        assertEquals(2, counts.size());
+        assertEquals(3L, counts.get(p).getCount());
+        assertEquals(15L, counts.get(q).getCount());
+        Map<Point, UntypedMetric> samples = b.getMapForMetric("unitTestGauge");
+        assertEquals(2, samples.size());
+        assertEquals(3L, samples.get(p).getCount());
+        assertEquals(2.0d, samples.get(p).getLast(), 0.0d);
+        assertEquals(2.5d, samples.get(q).getMax(), 0.0d);
+        assertEquals(0.5d, samples.get(q).getMin(), 0.0d);
+    }
+
 }
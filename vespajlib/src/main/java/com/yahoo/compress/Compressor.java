@@ -137,7 +137,7 @@ public class Compressor {
                     throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize.get());
                 return uncompressedLZ4Data;
             case ZSTD:
-                int compressedLength = expectedCompressedSize.orElseThrow(() -> new IllegalArgumentException("Zstd decompressor requires input size"));
+                int compressedLength = expectedCompressedSize.orElse(compressedData.length - compressedDataOffset);
                 byte[] decompressedData = zstdCompressor.decompress(compressedData, compressedDataOffset, compressedLength);
                 expectedCompressedSize.ifPresent(expectedSize -> {
                     if (compressedData.length != expectedSize) {
@@ -85,4 +85,40 @@ public class BinaryFormat {
         BinaryDecoder decoder = new BinaryDecoder();
         return decoder.decode(data, offset, length);
     }
+
+    /**
+     * Take binary data and return a read-only view of it, which reads
+     * the values in place as they are accessed instead of decoding the
+     * data into a Slime object up front. See {@link BinaryView}.
+     *
+     * If the binary data is not valid, the returned value is instead
+     * the root of the Slime object returned by {@link #decode(byte[])}.
+     *
+     * @param data the data to view.
+     * @return a read-only inspector of the root value of the data.
+     **/
+    public static Inspector view(byte[] data) {
+        return view(data, 0, data.length);
+    }
+
+    /**
+     * Take binary data and return a read-only view of it, which reads
+     * the values in place as they are accessed instead of decoding the
+     * data into a Slime object up front. See {@link BinaryView}.
+     *
+     * If the binary data is not valid, the returned value is instead
+     * the root of the Slime object returned by {@link #decode(byte[], int, int)}.
+     *
+     * @param data array containing the data to view.
+     * @param offset where in the array the data starts.
+     * @param length the length of the data.
+     * @return a read-only inspector of the root value of the data.
+     **/
+    public static Inspector view(byte[] data, int offset, int length) {
+        try {
+            return BinaryView.inspect(data, offset, length);
+        } catch (IllegalArgumentException e) {
+            return decode(data, offset, length).get();
+        }
+    }
 }
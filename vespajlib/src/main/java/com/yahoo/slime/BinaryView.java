@@ -0,0 +1,410 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static com.yahoo.slime.BinaryFormat.decode_double;
+import static com.yahoo.slime.BinaryFormat.decode_meta;
+import static com.yahoo.slime.BinaryFormat.decode_type;
+import static com.yahoo.slime.BinaryFormat.decode_zigzag;
+
+/**
+ * A read-only view of Slime data in binary format, which reads values from the binary data in place
+ * instead of decoding it into a {@link Slime} object. Viewing the data only resolves the position of each
+ * value in the data, while strings and data values are decoded or copied only when they are accessed,
+ * which makes this much cheaper than decoding when only some of the values are accessed.
+ *
+ * The binary data must not be modified while it is viewed.
+ */
+public final class BinaryView implements Inspector {
+
+    private final byte[] data;
+    private final SymbolTable names;
+    private final Index index;
+    private final int self;
+
+    private BinaryView(byte[] data, SymbolTable names, Index index, int self) {
+        this.data = data;
+        this.names = names;
+        this.index = index;
+        this.self = self;
+    }
+
+    /**
+     * Returns a view of the given binary Slime data.
+     *
+     * @throws IllegalArgumentException if the data is not valid binary Slime data
+     */
+    public static Inspector inspect(byte[] data) {
+        return inspect(data, 0, data.length);
+    }
+
+    /**
+     * Returns a view of the given binary Slime data.
+     *
+     * @param data array containing the data to view
+     * @param offset where in the array the data starts
+     * @param length the length of the data
+     * @throws IllegalArgumentException if the data is not valid binary Slime data
+     */
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        IndexBuilder builder = new IndexBuilder(data, offset, offset + length);
+        SymbolTable names = builder.decodeSymbolTable();
+        Index index = builder.decodeIndex(names);
+        return new BinaryView(data, names, index, 0);
+    }
+
+    private int position() { return index.positions[self]; }
+    private byte typeAndMeta() { return data[position()]; }
+    private int meta() { return decode_meta(typeAndMeta()); }
+
+    /** Returns the number of entries or fields of an array or object, or the size of a string or data value */
+    private int size() {
+        int meta = meta();
+        return meta == 0 ? (int)readCmprLong(data, position() + 1) : meta - 1;
+    }
+
+    /** Returns the position of the payload of a string or data value */
+    private int payloadPosition() {
+        int pos = position() + 1;
+        if (meta() == 0) {
+            while ((data[pos] & 0x80) != 0) pos++;
+            pos++;
+        }
+        return pos;
+    }
+
+    private long readBytesLe(int bytes) {
+        int pos = position() + 1;
+        long value = 0;
+        for (int i = 0; i < bytes; ++i)
+            value |= (data[pos + i] & 0xffL) << (8 * i);
+        return value;
+    }
+
+    private long readBytesBe(int bytes) {
+        int pos = position() + 1;
+        long value = 0;
+        for (int i = 0; i < bytes; ++i)
+            value |= (data[pos + i] & 0xffL) << (56 - 8 * i);
+        return value;
+    }
+
+    private Inspector child(int i) {
+        return new BinaryView(data, names, index, index.firstChild[self] + i);
+    }
+
+    @Override
+    public boolean valid() { return true; }
+
+    @Override
+    public Type type() { return decode_type(typeAndMeta()); }
+
+    @Override
+    public int children() {
+        switch (type()) {
+            case ARRAY:
+            case OBJECT: return size();
+            default: return 0;
+        }
+    }
+
+    @Override
+    public int entries() { return type() == Type.ARRAY ? size() : 0; }
+
+    @Override
+    public int fields() { return type() == Type.OBJECT ? size() : 0; }
+
+    @Override
+    public boolean asBool() { return type() == Type.BOOL && meta() != 0; }
+
+    @Override
+    public long asLong() {
+        switch (type()) {
+            case LONG: return decode_zigzag(readBytesLe(meta()));
+            case DOUBLE: return (long)decode_double(readBytesBe(meta()));
+            default: return 0;
+        }
+    }
+
+    @Override
+    public double asDouble() {
+        switch (type()) {
+            case LONG: return (double)decode_zigzag(readBytesLe(meta()));
+            case DOUBLE: return decode_double(readBytesBe(meta()));
+            default: return 0.0;
+        }
+    }
+
+    @Override
+    public String asString() {
+        if (type() != Type.STRING) return "";
+        return Utf8Codec.decode(data, payloadPosition(), size());
+    }
+
+    @Override
+    public byte[] asUtf8() {
+        if (type() != Type.STRING) return new byte[0];
+        int start = payloadPosition();
+        return Arrays.copyOfRange(data, start, start + size());
+    }
+
+    @Override
+    public byte[] asData() {
+        if (type() != Type.DATA) return new byte[0];
+        int start = payloadPosition();
+        return Arrays.copyOfRange(data, start, start + size());
+    }
+
+    @Override
+    public void accept(Visitor v) {
+        switch (type()) {
+            case NIX: v.visitNix(); break;
+            case BOOL: v.visitBool(asBool()); break;
+            case LONG: v.visitLong(asLong()); break;
+            case DOUBLE: v.visitDouble(asDouble()); break;
+            case STRING: v.visitString(asUtf8()); break;
+            case DATA: v.visitData(asData()); break;
+            case ARRAY: v.visitArray(this); break;
+            case OBJECT: v.visitObject(this); break;
+        }
+    }
+
+    @Override
+    public void traverse(ArrayTraverser at) {
+        int entries = entries();
+        for (int i = 0; i < entries; i++)
+            at.entry(i, child(i));
+    }
+
+    @Override
+    public void traverse(ObjectSymbolTraverser ot) {
+        int fields = fields();
+        for (int i = 0; i < fields; i++)
+            ot.field(index.symbols[index.firstChild[self] + i], child(i));
+    }
+
+    @Override
+    public void traverse(ObjectTraverser ot) {
+        int fields = fields();
+        for (int i = 0; i < fields; i++)
+            ot.field(names.inspect(index.symbols[index.firstChild[self] + i]), child(i));
+    }
+
+    @Override
+    public Inspector entry(int idx) {
+        if (idx < 0 || idx >= entries()) return NixValue.invalid();
+        return child(idx);
+    }
+
+    @Override
+    public Inspector field(int sym) {
+        int fields = fields();
+        int first = index.firstChild[self];
+        for (int i = 0; i < fields; i++) {
+            if (index.symbols[first + i] == sym)
+                return child(i);
+        }
+        return NixValue.invalid();
+    }
+
+    @Override
+    public Inspector field(String name) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        int sym = names.lookup(name);
+        if (sym == SymbolTable.INVALID) return NixValue.invalid();
+        return field(sym);
+    }
+
+    @Override
+    public boolean equalTo(Inspector that) {
+        return Value.equal(this, that);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if ( ! (o instanceof BinaryView)) return false;
+        BinaryView other = (BinaryView)o;
+        return other.index == this.index && other.self == this.self;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(index) * 31 + self;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            ByteArrayOutputStream a = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(a, this);
+            byte[] utf8 = a.toByteArray();
+            return Utf8Codec.decode(utf8, 0, utf8.length);
+        } catch (Exception e) {
+            return "null";
+        }
+    }
+
+    private static long readCmprLong(byte[] data, int pos) {
+        long next = data[pos++];
+        long value = (next & 0x7f);
+        int shift = 7;
+        while ((next & 0x80) != 0) {
+            next = data[pos++];
+            value |= ((next & 0x7f) << shift);
+            shift += 7;
+        }
+        return value;
+    }
+
+    /**
+     * The position of each value in the data, in the order their containers are first seen,
+     * such that the children of a container are consecutive.
+     */
+    private static class Index {
+
+        /** The position of the type and meta byte of each value */
+        int[] positions;
+
+        /** The index of the first child of each array and object */
+        int[] firstChild;
+
+        /** The symbol of each object field, or -1 for other values */
+        int[] symbols;
+
+        int size = 0;
+
+        Index(int capacity) {
+            positions = new int[capacity];
+            firstChild = new int[capacity];
+            symbols = new int[capacity];
+        }
+
+        /** Reserves room for the given number of values and returns the index of the first */
+        int reserve(int count) {
+            int first = size;
+            size += count;
+            if (size > positions.length) {
+                int capacity = Math.max(size, positions.length * 2);
+                positions = Arrays.copyOf(positions, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                symbols = Arrays.copyOf(symbols, capacity);
+            }
+            return first;
+        }
+
+    }
+
+    /** Validates binary data and resolves the position of each value in it */
+    private static class IndexBuilder {
+
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        IndexBuilder(byte[] data, int start, int end) {
+            if (start < 0 || end > data.length || start > end)
+                throw new IllegalArgumentException("Invalid range [" + start + ", " + end + ") in " + data.length + " bytes");
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        SymbolTable decodeSymbolTable() {
+            SymbolTable names = new SymbolTable();
+            long numSymbols = readCmprLong();
+            for (int i = 0; i < numSymbols; ++i) {
+                int size = readSize(0);
+                int symbol = names.insert(Utf8Codec.decode(data, position, size));
+                skip(size);
+                if (symbol != i)
+                    throw new IllegalArgumentException("Duplicate symbols in symbol table");
+            }
+            return names;
+        }
+
+        Index decodeIndex(SymbolTable names) {
+            Index index = new Index(16);
+            decodeValue(index, index.reserve(1), -1, names);
+            return index;
+        }
+
+        private void decodeValue(Index index, int slot, int symbol, SymbolTable names) {
+            index.positions[slot] = position;
+            index.symbols[slot] = symbol;
+            byte typeAndMeta = getByte();
+            int meta = decode_meta(typeAndMeta);
+            switch (decode_type(typeAndMeta)) {
+                case NIX:
+                case BOOL:
+                    break;
+                case LONG:
+                case DOUBLE:
+                    skip(meta);
+                    break;
+                case STRING:
+                case DATA:
+                    skip(readSize(meta));
+                    break;
+                case ARRAY: {
+                    int entries = readSize(meta);
+                    int first = index.reserve(entries);
+                    index.firstChild[slot] = first;
+                    for (int i = 0; i < entries; i++)
+                        decodeValue(index, first + i, -1, names);
+                    break;
+                }
+                case OBJECT: {
+                    int fields = readSize(meta);
+                    int first = index.reserve(fields);
+                    index.firstChild[slot] = first;
+                    for (int i = 0; i < fields; i++) {
+                        long fieldSymbol = readCmprLong();
+                        if (fieldSymbol >= names.symbols())
+                            throw new IllegalArgumentException("Unknown symbol " + fieldSymbol + " at position " + position);
+                        decodeValue(index, first + i, (int)fieldSymbol, names);
+                    }
+                    break;
+                }
+            }
+        }
+
+        /** Reads the size of a string, data, array or object, which is at least 1 byte per element */
+        private int readSize(int meta) {
+            long size = (meta == 0) ? readCmprLong() : (meta - 1);
+            if (size > end - position)
+                throw new IllegalArgumentException("Size " + size + " at position " + position + " exceeds the data");
+            return (int)size;
+        }
+
+        private long readCmprLong() {
+            long next = getByte();
+            long value = (next & 0x7f);
+            int shift = 7;
+            while ((next & 0x80) != 0) {
+                if (shift > 63)
+                    throw new IllegalArgumentException("Invalid compressed number at position " + position);
+                next = getByte();
+                value |= ((next & 0x7f) << shift);
+                shift += 7;
+            }
+            return value;
+        }
+
+        private byte getByte() {
+            if (position >= end)
+                throw new IllegalArgumentException("Underflow at position " + position);
+            return data[position++];
+        }
+
+        private void skip(int size) {
+            if (size > end - position)
+                throw new IllegalArgumentException("Underflow at position " + position);
+            position += size;
+        }
+
+    }
+
+}
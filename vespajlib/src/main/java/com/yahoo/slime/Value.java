@@ -120,40 +120,45 @@ abstract class Value implements Cursor {
 
     @Override
     public boolean equalTo(Inspector that) {
-        boolean equal = type() == that.type();
+        return equal(this, that);
+    }
+
+    /** Returns whether the two given inspectors have the same type and value */
+    static boolean equal(Inspector lhs, Inspector rhs) {
+        boolean equal = lhs.type() == rhs.type();
 
         if (equal) {
-            switch (type()) {
+            switch (lhs.type()) {
                 case NIX:
-                    equal = valid() == that.valid();
+                    equal = lhs.valid() == rhs.valid();
                     break;
                 case BOOL:
-                    equal = asBool() == that.asBool();
+                    equal = lhs.asBool() == rhs.asBool();
                     break;
                 case LONG:
-                    equal = asLong() == that.asLong();
+                    equal = lhs.asLong() == rhs.asLong();
                     break;
                 case DOUBLE:
-                    equal = Double.compare(asDouble(), that.asDouble()) == 0;
+                    equal = Double.compare(lhs.asDouble(), rhs.asDouble()) == 0;
                     break;
                 case STRING:
-                    equal = asString().equals(that.asString());
+                    equal = lhs.asString().equals(rhs.asString());
                     break;
                 case DATA:
-                    equal = Arrays.equals(asData(), that.asData());
+                    equal = Arrays.equals(lhs.asData(), rhs.asData());
                     break;
                 case ARRAY:
                 {
-                    var traverser = new EqualArray(that);
-                    traverse(traverser);
-                    equal = traverser.isEqual() && (entries() == that.entries());
+                    var traverser = new EqualArray(rhs);
+                    lhs.traverse(traverser);
+                    equal = traverser.isEqual() && (lhs.entries() == rhs.entries());
                 }
                 break;
                 case OBJECT:
                 {
-                    var traverser = new EqualObject(that);
-                    traverse(traverser);
-                    equal = traverser.isEqual() && (fields() == that.fields());
+                    var traverser = new EqualObject(rhs);
+                    lhs.traverse(traverser);
+                    equal = traverser.isEqual() && (lhs.fields() == rhs.fields());
                 }
                 break;
                 default:
@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -11,6 +12,7 @@ import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -128,13 +130,16 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
         // Special case: Reduce all
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size())
-            if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
-                return reduceIndexedVector((IndexedTensor)argument, aggregator);
+            if (argument instanceof IndexedTensor)
+                return reduceAllIndexed((IndexedTensor)argument, aggregator);
             else
                 return reduceAllGeneral(argument, aggregator);
 
         TensorType reducedType = type(argument.type(), dimensions);
 
+        if (argument instanceof IndexedTensor && aggregator != Aggregator.median)
+            return reduceIndexed((IndexedTensor)argument, reducedType, aggregator);
+
         // Reduce cells
         Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>();
         for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
@@ -171,13 +176,73 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
-    private static Tensor reduceIndexedVector(IndexedTensor argument, Aggregator aggregator) {
+    private static Tensor reduceAllIndexed(IndexedTensor argument, Aggregator aggregator) {
         ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        for (int i = 0; i < argument.dimensionSizes().size(0); i++)
+        for (int i = 0; i < argument.size(); i++)
             valueAggregator.aggregate(argument.get(i));
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
+    /**
+     * Reduces some dimensions of a dense tensor by aggregating each value directly into the value array
+     * of the result, whose index is updated incrementally as the argument is traversed in the
+     * <i>standard value order</i>. This avoids creating addresses, cells and boxed values.
+     */
+    private static Tensor reduceIndexed(IndexedTensor argument, TensorType reducedType, Aggregator aggregator) {
+        int dimensions = argument.type().dimensions().size();
+        long[] sizes = new long[dimensions];
+        for (int i = 0; i < dimensions; i++)
+            sizes[i] = argument.dimensionSizes().size(i);
+        DimensionSizes.Builder reducedSizesBuilder = new DimensionSizes.Builder(reducedType.dimensions().size());
+        for (int i = 0; i < reducedType.dimensions().size(); i++)
+            reducedSizesBuilder.set(i, argument.dimensionSizes().size(argument.type().indexOfDimension(reducedType.dimensions().get(i).name()).get()));
+        DimensionSizes reducedSizes = reducedSizesBuilder.build();
+        long[] reducedStrides = Join.stridesIn(argument.type(), reducedType, reducedSizes);
+
+        double[] values = new double[(int)reducedSizes.totalSize()];
+        double initialValue = initialValue(aggregator);
+        if (initialValue != 0)
+            Arrays.fill(values, initialValue);
+        long[] indexes = new long[dimensions];
+        int reducedIndex = 0;
+        for (int i = 0; i < argument.size(); i++) {
+            double value = argument.get(i);
+            switch (aggregator) {
+                case avg :
+                case sum : values[reducedIndex] += value; break;
+                case count : values[reducedIndex]++; break;
+                case max : if (value > values[reducedIndex]) values[reducedIndex] = value; break;
+                case min : if (value < values[reducedIndex]) values[reducedIndex] = value; break;
+                case prod : values[reducedIndex] *= value; break;
+                default: throw new UnsupportedOperationException("Aggregator " + aggregator + " is not implemented");
+            }
+
+            // Step to the next argument cell, innermost dimension first
+            for (int d = dimensions - 1; d >= 0; d--) {
+                reducedIndex += reducedStrides[d];
+                if (++indexes[d] < sizes[d]) break;
+                reducedIndex -= reducedStrides[d] * sizes[d];
+                indexes[d] = 0;
+            }
+        }
+        if (aggregator == Aggregator.avg && values.length > 0) {
+            long valuesPerReducedCell = argument.size() / values.length;
+            for (int i = 0; i < values.length; i++)
+                values[i] /= valuesPerReducedCell;
+        }
+        return IndexedTensor.Builder.of(reducedType, reducedSizes, values).build();
+    }
+
+    /** Returns the value the aggregator starts from, as in the corresponding {@link ValueAggregator} */
+    private static double initialValue(Aggregator aggregator) {
+        switch (aggregator) {
+            case max : return Double.MIN_VALUE;
+            case min : return Double.MAX_VALUE;
+            case prod : return 1.0;
+            default: return 0.0;
+        }
+    }
+
     static abstract class ValueAggregator {
 
         static ValueAggregator ofType(Aggregator aggregator) {
@@ -24,4 +24,13 @@ class CompressorTest {
         assertArrayEquals(inputData, decompressedData);
     }
 
+    @Test
+    void decompresses_zstd_without_known_compressed_size() {
+        byte[] inputData = "The quick brown fox jumps over the lazy dog".getBytes();
+        Compressor compressor = new Compressor(CompressionType.ZSTD);
+        Compressor.Compression compression = compressor.compress(inputData);
+        assertEquals(CompressionType.ZSTD, compression.type());
+        assertArrayEquals(inputData, compressor.decompress(compression));
+    }
+
 }
@@ -0,0 +1,148 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryViewTestCase {
+
+    private static Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -123456789012L);
+        root.setLong("small", 3);
+        root.setDouble("double", 3.5);
+        root.setString("string", "a string which is longer than thirty bytes, æøå");
+        root.setData("data", new byte[] { 1, 2, 3 });
+        Cursor array = root.setArray("array");
+        array.addLong(1);
+        array.addString("two");
+        Cursor nested = array.addObject();
+        nested.setString("string", "nested");
+        nested.setArray("empty");
+        root.setObject("empty");
+        return slime;
+    }
+
+    private static byte[] padded(byte[] data, int before, int after) {
+        byte[] padded = new byte[before + data.length + after];
+        System.arraycopy(data, 0, padded, before, data.length);
+        return padded;
+    }
+
+    @Test
+    public void testViewHasTheSameValuesAsDecodedSlime() {
+        Slime slime = createSlime();
+        byte[] data = BinaryFormat.encode(slime);
+        Inspector view = BinaryView.inspect(data);
+
+        assertTrue(view.equalTo(slime.get()));
+        assertTrue(slime.get().equalTo(view));
+        assertEquals(slime.get().toString(), view.toString());
+
+        assertEquals(Type.OBJECT, view.type());
+        assertEquals(9, view.fields());
+        assertEquals(9, view.children());
+        assertEquals(0, view.entries());
+        assertEquals(Type.NIX, view.field("nix").type());
+        assertTrue(view.field("nix").valid());
+        assertTrue(view.field("bool").asBool());
+        assertEquals(-123456789012L, view.field("long").asLong());
+        assertEquals(3, view.field("small").asLong());
+        assertEquals(3.0, view.field("small").asDouble(), 0.0);
+        assertEquals(3.5, view.field("double").asDouble(), 0.0);
+        assertEquals(3, view.field("double").asLong());
+        assertEquals("a string which is longer than thirty bytes, æøå", view.field("string").asString());
+        assertArrayEquals(Utf8Codec.encode("a string which is longer than thirty bytes, æøå"), view.field("string").asUtf8());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, view.field("data").asData());
+
+        Inspector array = view.field("array");
+        assertEquals(3, array.entries());
+        assertEquals(1, array.entry(0).asLong());
+        assertEquals("two", array.entry(1).asString());
+        assertEquals("nested", array.entry(2).field("string").asString());
+        assertEquals(0, array.entry(2).field("empty").entries());
+        assertEquals(0, view.field("empty").fields());
+        assertEquals(array.entry(1), array.entry(1));
+    }
+
+    @Test
+    public void testMismatchingAccessReturnsDefaultsAndInvalidValues() {
+        Inspector view = BinaryView.inspect(BinaryFormat.encode(createSlime()));
+        assertFalse(view.field("missing").valid());
+        assertFalse(view.field("missing").field("missing").valid());
+        assertFalse(view.entry(0).valid());
+        assertFalse(view.field("array").entry(3).valid());
+        assertFalse(view.field("array").entry(-1).valid());
+        assertFalse(view.field("string").field("string").valid());
+        assertEquals("", view.field("long").asString());
+        assertEquals(0, view.field("string").asLong());
+        assertEquals(0, view.field("data").asUtf8().length);
+        assertEquals(0, view.field("string").asData().length);
+        assertFalse(view.field("long").asBool());
+    }
+
+    @Test
+    public void testTraversal() {
+        Inspector view = BinaryView.inspect(BinaryFormat.encode(createSlime()));
+        List<String> names = new ArrayList<>();
+        view.traverse((ObjectTraverser) (name, inspector) -> names.add(name));
+        assertEquals(Arrays.asList("nix", "bool", "long", "small", "double", "string", "data", "array", "empty"),
+                     names);
+
+        List<Integer> symbols = new ArrayList<>();
+        view.traverse((ObjectSymbolTraverser) (symbol, inspector) -> symbols.add(symbol));
+        assertEquals(9, symbols.size());
+        assertEquals(Integer.valueOf(0), symbols.get(0));
+
+        List<Type> types = new ArrayList<>();
+        view.field("array").traverse((ArrayTraverser) (index, inspector) -> types.add(inspector.type()));
+        assertEquals(Arrays.asList(Type.LONG, Type.STRING, Type.OBJECT), types);
+    }
+
+    @Test
+    public void testViewOfDataAtAnOffset() {
+        Slime slime = createSlime();
+        byte[] data = BinaryFormat.encode(slime);
+        Inspector view = BinaryView.inspect(padded(data, 7, 5), 7, data.length);
+        assertTrue(view.equalTo(slime.get()));
+    }
+
+    @Test
+    public void testInvalidDataIsRejected() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        for (int length = 0; length < data.length; length++) {
+            try {
+                BinaryView.inspect(data, 0, length);
+                fail("Expected exception for data truncated to " + length + " bytes");
+            }
+            catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryFormatViewFallsBackToDecodingInvalidData() {
+        Slime slime = createSlime();
+        byte[] data = BinaryFormat.encode(slime);
+        assertTrue(BinaryFormat.view(data) instanceof BinaryView);
+        assertTrue(BinaryFormat.view(data).equalTo(slime.get()));
+
+        Inspector partial = BinaryFormat.view(data, 0, data.length - 1);
+        assertFalse(partial instanceof BinaryView);
+        assertEquals("underflow", partial.field("error_message").asString());
+    }
+
+}
@@ -46,4 +46,19 @@ public class JoinTestCase {
                              .divide(Tensor.from("tensor(y[],z[]):{ {y:0,z:0}:2, {y:1,z:0}:4, {y:2,z:0}:6 }")));
     }
 
+    @Test
+    public void testIndexedJoin() {
+        assertEquals(Tensor.from("tensor<float>(x[2],y[3]):[[11, 22, 33], [14, 25, 36]]"),
+                     Tensor.from("tensor<float>(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]")
+                           .add(Tensor.from("tensor<float>(y[3]):[10, 20, 30]")));
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[10, 20, 30], [20, 40, 60]]"),
+                     Tensor.from("tensor(y[3]):[1, 2, 3]")
+                           .multiply(Tensor.from("tensor(x[2]):[10, 20]")));
+        assertEquals(Tensor.from("tensor(x[],y[]):{{x:0,y:0}:3, {x:0,y:1}:5, {x:1,y:0}:7, {x:1,y:1}:9}"),
+                     Tensor.from("tensor(x[],y[]):{{x:0,y:0}:1, {x:0,y:1}:2, {x:0,y:2}:3, {x:1,y:0}:4, {x:1,y:1}:5, {x:1,y:2}:6}")
+                           .add(Tensor.from("tensor(x[],y[]):{{x:0,y:0}:2, {x:0,y:1}:3, {x:1,y:0}:3, {x:1,y:1}:4, {x:2,y:0}:0, {x:2,y:1}:0}")));
+        assertEquals(Tensor.from("tensor(x[2]):[3, 4]"),
+                     Tensor.from("tensor(x[2]):[1, 2]").add(Tensor.from("tensor():{2}")));
+    }
+
 }
@@ -4,6 +4,8 @@ package com.yahoo.tensor.functions;
 import com.yahoo.tensor.Tensor;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -28,6 +30,20 @@ public class ReduceTestCase {
         assertNan(Tensor.Builder.of("tensor(x[1])").cell(Double.NaN, 0).build().median());
     }
 
+    @Test
+    public void testReduceIndexed() {
+        Tensor t = Tensor.from("tensor(x[2],y[3],z[2]):[[[1, 2], [3, 4], [5, 6]], [[-1, -2], [-3, -4], [-5, -6]]]");
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[9, 12], [-9, -12]]"), t.sum("y"));
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[3, 4], [-3, -4]]"), t.avg("y"));
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[3, 3], [3, 3]]"), t.reduce(Reduce.Aggregator.count, "y"));
+        assertEquals(Tensor.from("tensor(y[2]):[3, 4]"), Tensor.from("tensor(x[2],y[2]):[[1, 4], [3, 2]]").max("x"));
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[1, 2], [-5, -6]]"), t.min("y"));
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[15, 48], [-15, -48]]"), t.reduce(Reduce.Aggregator.prod, "y"));
+        assertEquals(Tensor.from("tensor(y[3]):[0, 0, 0]"), t.sum(List.of("x", "z")));
+        assertEquals(Tensor.from("tensor(z[2]):[0, 0]"), t.reduce(Reduce.Aggregator.median, List.of("x", "y")));
+        assertEquals(0.0, t.sum().asDouble(), delta);
+    }
+
     private void assertNan(Tensor tensor) {
         assertTrue(tensor + " is NaN", Double.isNaN(tensor.asDouble()));
     }